@@ -8,6 +8,10 @@ import ch.qos.logback.core.joran.spi.JoranException;
 import dk.dtu.engine.core.StartMenuWindowManager;
 import dk.dtu.engine.utility.DatabaseSetup;
 import dk.dtu.game.core.StartMenu;
+import dk.dtu.game.core.solver.PuzzlePool;
+import dk.dtu.game.core.solver.SolveCache;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.RestartSchedule;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
@@ -39,7 +43,10 @@ public class SudokuSolverApp {
             // Generate the database
             logger.info("Setting up database...");
             DatabaseSetup.setup("jdbc:sqlite:sudoku.db");
+            PuzzlePool.shared().setBank("jdbc:sqlite:sudoku.db"); // a new game can start from a banked puzzle
+            SolveCache.shared().setStore("jdbc:sqlite:sudoku.db"); // boards solved in earlier sessions are not solved again
             logger.info("Database setup complete.");
+            AlgorithmXSolver.setRestartSchedule(RestartSchedule.luby(1000)); // no search of a large board stalls on bad early choices
 
             // Ensure GUI code runs on the EDT
             SwingUtilities.invokeLater(
@@ -117,7 +117,7 @@ public class SudokuBoardCanvas extends JPanel {
 
     // draws the little sum in the top left corner of the first cell of the cage
     private void drawCageSum(Graphics2D g2, Cage cage, int sumMargin) {
-        Point firstCell = cage.getCells().getFirst();
+        Point firstCell = cage.getCells().get(0);
         int sum = cage.getSum();
         String sumStr = Integer.toString(sum);
 
@@ -142,7 +142,7 @@ public class SudokuBoardCanvas extends JPanel {
             int cellX = cell.x * cellSize + margin;
             int cellY = cell.y * cellSize + margin;
             int size = cellSize - 2 * margin;
-            boolean isSumCell = cell.equals(cageCells.getFirst());
+            boolean isSumCell = cell.equals(cageCells.get(0));
 
             drawBorder(g2, cell, cageCells, cellX, cellY, size, isSumCell, margin);
         }
@@ -51,10 +51,44 @@ public class DatabaseSetup {
                         + "difficulty TEXT NOT NULL"
                         + ");";
 
+        // Puzzles are kept as the solution, one byte per cell, and a bitmap of the givens, see
+        // PuzzleBank
+        String createPuzzleBankTable =
+                "CREATE TABLE IF NOT EXISTS puzzle_bank ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + "n INTEGER NOT NULL,"
+                        + "k INTEGER NOT NULL,"
+                        + "difficulty TEXT NOT NULL,"
+                        + "grade INTEGER NOT NULL,"
+                        + "seq INTEGER NOT NULL," // number within its kind, see PuzzleBank
+                        + "score INTEGER NOT NULL,"
+                        + "solution BLOB NOT NULL,"
+                        + "givens BLOB NOT NULL,"
+                        + "hash BLOB NOT NULL UNIQUE,"
+                        + "timestamp DATETIME DEFAULT CURRENT_TIMESTAMP"
+                        + ");";
+
+        String createPuzzleBankIndex =
+                "CREATE UNIQUE INDEX IF NOT EXISTS puzzle_bank_lookup ON puzzle_bank (n, k, difficulty, grade, seq);";
+
+        // Solve results keyed by the hash of the canonical form of the board, see SolveStore
+        String createSolveCacheTable =
+                "CREATE TABLE IF NOT EXISTS solve_cache ("
+                        + "hash BLOB PRIMARY KEY,"
+                        + "n INTEGER NOT NULL,"
+                        + "k INTEGER NOT NULL,"
+                        + "solutions INTEGER NOT NULL,"
+                        + "solution BLOB,"
+                        + "timestamp DATETIME DEFAULT CURRENT_TIMESTAMP"
+                        + ");";
+
         try (Connection conn = DriverManager.getConnection(dbUrl);
                 Statement stmt = conn.createStatement()) {
             stmt.execute(createLeaderboardTable);
             stmt.execute(createSavedGamesTable);
+            stmt.execute(createPuzzleBankTable);
+            stmt.execute(createPuzzleBankIndex);
+            stmt.execute(createSolveCacheTable);
             logger.info("Database setup complete");
         } catch (SQLException e) {
             logger.error("Database setup failed");
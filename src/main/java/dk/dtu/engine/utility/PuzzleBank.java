@@ -0,0 +1,165 @@
+/* (C)2024 */
+package dk.dtu.engine.utility;
+
+import dk.dtu.game.core.solver.Canonicalizer;
+import java.sql.*;
+import java.util.List;
+import java.util.Random;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generated puzzles kept in the puzzle_bank table, so they outlive the game they were made for.
+ * A puzzle is stored as its solution, one byte per cell, and a bitmap of the cells that are
+ * given. Puzzles are found by shape, difficulty and grade. Each puzzle of a kind gets the next
+ * number of that kind, 0, 1, 2 and on without gaps, and a draw picks one of those numbers at
+ * random, so every puzzle of the kind is as likely and it is a few index lookups however large
+ * the table gets. Puzzles that are copies of each other under the symmetries of the board have
+ * the same hash, the one of their Canonicalizer form, and are stored once.
+ */
+public class PuzzleBank {
+
+    private static final Logger logger = LoggerFactory.getLogger(PuzzleBank.class);
+    public static final int NOT_GRADED = -1; // grade of puzzles too large to be graded
+
+    private static final String MATCH = "n = ? AND k = ? AND difficulty = ? AND grade = ?";
+    private static final String INSERT =
+            "INSERT OR IGNORE INTO puzzle_bank (n, k, difficulty, grade, seq, score, solution, givens, hash)"
+                    + " SELECT ?, ?, ?, ?, coalesce(max(seq) + 1, 0), ?, ?, ?, ? FROM puzzle_bank WHERE " + MATCH;
+    private static final String DRAW =
+            "SELECT solution, givens, score FROM puzzle_bank WHERE " + MATCH + " AND seq = "
+                    + "(SELECT CAST(? * (max(seq) + 1) AS INTEGER) FROM puzzle_bank WHERE " + MATCH + ")";
+    private static final String COUNT = "SELECT count(*) FROM puzzle_bank WHERE " + MATCH;
+
+    private PuzzleBank() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * A puzzle as it is banked.
+     *
+     * @param n width and height of a box
+     * @param k boxes along a side
+     * @param difficulty the Config difficulty it was made for
+     * @param grade ordinal of its Grade, NOT_GRADED if it was not graded
+     * @param score its difficulty score, see Board.getDifficultyScore
+     * @param puzzle the givens, 0 for the open cells
+     * @param solution the solved board
+     */
+    public record Entry(int n, int k, String difficulty, int grade, int score, int[][] puzzle, int[][] solution) {}
+
+    /** Stores puzzles in one transaction, and returns how many were new. */
+    public static int insert(String dbUrl, List<Entry> entries) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+                PreparedStatement stmt = conn.prepareStatement(INSERT)) {
+            conn.setAutoCommit(false);
+            for (Entry entry : entries) {
+                int index = bindMatch(stmt, 1, entry.n(), entry.k(), entry.difficulty(), entry.grade());
+                stmt.setInt(index, entry.score());
+                stmt.setBytes(index + 1, packSolution(entry.solution()));
+                stmt.setBytes(index + 2, packGivens(entry.puzzle()));
+                stmt.setBytes(index + 3, hash(entry.puzzle(), entry.n(), entry.k()));
+                bindMatch(stmt, index + 4, entry.n(), entry.k(), entry.difficulty(), entry.grade()); // the kind it is numbered in
+                stmt.addBatch();
+            }
+            int added = 0;
+            for (int count : stmt.executeBatch()) {
+                added += Math.max(count, 0);
+            }
+            conn.commit();
+            return added;
+        } catch (SQLException e) {
+            logger.error("Failed to bank puzzles");
+            logger.error(e.getMessage());
+            return 0;
+        }
+    }
+
+    /** A random banked puzzle of this kind, null if there is none. */
+    public static Entry draw(String dbUrl, int n, int k, String difficulty, int grade, Random random) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+                PreparedStatement stmt = conn.prepareStatement(DRAW)) {
+            int index = bindMatch(stmt, 1, n, k, difficulty, grade);
+            stmt.setDouble(index, random.nextDouble());
+            bindMatch(stmt, index + 1, n, k, difficulty, grade); // the count of the kind the number is picked from
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int[][] solution = unpackSolution(rs.getBytes("solution"), n * k);
+                int[][] puzzle = unpackGivens(rs.getBytes("givens"), solution);
+                return new Entry(n, k, difficulty, grade, rs.getInt("score"), puzzle, solution);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to draw a puzzle");
+            logger.error(e.getMessage());
+            return null;
+        }
+    }
+
+    public static int count(String dbUrl, int n, int k, String difficulty, int grade) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+                PreparedStatement stmt = conn.prepareStatement(COUNT)) {
+            bindMatch(stmt, 1, n, k, difficulty, grade);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to count banked puzzles");
+            logger.error(e.getMessage());
+            return 0;
+        }
+    }
+
+    private static int bindMatch(PreparedStatement stmt, int index, int n, int k, String difficulty, int grade)
+            throws SQLException {
+        stmt.setInt(index, n);
+        stmt.setInt(index + 1, k);
+        stmt.setString(index + 2, difficulty);
+        stmt.setInt(index + 3, grade);
+        return index + 4;
+    }
+
+    static byte[] packSolution(int[][] solution) { // one byte per cell, row by row
+        int size = solution.length;
+        byte[] bytes = new byte[size * size];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) solution[i / size][i % size];
+        }
+        return bytes;
+    }
+
+    private static byte[] packGivens(int[][] puzzle) { // one bit per cell, set for the givens
+        int size = puzzle.length;
+        byte[] bits = new byte[(size * size + 7) / 8];
+        for (int i = 0; i < size * size; i++) {
+            if (puzzle[i / size][i % size] != 0) {
+                bits[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return bits;
+    }
+
+    static int[][] unpackSolution(byte[] bytes, int size) {
+        int[][] solution = new int[size][size];
+        for (int i = 0; i < size * size; i++) {
+            solution[i / size][i % size] = bytes[i];
+        }
+        return solution;
+    }
+
+    private static int[][] unpackGivens(byte[] bits, int[][] solution) {
+        int size = solution.length;
+        int[][] puzzle = new int[size][size];
+        for (int i = 0; i < size * size; i++) {
+            if ((bits[i >> 3] & (1 << (i & 7))) != 0) {
+                puzzle[i / size][i % size] = solution[i / size][i % size];
+            }
+        }
+        return puzzle;
+    }
+
+    static byte[] hash(int[][] puzzle, int n, int k) { // 128 bits, the same for every shuffled or relabelled copy
+        return new Canonicalizer(n, k).canonicalize(puzzle).hash().toBytes();
+    }
+}
@@ -0,0 +1,63 @@
+/* (C)2024 */
+package dk.dtu.engine.utility;
+
+import dk.dtu.game.core.solver.SolveCache;
+import java.sql.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The solve_cache table, where SolveCache keeps what it learns about boards between sessions. A
+ * row is found by the hash of the canonical form of its board, and holds the solution of that
+ * form, one byte per cell, and how many solutions it has. Saving a row that is already there only
+ * adds what the new one knows.
+ */
+public class SolveStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolveStore.class);
+
+    private static final String SAVE =
+            "INSERT INTO solve_cache (hash, n, k, solutions, solution) VALUES (?, ?, ?, ?, ?)"
+                    + " ON CONFLICT (hash) DO UPDATE SET"
+                    + " solutions = CASE WHEN excluded.solutions = " + SolveCache.UNKNOWN + " THEN solutions ELSE excluded.solutions END,"
+                    + " solution = coalesce(excluded.solution, solution)";
+    private static final String LOAD = "SELECT solutions, solution FROM solve_cache WHERE hash = ?";
+
+    private SolveStore() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /** The result kept for a hash, with the solution in canonical form, null if there is none. */
+    public static SolveCache.Result load(String dbUrl, byte[] hash, int size) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+                PreparedStatement stmt = conn.prepareStatement(LOAD)) {
+            stmt.setBytes(1, hash);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                byte[] solution = rs.getBytes("solution");
+                return new SolveCache.Result(rs.getInt("solutions"), solution == null ? null : PuzzleBank.unpackSolution(solution, size));
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to load a solve result");
+            logger.error(e.getMessage());
+            return null;
+        }
+    }
+
+    public static void save(String dbUrl, byte[] hash, int n, int k, SolveCache.Result result) {
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+                PreparedStatement stmt = conn.prepareStatement(SAVE)) {
+            stmt.setBytes(1, hash);
+            stmt.setInt(2, n);
+            stmt.setInt(3, k);
+            stmt.setInt(4, result.solutions());
+            stmt.setBytes(5, result.solution() == null ? null : PuzzleBank.packSolution(result.solution()));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Failed to save a solve result");
+            logger.error(e.getMessage());
+        }
+    }
+}
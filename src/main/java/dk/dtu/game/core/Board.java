@@ -24,6 +24,8 @@ public class Board {
 
     private int[][] solvedBoard;
 
+    private int difficultyScore = -1; // see SearchEffort.score, -1 for a board that was not generated
+
     public void setBoard(int[][] arr) {
         for (int i = 0; i < arr.length; i++) {
             System.arraycopy(arr[i], 0, this.gameBoard[i], 0, arr[i].length);
@@ -199,4 +201,12 @@ public class Board {
     public int[][] getSolvedBoard() {
         return solvedBoard;
     }
+
+    public void setDifficultyScore(int difficultyScore) {
+        this.difficultyScore = difficultyScore;
+    }
+
+    public int getDifficultyScore() {
+        return difficultyScore;
+    }
 }
@@ -8,6 +8,7 @@ import dk.dtu.engine.graphics.GameRulePopup;
 import dk.dtu.engine.utility.*;
 import dk.dtu.engine.utility.Leaderboard;
 import dk.dtu.engine.utility.Leaderboard.LeaderboardEntry;
+import dk.dtu.game.core.solver.PuzzlePool;
 import dk.dtu.game.core.solver.bruteforce.BruteForceAlgorithm;
 import java.awt.*;
 import java.awt.event.*;
@@ -139,11 +140,18 @@ public class StartMenu {
         Config.setK(3);
         Config.setN(3);
         Config.setCellSize(550 / (Config.getK() * Config.getN()));
+        warmPuzzlePool();
 
         addChangeListenerToField(inputNField);
         addChangeListenerToField(inputKField);
     }
 
+    // Starts making puzzles for the size and difficulty the menu is set to, so the game can start
+    // without waiting for one
+    private void warmPuzzlePool() {
+        PuzzlePool.shared().warm(PuzzlePool.Key.current());
+    }
+
     private void addLoadGameButton() {
         loadGameButton.setBounds(5, 165, 190, 40);
         loadGameButton.setBackground(backgroundColor);
@@ -729,6 +737,7 @@ public class StartMenu {
                     String selectedDifficulty = (String) difficultyDropdown.getSelectedItem();
                     if (selectedDifficulty != null) {
                         Config.setDifficulty(selectedDifficulty.toLowerCase());
+                        warmPuzzlePool();
                     }
                 });
 
@@ -777,7 +786,7 @@ public class StartMenu {
             throw new IOException("File is empty");
         }
 
-        String[] firstLine = lines.getFirst().split(";");
+        String[] firstLine = lines.get(0).split(";");
         if (firstLine.length < 2) {
             throw new IOException("First line format should be 'k;n'");
         }
@@ -846,6 +855,7 @@ public class StartMenu {
                                 Config.setN(n);
                                 Config.setK(k);
                                 Config.setCellSize(550 / (n * k));
+                                warmPuzzlePool();
                                 break;
                             }
                         }
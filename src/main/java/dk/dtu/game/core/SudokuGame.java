@@ -12,9 +12,9 @@ import dk.dtu.engine.utility.CustomProgressBar;
 import dk.dtu.engine.utility.SavedGame;
 import dk.dtu.engine.utility.TimerFunction;
 import dk.dtu.engine.utility.UpdateLeaderboard;
+import dk.dtu.game.core.solver.PuzzlePool;
 import dk.dtu.game.core.solver.SolverAlgorithm;
 import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
-import dk.dtu.game.core.solver.heuristicsolver.HeuristicSolver;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.io.PrintWriter;
@@ -501,7 +501,7 @@ public class SudokuGame {
         if (!moveList.isEmpty()) {
             Move move = moveList.pop();
             if (!wrongMoveList.isEmpty() && !Config.getEnableLives()) {
-                wrongMoveList.removeFirst();
+                wrongMoveList.remove(0);
             }
             int row = move.row();
             int col = move.column();
@@ -647,11 +647,7 @@ public class SudokuGame {
         gameboard.setInitialBoard(customBoard);
         gameboard.setGameBoard(deepCopyBoard(customBoard));
 
-        if (nSize == kSize) {
-            AlgorithmXSolver.solveExistingBoard(gameboard);
-        } else {
-            HeuristicSolver.createPlayableSudoku(gameboard);
-        }
+        AlgorithmXSolver.solveExistingBoard(gameboard); // every board shape has an exact cover
 
         fillHintList();
         if (Config.getEnableTimer()) {
@@ -702,11 +698,7 @@ public class SudokuGame {
         gameboard.setInitialBoard(initialBoard);
         gameboard.setGameBoard(deepCopyBoard(currentBoard));
 
-        if (nSize == kSize) {
-            AlgorithmXSolver.solveExistingBoard(gameboard);
-        } else {
-            HeuristicSolver.createPlayableSudoku(gameboard);
-        }
+        AlgorithmXSolver.solveExistingBoard(gameboard);
 
         if (isKillerSudoku) {
             board.addCages(cages, gameboard);
@@ -834,10 +826,8 @@ public class SudokuGame {
             timer.reset();
             board.clearNotes();
             gameboard.clearInitialBoard();
-            if (nSize == kSize) {
-                AlgorithmXSolver.createXSudoku(gameboard);
-            } else {
-                HeuristicSolver.createPlayableSudoku(gameboard);
+            if (!PuzzlePool.shared().take(gameboard, Config.getDifficulty(), Config.getEnableKillerSudoku())) {
+                AlgorithmXSolver.createXSudoku(gameboard); // none ready yet, make one while the player waits
             }
             fillHintList();
         } else {
@@ -914,7 +904,7 @@ public class SudokuGame {
         if (!wrongMoveList.isEmpty()) {
             // Update the number count
 
-            Move wrongMove = wrongMoveList.removeFirst();
+            Move wrongMove = wrongMoveList.remove(0);
             int row = wrongMove.row();
             int col = wrongMove.column();
             int number = wrongMove.number();
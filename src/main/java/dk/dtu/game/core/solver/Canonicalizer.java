@@ -0,0 +1,504 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The canonical form of a board under the symmetries of its shape: the bands and the stacks in
+ * any order, the lines inside each of them in any order, the transpose, and any renaming of the
+ * digits. Two boards have the same form exactly when one can be turned into the other, so the
+ * form, or its 128 bit hash, tells shuffled and relabelled copies of a puzzle apart from new ones.
+ *
+ * <p>The form is the smallest board the symmetries can make, read row by row, with 0 for the open
+ * cells and the digits named in the order they first appear in. It is found a row at a time, and
+ * every way of making the smallest rows so far is kept. Columns that no row has told apart yet are
+ * kept together instead of being tried in every order, rows and bands that are empty are only
+ * tried once, and so only new digits that tie with each other make the search branch.
+ */
+public class Canonicalizer {
+    private static final int NEW = Integer.MAX_VALUE; // key of a digit that has no name yet, after every named one
+
+    /**
+     * Ways of making the rows so far that are kept at most. Puzzles stay far below it, but a full
+     * row ties every order of its columns, and a solved grid of 12 by 12 or more would have
+     * millions. Past the limit the rest are dropped: the form is still one the board can be turned
+     * into, but copies of the board may get another one.
+     */
+    public static final int MAX_STATES = 1 << 15;
+
+    private final int n;
+    private final int k;
+    private final int size; // side of the board, n * k
+    private final int digits; // n * n
+    private final int maxStates; // MAX_STATES, or lower for a form that may give up sooner
+
+    public Canonicalizer(int n, int k) {
+        this(n, k, MAX_STATES);
+    }
+
+    public Canonicalizer(int n, int k, int maxStates) { // a lower limit bounds the time a form takes, see Canonical.exact
+        if (n < 1 || k < 1 || k > n || n > 8) { // up to 64 digits, one bit each
+            throw new IllegalArgumentException("Cannot canonicalize boards of " + k + " * " + k + " boxes of " + n + " by " + n + " cells");
+        }
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("At least one way of making the form has to be kept");
+        }
+        this.n = n;
+        this.k = k;
+        this.size = n * k;
+        this.digits = n * n;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * A symmetry of the shape, the one that takes a board to its canonical form.
+     *
+     * @param transpose whether the board is transposed first
+     * @param rows the row of the transposed or untouched board that every row is taken from
+     * @param cols the column that every column is taken from
+     * @param digits the new name of every digit, digits[0] is 0
+     */
+    public record Transform(boolean transpose, int[] rows, int[] cols, int[] digits) {
+        public int[][] apply(int[][] board) {
+            int size = rows.length;
+            int[][] result = new int[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    result[i][j] = digits[transpose ? board[cols[j]][rows[i]] : board[rows[i]][cols[j]]];
+                }
+            }
+            return result;
+        }
+
+        public int[][] revert(int[][] board) { // the board that apply turns into this one, e.g. the solution of the original puzzle
+            int size = rows.length;
+            int[] names = new int[digits.length];
+            for (int d = 0; d < digits.length; d++) {
+                names[digits[d]] = d;
+            }
+            int[][] result = new int[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if (transpose) {
+                        result[cols[j]][rows[i]] = names[board[i][j]];
+                    } else {
+                        result[rows[i]][cols[j]] = names[board[i][j]];
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /** 128 bits of the MD5 of the shape and the canonical form, in two longs so it can be a map key. */
+    public record Hash(long high, long low) {
+        public byte[] toBytes() {
+            return ByteBuffer.allocate(16).putLong(high).putLong(low).array();
+        }
+    }
+
+    /**
+     * A board in canonical form.
+     *
+     * @param board the form
+     * @param transform the symmetry that takes the board to the form
+     * @param hash hash of the form
+     * @param exact false if the search had to drop ways of making the form, see MAX_STATES and the limit given
+     */
+    public record Canonical(int[][] board, Transform transform, Hash hash, boolean exact) {}
+
+    /** One grid the search starts from, the board or its transpose, with its empty rows and bands. */
+    private record Source(int[][] grid, boolean transpose, boolean[] emptyRows, boolean[] emptyBands) {}
+
+    /** A way of making the rows found so far, with what it leaves open. */
+    private static final class State {
+        final Source source;
+        final int[] rows; // source row of every row placed
+        int placed;
+        long usedRows;
+        int band; // source band of the band being placed
+        int usedBands;
+        final int[] stacks; // source stacks in order, alike stacks next to each other
+        int stackCells; // bit p set where a group of alike stacks starts in stacks
+        final int[] cols; // columns of source stack s at s * n, in order, alike ones next to each other
+        long colCells; // bit p set where a group of alike columns starts in cols
+        final int[] labels; // name of every digit, 0 while it has none
+        int next; // name the next new digit gets
+
+        State(Source source, int size, int k, int digits) {
+            this.source = source;
+            this.rows = new int[size];
+            this.stacks = new int[k];
+            this.cols = new int[size];
+            this.labels = new int[digits + 1];
+            this.next = 1;
+        }
+
+        State(State other) {
+            this.source = other.source;
+            this.rows = other.rows.clone();
+            this.placed = other.placed;
+            this.usedRows = other.usedRows;
+            this.band = other.band;
+            this.usedBands = other.usedBands;
+            this.stacks = other.stacks.clone();
+            this.stackCells = other.stackCells;
+            this.cols = other.cols.clone();
+            this.colCells = other.colCells;
+            this.labels = other.labels.clone();
+            this.next = other.next;
+        }
+
+        int key(int value) { // what a cell with this value is worth on the next row
+            return value == 0 ? 0 : labels[value] != 0 ? labels[value] : NEW;
+        }
+    }
+
+    /**
+     * The canonical form of a board of this shape. Open cells are 0, and no row or column may have
+     * a digit twice, which holds for every puzzle that can be solved.
+     */
+    public Canonical canonicalize(int[][] board) {
+        check(board);
+        List<State> frontier = new ArrayList<>();
+        frontier.add(start(source(board, false)));
+        frontier.add(start(source(transpose(board), true)));
+
+        int[][] form = new int[size][size];
+        int[][] keys = new int[k][n];
+        int[] order = new int[k];
+        int[] row = new int[size];
+        int[] best = new int[size];
+        int[] candidates = new int[size];
+        List<State> tiedStates = new ArrayList<>();
+        List<Integer> tiedRows = new ArrayList<>();
+        boolean exact = true;
+        for (int i = 0; i < size; i++) {
+            boolean found = false;
+            tiedStates.clear();
+            tiedRows.clear();
+            for (State state : frontier) { // the smallest next row, and every state and row that make it
+                int count = candidates(state, candidates);
+                for (int c = 0; c < count; c++) {
+                    smallestRow(state, candidates[c], keys, order, row);
+                    int compared = found ? Arrays.compare(row, best) : -1;
+                    if (compared < 0) {
+                        System.arraycopy(row, 0, best, 0, size);
+                        tiedStates.clear();
+                        tiedRows.clear();
+                        found = true;
+                    }
+                    if (compared <= 0) {
+                        tiedStates.add(state);
+                        tiedRows.add(candidates[c]);
+                    }
+                }
+            }
+            int next = frontier.get(0).next;
+            for (int j = 0; j < size; j++) {
+                form[i][j] = best[j] == NEW ? next++ : best[j];
+            }
+            List<State> placed = new ArrayList<>();
+            for (int t = 0; t < tiedStates.size() && placed.size() < maxStates; t++) {
+                place(tiedStates.get(t), tiedRows.get(t), keys, order, placed);
+            }
+            exact &= placed.size() < maxStates;
+            frontier = placed;
+        }
+
+        Transform transform = transform(frontier.get(0));
+        return new Canonical(form, transform, hash(form), exact);
+    }
+
+    private void check(int[][] board) {
+        if (board.length != size) {
+            throw new IllegalArgumentException("Board is not " + size + " by " + size);
+        }
+        long[] rowSeen = new long[size];
+        long[] colSeen = new long[size];
+        for (int r = 0; r < size; r++) {
+            if (board[r].length != size) {
+                throw new IllegalArgumentException("Board is not " + size + " by " + size);
+            }
+            for (int c = 0; c < size; c++) {
+                int value = board[r][c];
+                if (value < 0 || value > digits) {
+                    throw new IllegalArgumentException("Cell " + r + "," + c + " holds " + value + ", past " + digits);
+                }
+                if (value != 0) {
+                    long bit = 1L << (value - 1);
+                    if ((rowSeen[r] & bit) != 0 || (colSeen[c] & bit) != 0) {
+                        throw new IllegalArgumentException("Row " + r + " or column " + c + " has " + value + " twice");
+                    }
+                    rowSeen[r] |= bit;
+                    colSeen[c] |= bit;
+                }
+            }
+        }
+    }
+
+    private int[][] transpose(int[][] board) {
+        int[][] result = new int[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                result[c][r] = board[r][c];
+            }
+        }
+        return result;
+    }
+
+    private Source source(int[][] grid, boolean transpose) {
+        boolean[] emptyRows = new boolean[size];
+        boolean[] emptyBands = new boolean[k];
+        Arrays.fill(emptyBands, true);
+        for (int r = 0; r < size; r++) {
+            emptyRows[r] = Arrays.stream(grid[r]).allMatch(value -> value == 0);
+            emptyBands[r / n] &= emptyRows[r];
+        }
+        return new Source(grid, transpose, emptyRows, emptyBands);
+    }
+
+    private State start(Source source) { // nothing placed, every stack and every column inside one alike
+        State state = new State(source, size, k, digits);
+        for (int s = 0; s < k; s++) {
+            state.stacks[s] = s;
+            state.colCells |= 1L << (s * n);
+        }
+        for (int c = 0; c < size; c++) {
+            state.cols[c] = c;
+        }
+        state.stackCells = 1;
+        return state;
+    }
+
+    private int candidates(State state, int[] result) { // source rows that may come next, one empty row or band of a kind
+        int count = 0;
+        boolean newBand = state.placed % n == 0;
+        boolean emptyBandSeen = false;
+        for (int b = 0; b < k; b++) {
+            if (newBand ? (state.usedBands & (1 << b)) != 0 : b != state.band) {
+                continue;
+            }
+            if (newBand && state.source.emptyBands()[b]) {
+                if (emptyBandSeen) {
+                    continue; // the same as the empty band already tried
+                }
+                emptyBandSeen = true;
+            }
+            boolean emptyRowSeen = false;
+            for (int r = b * n; r < b * n + n; r++) {
+                if ((state.usedRows & (1L << r)) == 0 && !(state.source.emptyRows()[r] && emptyRowSeen)) {
+                    emptyRowSeen |= state.source.emptyRows()[r];
+                    result[count++] = r;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** The smallest row this state can make of a source row, leaving the keys of every stack and their order. */
+    private void smallestRow(State state, int r, int[][] keys, int[] order, int[] row) {
+        int[] values = state.source.grid()[r];
+        for (int s = 0; s < k; s++) {
+            int base = s * n;
+            int start = 0;
+            for (int p = 0; p < n; p++) {
+                keys[s][p] = state.key(values[state.cols[base + p]]);
+                if (p + 1 == n || (state.colCells & (1L << (base + p + 1))) != 0) {
+                    Arrays.sort(keys[s], start, p + 1); // alike columns, smallest first
+                    start = p + 1;
+                }
+            }
+        }
+        System.arraycopy(state.stacks, 0, order, 0, k);
+        int start = 0;
+        for (int p = 1; p <= k; p++) {
+            if (p == k || (state.stackCells & (1 << p)) != 0) {
+                for (int i = start + 1; i < p; i++) { // alike stacks, smallest first
+                    int stack = order[i];
+                    int j = i;
+                    for (; j > start && Arrays.compare(keys[order[j - 1]], keys[stack]) > 0; j--) {
+                        order[j] = order[j - 1];
+                    }
+                    order[j] = stack;
+                }
+                start = p;
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(keys[order[i]], 0, row, i * n, n);
+        }
+    }
+
+    /**
+     * Adds every state that places source row r as the next row, making the smallest row. Columns
+     * and stacks that still tie after this row stay alike, unless they hold new digits: which of
+     * those comes first decides their names, so every order is tried.
+     */
+    private void place(State state, int r, int[][] keys, int[] order, List<State> result) {
+        smallestRow(state, r, keys, order, new int[size]);
+        int[] values = state.source.grid()[r];
+        State child = new State(state);
+        child.rows[child.placed++] = r;
+        child.usedRows |= 1L << r;
+        if (child.placed % n == 1 || n == 1) {
+            child.band = r / n;
+            child.usedBands |= 1 << child.band;
+        }
+        List<int[]> ties = new ArrayList<>(); // {0 for columns or 1 for stacks, start, length} of new digits in any order
+
+        long colCells = 0;
+        for (int s = 0; s < k; s++) {
+            int base = s * n;
+            int start = 0;
+            for (int p = 0; p < n; p++) {
+                if (p + 1 == n || (state.colCells & (1L << (base + p + 1))) != 0) {
+                    colCells |= sortCell(child, values, base + start, base + p + 1, ties);
+                    start = p + 1;
+                }
+            }
+        }
+        child.colCells = colCells;
+
+        System.arraycopy(order, 0, child.stacks, 0, k);
+        int stackCells = 0;
+        int start = 0;
+        for (int p = 1; p <= k; p++) {
+            if (p == k || (state.stackCells & (1 << p)) != 0) {
+                for (int i = start; i < p; i++) {
+                    if (i == start || Arrays.compare(keys[order[i - 1]], keys[order[i]]) != 0) {
+                        stackCells |= 1 << i;
+                    }
+                }
+                for (int i = start; i < p; ) { // stacks that tie with new digits in them get every order
+                    int j = i + 1;
+                    while (j < p && (stackCells & (1 << j)) == 0) {
+                        j++;
+                    }
+                    if (j - i > 1 && hasNew(keys[order[i]])) {
+                        ties.add(new int[] {1, i, j - i});
+                        for (int m = i; m < j; m++) {
+                            stackCells |= 1 << m;
+                        }
+                    }
+                    i = j;
+                }
+                start = p;
+            }
+        }
+        child.stackCells = stackCells;
+        branch(child, values, ties, 0, result);
+    }
+
+    private static boolean hasNew(int[] keys) {
+        for (int key : keys) {
+            if (key == NEW) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Sorts the columns of one alike group by their key on the row, and returns where the new groups start. */
+    private long sortCell(State child, int[] values, int from, int to, List<int[]> ties) {
+        int[] cols = child.cols;
+        for (int i = from + 1; i < to; i++) {
+            int col = cols[i];
+            int key = child.key(values[col]);
+            int j = i;
+            for (; j > from && child.key(values[cols[j - 1]]) > key; j--) {
+                cols[j] = cols[j - 1];
+            }
+            cols[j] = col;
+        }
+        long cells = 0;
+        int newFrom = -1;
+        for (int i = from; i < to; i++) {
+            int key = child.key(values[cols[i]]);
+            if (i == from || key == NEW || key != child.key(values[cols[i - 1]])) {
+                cells |= 1L << i; // named digits differ, new ones are split up once their order is picked
+            }
+            if (key == NEW && newFrom < 0) {
+                newFrom = i;
+            }
+        }
+        if (newFrom >= 0 && to - newFrom > 1) {
+            ties.add(new int[] {0, newFrom, to - newFrom});
+        }
+        return cells;
+    }
+
+    private void branch(State child, int[] values, List<int[]> ties, int t, List<State> result) {
+        if (result.size() >= maxStates) {
+            return;
+        }
+        if (t == ties.size()) {
+            State named = new State(child);
+            for (int i = 0; i < k; i++) { // new digits are named from left to right
+                int base = named.stacks[i] * n;
+                for (int p = 0; p < n; p++) {
+                    int value = values[named.cols[base + p]];
+                    if (value != 0 && named.labels[value] == 0) {
+                        named.labels[value] = named.next++;
+                    }
+                }
+            }
+            result.add(named);
+            return;
+        }
+        int[] tie = ties.get(t);
+        permute(tie[0] == 0 ? child.cols : child.stacks, tie[1], tie[1] + tie[2], child, values, ties, t, result);
+    }
+
+    private void permute(int[] arr, int from, int to, State child, int[] values, List<int[]> ties, int t, List<State> result) {
+        if (from >= to - 1) {
+            branch(child, values, ties, t + 1, result);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            swap(arr, from, i);
+            permute(arr, from + 1, to, child, values, ties, t, result);
+            swap(arr, from, i);
+        }
+    }
+
+    private static void swap(int[] arr, int i, int j) {
+        int temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    private Transform transform(State state) { // groups still alike at the end may go in any order, the one they are in is kept
+        int[] cols = new int[size];
+        for (int i = 0; i < k; i++) {
+            System.arraycopy(state.cols, state.stacks[i] * n, cols, i * n, n);
+        }
+        int[] names = new int[digits + 1];
+        int next = state.next;
+        for (int d = 1; d <= digits; d++) {
+            names[d] = state.labels[d] != 0 ? state.labels[d] : next++; // digits the board does not hold come last
+        }
+        return new Transform(state.source.transpose(), state.rows.clone(), cols, names);
+    }
+
+    private Hash hash(int[][] form) {
+        ByteBuffer cells = ByteBuffer.allocate(8 + size * size);
+        cells.putInt(n).putInt(k);
+        for (int[] row : form) {
+            for (int value : row) {
+                cells.put((byte) value);
+            }
+        }
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(cells.array()));
+            return new Hash(digest.getLong(0), digest.getLong(8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is missing from this Java runtime", e);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver;
+
+import dk.dtu.engine.utility.PuzzleBank;
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.logical.Grade;
+import dk.dtu.game.core.solver.logical.Grading;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Puzzles generated ahead of time, so a new game does not have to wait for one. Every
+ * configuration of shape, difficulty and killer mode has its own bounded queue. A background
+ * thread with low priority fills a queue up again after a puzzle is taken from it, and warm()
+ * starts filling the queues of configurations the player is likely to pick next. Taking a puzzle
+ * never waits: when the queue is empty a puzzle is drawn from the PuzzleBank, if the pool has
+ * one, and only when that has none either does the caller generate one itself. Every puzzle the
+ * pool makes is banked as well. The pool remembers the Canonicalizer hash of the puzzles it has
+ * queued or handed out lately, and makes or draws another one instead of a copy of one of those.
+ * It remembers a bounded number per configuration and forgets the least recently seen first, so
+ * a small shape never runs out of puzzles it may hand out.
+ */
+public class PuzzlePool {
+    private static final Logger logger = LoggerFactory.getLogger(PuzzlePool.class);
+    public static final int DEFAULT_CAPACITY = 2; // puzzles kept ready per configuration
+    private static final int COPY_ATTEMPTS = 4; // tries for a puzzle not seen before, small shapes have few to pick from
+    public static final int DEFAULT_REMEMBERED = 256; // puzzles remembered per configuration to keep copies out
+
+    private static PuzzlePool shared; // the pool the game takes its puzzles from, created on first use
+
+    /**
+     * One configuration of the pool.
+     *
+     * @param n width and height of a box
+     * @param k boxes along a side
+     * @param difficulty a Config difficulty, lower case
+     * @param killer killer mode, the cages are drawn by the game on top of the puzzle
+     */
+    public record Key(int n, int k, String difficulty, boolean killer) {
+        public Key {
+            difficulty = difficulty == null ? "easy" : difficulty.toLowerCase(Locale.ROOT); // the menus use "Easy" and "easy" alike
+        }
+
+        public static Key current() { // the configuration the start menu is set to
+            return new Key(Config.getN(), Config.getK(), Config.getDifficulty(), Config.getEnableKillerSudoku());
+        }
+    }
+
+    private final int capacity;
+    private final ExecutorService refiller;
+    private final Map<Key, Queue<Board>> ready = new ConcurrentHashMap<>();
+    private final Set<Key> refilling = ConcurrentHashMap.newKeySet(); // keys with a refill queued or running
+    private final ThreadLocal<ExactCoverSolver> generator = ThreadLocal.withInitial(ExactCoverSolver::new); // one per refill thread
+    private volatile String bankUrl; // database of the PuzzleBank, null to keep no bank
+    private final int remembered;
+    private final Map<Key, Recent> seen = new ConcurrentHashMap<>(); // puzzles queued or handed out lately, per configuration
+
+    private final LongAdder hits = new LongAdder(); // puzzles taken from a queue
+    private final LongAdder bankHits = new LongAdder(); // puzzles drawn from the bank because the queue was empty
+    private final LongAdder misses = new LongAdder(); // takes that found neither
+    private final LongAdder copies = new LongAdder(); // puzzles made or drawn again that were thrown away
+    private final LongAdder generated = new LongAdder(); // puzzles the background thread made
+    private final LongAdder refillNanos = new LongAdder(); // time spent making them
+    private final LongAccumulator maxRefillNanos = new LongAccumulator(Math::max, 0); // slowest one
+
+    /** Puzzle hashes of one configuration, in the order they were last seen in. */
+    private static final class Recent extends LinkedHashMap<Canonicalizer.Hash, Boolean> {
+        private static final long serialVersionUID = 1L;
+        private final int limit;
+
+        Recent(int limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Canonicalizer.Hash, Boolean> eldest) {
+            return size() > limit;
+        }
+    }
+
+    public PuzzlePool(int capacity) {
+        this(capacity, DEFAULT_REMEMBERED);
+    }
+
+    public PuzzlePool(int capacity, int remembered) { // remembered: puzzles per configuration kept from being handed out again
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        if (remembered < 1) {
+            throw new IllegalArgumentException("At least one puzzle has to be remembered");
+        }
+        this.capacity = capacity;
+        this.remembered = remembered;
+        this.refiller = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "puzzle-pool");
+            thread.setDaemon(true); // never keeps the game from closing
+            thread.setPriority(Thread.MIN_PRIORITY); // the game window comes first
+            return thread;
+        });
+    }
+
+    public static synchronized PuzzlePool shared() {
+        if (shared == null) {
+            shared = new PuzzlePool(DEFAULT_CAPACITY);
+        }
+        return shared;
+    }
+
+    /**
+     * Fills a board with a ready puzzle of its shape, and has the queue refilled. Returns false
+     * without touching the board when there was none ready.
+     */
+    public boolean take(Board board, String difficulty, boolean killer) {
+        Key key = new Key(board.getN(), board.getK(), difficulty, killer);
+        Board puzzle = queue(key).poll();
+        refill(key);
+        if (puzzle != null) {
+            hits.increment();
+            load(board, puzzle.getInitialBoard(), puzzle.getSolvedBoard(), puzzle.getDifficultyScore());
+            return true;
+        }
+        PuzzleBank.Entry banked = draw(key);
+        if (banked != null) {
+            bankHits.increment();
+            load(board, banked.puzzle(), banked.solution(), banked.score());
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    private static void load(Board board, int[][] puzzle, int[][] solution, int score) {
+        board.setSolvedBoard(solution);
+        board.setInitialBoard(puzzle);
+        board.setBoard(puzzle);
+        board.setDifficultyScore(score);
+    }
+
+    private PuzzleBank.Entry draw(Key key) { // a banked puzzle, of the grade of the difficulty if there is one
+        String url = bankUrl;
+        if (url == null) {
+            return null;
+        }
+        int target = Grade.of(key.difficulty()).ordinal();
+        int grades = Grade.values().length;
+        for (int distance = 0; distance < grades; distance++) { // the nearest grade that has one
+            for (int grade : distance == 0 ? new int[] {target} : new int[] {target - distance, target + distance}) {
+                if (grade >= 0 && grade < grades) {
+                    PuzzleBank.Entry entry = drawUnseen(url, key, grade);
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+            }
+        }
+        return drawUnseen(url, key, PuzzleBank.NOT_GRADED);
+    }
+
+    private PuzzleBank.Entry drawUnseen(String url, Key key, int grade) { // null if there is none, or only ones handed out before
+        for (int attempt = 0; attempt < COPY_ATTEMPTS; attempt++) {
+            PuzzleBank.Entry entry = PuzzleBank.draw(url, key.n(), key.k(), key.difficulty(), grade, ThreadLocalRandom.current());
+            if (entry == null) {
+                return null;
+            }
+            if (markSeen(key, entry.puzzle())) {
+                return entry;
+            }
+            copies.increment();
+        }
+        return null;
+    }
+
+    private boolean markSeen(Key key, int[][] puzzle) { // false if the puzzle was seen lately, it counts as seen again now
+        Canonicalizer.Hash hash = hash(key, puzzle);
+        Recent recent = seen.computeIfAbsent(key, k -> new Recent(remembered));
+        synchronized (recent) {
+            return recent.put(hash, Boolean.TRUE) == null;
+        }
+    }
+
+    private static Canonicalizer.Hash hash(Key key, int[][] puzzle) {
+        return new Canonicalizer(key.n(), key.k()).canonicalize(puzzle).hash();
+    }
+
+    public void warm(Key key) { // start filling the queue of a configuration
+        refill(key);
+    }
+
+    public void setBank(String dbUrl) { // database the puzzles are banked in and drawn from, null for none
+        this.bankUrl = dbUrl;
+    }
+
+    public int size(Key key) { // puzzles ready for a configuration
+        return queue(key).size();
+    }
+
+    private Queue<Board> queue(Key key) {
+        return ready.computeIfAbsent(key, any -> new ArrayBlockingQueue<>(capacity));
+    }
+
+    private void refill(Key key) {
+        if (!refiller.isShutdown() && queue(key).size() < capacity && refilling.add(key)) {
+            try {
+                refiller.execute(() -> fill(key));
+            } catch (RejectedExecutionException e) { // shut down in the meantime
+                refilling.remove(key);
+            }
+        }
+    }
+
+    private void fill(Key key) { // runs on the refill thread
+        Queue<Board> queue = queue(key);
+        List<PuzzleBank.Entry> made = new ArrayList<>();
+        try {
+            while (queue.size() < capacity && !refiller.isShutdown()) {
+                Made puzzle = generate(key, true);
+                made.add(puzzle.entry());
+                queue.offer(puzzle.board());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not generate puzzles for {}: {}", key, e.getMessage());
+            refilling.remove(key);
+            return;
+        } finally {
+            bank(made);
+        }
+        refilling.remove(key);
+        refill(key); // a puzzle may have been taken while the last one was being made
+    }
+
+    private record Made(Board board, PuzzleBank.Entry entry) {}
+
+    private Made generate(Key key, boolean queued) { // one puzzle, on the refill thread, a new one for the session if it is to be queued
+        ExactCoverSolver solver = generator.get();
+        solver.setDifficulty(key.difficulty());
+        long start = System.nanoTime();
+        Board puzzle = make(solver, key);
+        for (int attempt = 1; queued && !markSeen(key, puzzle.getInitialBoard()) && attempt < COPY_ATTEMPTS; attempt++) {
+            copies.increment(); // made before, the last try is kept whatever it is
+            puzzle = make(solver, key);
+        }
+        long nanos = System.nanoTime() - start;
+        generated.increment();
+        refillNanos.add(nanos);
+        maxRefillNanos.accumulate(nanos);
+        Grading grading = solver.getGrading();
+        int grade = grading == null ? PuzzleBank.NOT_GRADED : grading.grade().ordinal();
+        PuzzleBank.Entry entry = new PuzzleBank.Entry(key.n(), key.k(), key.difficulty(), grade,
+                puzzle.getDifficultyScore(), puzzle.getInitialBoard(), puzzle.getSolvedBoard());
+        return new Made(puzzle, entry);
+    }
+
+    private static Board make(ExactCoverSolver solver, Key key) {
+        try {
+            Board puzzle = new Board(key.n(), key.k());
+            solver.createXSudoku(puzzle);
+            return puzzle;
+        } catch (Board.BoardNotCreatable e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private void bank(List<PuzzleBank.Entry> entries) {
+        String url = bankUrl;
+        if (url != null && !entries.isEmpty()) {
+            PuzzleBank.insert(url, entries); // one transaction for the lot
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getBankHits() {
+        return bankHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCopies() { // puzzles thrown away for being a copy of one queued or handed out before
+        return copies.sum();
+    }
+
+    public double getHitRate() { // share of takes that did not have to generate, 0 before the first take
+        long total = getHits() + getBankHits() + getMisses();
+        return total == 0 ? 0 : (double) (getHits() + getBankHits()) / total;
+    }
+
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    public long getAverageRefillNanos() { // time the refill thread takes per puzzle
+        long count = getGenerated();
+        return count == 0 ? 0 : refillNanos.sum() / count;
+    }
+
+    public long getMaxRefillNanos() {
+        return maxRefillNanos.get();
+    }
+
+    public void shutdown() { // stops refilling, the puzzles that are ready can still be taken
+        refiller.shutdownNow();
+    }
+
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException { // wait until every queued refill is done
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        do {
+            try {
+                refiller.submit(() -> {}).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS); // runs after what is queued now
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException | RejectedExecutionException e) {
+                return refilling.isEmpty();
+            }
+        } while (!refilling.isEmpty()); // a refill queued another one behind the marker
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", bankHits=" + getBankHits() + ", misses=" + getMisses() + ", generated=" + getGenerated() + ", copies=" + getCopies()
+                + ", averageRefillMillis=" + getAverageRefillNanos() / 1_000_000
+                + ", maxRefillMillis=" + getMaxRefillNanos() / 1_000_000;
+    }
+}
@@ -0,0 +1,290 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver;
+
+import dk.dtu.engine.utility.SolveStore;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What is known about boards solved before, so a board that is imported, received over the
+ * network or loaded from a saved game again is not solved from scratch. Boards are keyed by the
+ * hash of their Canonicalizer form, so a shuffled or relabelled copy of a board hits as well: a
+ * result is kept in the canonical form and turned back into the board it is asked for. In memory
+ * the results are a least recently used map split into stripes with a lock each, so threads on
+ * different stripes never wait for each other. With a store set, results also go to the
+ * solve_cache table of SolveStore on a thread of their own, and a result missing from memory is
+ * looked for there.
+ *
+ * <p>Finding the form costs more than solving a small board, or one the singles fill in, so
+ * those get no key and are always solved. So do boards whose form would not be exact, since a
+ * copy of them could get another key.
+ */
+public class SolveCache {
+    public static final int DEFAULT_CAPACITY = 4096; // results kept in memory
+    public static final int UNKNOWN = -1; // solutions of a board that was solved but not counted
+    private static final int STRIPES = 16; // a power of two, picked by the low bits of the hash
+    public static final int MIN_SIZE = 16; // smaller boards are solved faster than their form is found
+    private static final int KEY_STATES = 1 << 10; // ways of making the form kept before the board is left to the solver
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(task -> { // store writes, in the order they were made
+        Thread thread = new Thread(task, "solve-cache-writer");
+        thread.setDaemon(true); // never keeps the game from closing
+        return thread;
+    });
+
+    private static SolveCache shared; // the cache of the static AlgorithmXSolver methods, created on first use
+
+    /**
+     * What is known about a board.
+     *
+     * @param solutions 0, 1, or 2 for more than one, UNKNOWN if it was not counted
+     * @param solution a solution, null if none is known
+     */
+    public record Result(int solutions, int[][] solution) {
+        private Result merge(Result newer) { // what either knows, the newer one first
+            return new Result(newer.solutions != UNKNOWN ? newer.solutions : solutions, newer.solution != null ? newer.solution : solution);
+        }
+    }
+
+    /**
+     * A board as the cache sees it.
+     *
+     * @param hash hash of the canonical form of the board
+     * @param transform the symmetry that takes the board to the form
+     * @param n width and height of a box
+     * @param k boxes along a side
+     */
+    public record Key(Canonicalizer.Hash hash, Canonicalizer.Transform transform, int n, int k) {}
+
+    /** One stripe of the memory tier, its entries in the order they were last used in. */
+    private static final class Stripe extends LinkedHashMap<Canonicalizer.Hash, Result> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        private final transient LongAdder evictions;
+
+        Stripe(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Canonicalizer.Hash, Result> eldest) {
+            boolean full = size() > capacity;
+            if (full) {
+                evictions.increment();
+            }
+            return full;
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile String storeUrl; // database of the SolveStore, null to keep results in memory only
+
+    private final LongAdder hits = new LongAdder(); // results found in memory
+    private final LongAdder storeHits = new LongAdder(); // results found in the store
+    private final LongAdder misses = new LongAdder(); // lookups that found neither
+    private final LongAdder evictions = new LongAdder(); // results pushed out of memory by newer ones
+    private final LongAdder loads = new LongAdder(); // lookups in the store
+    private final LongAdder loadNanos = new LongAdder(); // time they took
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0); // slowest one
+
+    public SolveCache(int capacity) {
+        if (capacity < STRIPES) {
+            throw new IllegalArgumentException("Capacity must be at least " + STRIPES);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(capacity / STRIPES, evictions);
+        }
+    }
+
+    public static synchronized SolveCache shared() {
+        if (shared == null) {
+            shared = new SolveCache(DEFAULT_CAPACITY);
+        }
+        return shared;
+    }
+
+    public void setStore(String dbUrl) { // database results are kept in between sessions, null for memory only
+        this.storeUrl = dbUrl;
+    }
+
+    /**
+     * The key of a board, null for a board that is then solved without the cache: one that is
+     * cheaper to solve than to key, one without an exact form, or one the Canonicalizer refuses.
+     */
+    public Key key(int[][] board, int n, int k) {
+        if (n * k < MIN_SIZE || filledBySingles(board, n, k)) {
+            return null;
+        }
+        try {
+            Canonicalizer.Canonical canonical = new Canonicalizer(n, k, KEY_STATES).canonicalize(board);
+            return canonical.exact() ? new Key(canonical.hash(), canonical.transform(), n, k) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean filledBySingles(int[][] board, int n, int k) { // also true when the singles run into a contradiction
+        if (!CandidateMasks.fits(n) || board.length != n * k) {
+            return false;
+        }
+        CandidateMasks masks = new BitboardSolver(n, k).fillSingles(board);
+        if (masks == null) {
+            return true;
+        }
+        for (int cell = 0; cell < board.length * board.length; cell++) {
+            if (masks.candidates(cell) != 0) {
+                return false; // an open cell is left
+            }
+        }
+        return true;
+    }
+
+    /** What is known about the board of a key, with its solution fitted to that board, null if nothing is. */
+    public Result get(Key key) {
+        Stripe stripe = stripe(key.hash());
+        Result result;
+        synchronized (stripe) {
+            result = stripe.get(key.hash());
+        }
+        if (result != null) {
+            hits.increment();
+        } else {
+            result = load(key);
+            if (result == null) {
+                misses.increment();
+                return null;
+            }
+            storeHits.increment();
+        }
+        return new Result(result.solutions(), result.solution() == null ? null : key.transform().revert(result.solution()));
+    }
+
+    /** Adds what is now known about the board of a key, its solution as a solution of that board or null. */
+    public void put(Key key, int solutions, int[][] solution) {
+        Result merged = remember(key.hash(), new Result(solutions, solution == null ? null : key.transform().apply(solution)));
+        String url = storeUrl;
+        if (url != null) {
+            WRITER.execute(() -> SolveStore.save(url, key.hash().toBytes(), key.n(), key.k(), merged));
+        }
+    }
+
+    /**
+     * Like put, but the board is keyed on the writer thread, for callers that cannot wait for the
+     * key, such as the event dispatch thread.
+     */
+    public void putLater(int[][] board, int n, int k, int solutions, int[][] solution) {
+        int[][] givens = SolverAlgorithm.deepCopyBoard(board);
+        int[][] solved = solution == null ? null : SolverAlgorithm.deepCopyBoard(solution);
+        WRITER.execute(() -> {
+            Key key = key(givens, n, k);
+            if (key == null) {
+                return;
+            }
+            Result merged = remember(key.hash(), new Result(solutions, solved == null ? null : key.transform().apply(solved)));
+            String url = storeUrl;
+            if (url != null) { // on the writer thread already, so flush waits for this write too
+                SolveStore.save(url, key.hash().toBytes(), key.n(), key.k(), merged);
+            }
+        });
+    }
+
+    public void flush() { // wait until the results put so far are in the store
+        try {
+            WRITER.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Result load(Key key) { // from the store into memory
+        String url = storeUrl;
+        if (url == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Result result = SolveStore.load(url, key.hash().toBytes(), key.n() * key.k());
+        long nanos = System.nanoTime() - start;
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+        if (result != null) {
+            remember(key.hash(), result);
+        }
+        return result;
+    }
+
+    private Result remember(Canonicalizer.Hash hash, Result result) {
+        Stripe stripe = stripe(hash);
+        synchronized (stripe) {
+            return stripe.merge(hash, result, Result::merge);
+        }
+    }
+
+    private Stripe stripe(Canonicalizer.Hash hash) {
+        return stripes[(int) hash.low() & (STRIPES - 1)];
+    }
+
+    public int size() { // results in memory
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() { // forget what is in memory, the store is left alone
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStoreHits() {
+        return storeHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() { // share of lookups that found a result, 0 before the first one
+        long total = getHits() + getStoreHits() + getMisses();
+        return total == 0 ? 0 : (double) (getHits() + getStoreHits()) / total;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getAverageLoadNanos() { // time a lookup in the store takes
+        long count = loads.sum();
+        return count == 0 ? 0 : loadNanos.sum() / count;
+    }
+
+    public long getMaxLoadNanos() {
+        return maxLoadNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", storeHits=" + getStoreHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", averageLoadMicros=" + getAverageLoadNanos() / 1_000 + ", maxLoadMicros=" + getMaxLoadNanos() / 1_000;
+    }
+}
@@ -0,0 +1,118 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Solved grids of one shape without a search. A seed grid is taken apart by transformations that
+ * keep every row, column and box valid: the digits are renamed, the bands and the stacks are put
+ * in a random order, so are the lines inside each band and stack, and the grid may be
+ * transposed, which is always allowed since the boxes are square. Every transformation is picked
+ * uniformly, so each seed gives every grid it can be turned into with the same chance.
+ *
+ * <p>Without seeds the source is the pattern grid of n * n by n * n cells with the usual shifted
+ * rows, and k of its n bands and stacks are picked, which is how the narrow shapes (k < n) get a
+ * solution at all. Seeds, for example grids found by a search, widen the grids that can come out.
+ * A factory can be shared between threads, as long as each brings its own Random.
+ */
+public class SolvedGridFactory {
+    private final int n;
+    private final int k;
+    private final int size; // side of the grids made, n * k
+    private final int digits; // n * n
+    private final List<int[][]> seeds = new CopyOnWriteArrayList<>(); // only ever added to, so grid reads it without a lock
+
+    public SolvedGridFactory(int n, int k) {
+        if (n < 1 || k < 1 || k > n) {
+            throw new IllegalArgumentException("No board has " + k + " * " + k + " boxes of " + n + " by " + n + " cells");
+        }
+        this.n = n;
+        this.k = k;
+        this.size = n * k;
+        this.digits = n * n;
+    }
+
+    public void addSeed(int[][] grid) { // a solved grid of this shape to transform from, kept as a copy
+        if (!isSolved(grid)) {
+            throw new IllegalArgumentException("A seed must be a solved grid of " + size + " by " + size + " cells");
+        }
+        seeds.add(SolverAlgorithm.deepCopyBoard(grid));
+    }
+
+    public int seedCount() {
+        return seeds.size();
+    }
+
+    public int[][] grid(Random random) { // a solved grid, from a random seed in a random transformation
+        int[][] seed = seeds.isEmpty() ? null : seeds.get(random.nextInt(seeds.size()));
+        int sourceBands = seed == null ? n : k; // the pattern grid has n bands to pick k from
+        int[] values = shuffle(digits, random);
+        int[] rows = lines(sourceBands, random);
+        int[] cols = lines(sourceBands, random);
+        boolean transpose = random.nextBoolean();
+
+        int[][] grid = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int r = transpose ? cols[j] : rows[i];
+                int c = transpose ? rows[i] : cols[j];
+                int digit = seed == null ? (n * (r % n) + r / n + c) % digits : seed[r][c] - 1;
+                grid[i][j] = values[digit] + 1;
+            }
+        }
+        return grid;
+    }
+
+    private int[] lines(int sourceBands, Random random) { // source line of every line, k bands picked in a random order
+        int[] bands = shuffle(sourceBands, random);
+        int[] lines = new int[size];
+        for (int b = 0; b < k; b++) {
+            int[] order = shuffle(n, random);
+            for (int i = 0; i < n; i++) {
+                lines[b * n + i] = bands[b] * n + order[i];
+            }
+        }
+        return lines;
+    }
+
+    private static int[] shuffle(int count, Random random) { // Fisher-Yates shuffle of 0 to count - 1
+        int[] arr = new int[count];
+        for (int i = 0; i < count; i++) {
+            arr[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
+        return arr;
+    }
+
+    private boolean isSolved(int[][] grid) { // every row, column and box of the shape without a repeat
+        if (grid.length != size) {
+            return false;
+        }
+        boolean[][] rowSeen = new boolean[size][digits + 1];
+        boolean[][] colSeen = new boolean[size][digits + 1];
+        boolean[][] boxSeen = new boolean[k * k][digits + 1];
+        for (int r = 0; r < size; r++) {
+            if (grid[r].length != size) {
+                return false;
+            }
+            for (int c = 0; c < size; c++) {
+                int value = grid[r][c];
+                int box = (r / n) * k + c / n;
+                if (value < 1 || value > digits || rowSeen[r][value] || colSeen[c][value] || boxSeen[box][value]) {
+                    return false;
+                }
+                rowSeen[r][value] = true;
+                colSeen[c][value] = true;
+                boxSeen[box][value] = true;
+            }
+        }
+        return true;
+    }
+}
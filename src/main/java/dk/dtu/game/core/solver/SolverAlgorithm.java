@@ -44,18 +44,40 @@ public class SolverAlgorithm {
 
     public static List<Integer> getPossiblePlacements(int[][] board, int row, int col, int n) {
         List<Integer> possiblePlacements = new java.util.ArrayList<>();
-        for (int c = 1; c <= board.length; c++) {
-            if (checkBoard(board, row, col, c, n)) {
+        long used = usedDigits(board, row, col, n); // one pass over the row, column and square instead of one per value
+        for (int c = 1; c <= n * n; c++) { // the n by n squares hold n * n digits, also when the board is narrower
+            boolean legal = c < Long.SIZE ? (used & (1L << c)) == 0 : checkBoard(board, row, col, c, n);
+            if (legal) {
                 possiblePlacements.add(c);
             }
         }
         return possiblePlacements;
     } // for all placements in a cell check for validity and return all legal values
 
+    private static long usedDigits(int[][] board, int row, int col, int n) { // bit c is set when c is already in the row, column or square
+        long used = 0;
+        for (int p = 0; p < board.length; p++) {
+            used |= bit(board[row][p]) | bit(board[p][col]);
+        }
+        for (int p = (row / n) * n; p < (row / n) * n + n; p++) {
+            for (int q = (col / n) * n; q < (col / n) * n + n; q++) {
+                used |= bit(board[p][q]);
+            }
+        }
+        return used;
+    }
+
+    private static long bit(int value) {
+        return value > 0 && value < Long.SIZE ? 1L << value : 0; // 0 and values past the mask width are left out
+    }
+
 
     public static int setNumsRemoved (int [][] arr) {
+        return setNumsRemoved(arr, Config.getDifficulty());
+    }
+
+    public static int setNumsRemoved (int [][] arr, String difficulty) { // the same for a difficulty other than the one in Config
         int numOfCells = arr.length*arr.length;
-        String difficulty = Config.getDifficulty();
         int maxNumRemoved;
         maxNumRemoved =
                 switch (difficulty) {
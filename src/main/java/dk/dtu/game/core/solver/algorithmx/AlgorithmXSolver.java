@@ -1,53 +1,186 @@
 package dk.dtu.game.core.solver.algorithmx;
 
 import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.SolveCache;
 import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.*;
+import java.util.stream.Stream;
+import javax.swing.SwingUtilities;
+
+/**
+ * Static entry points for the Algorithm X solver. Every call is handed to a fresh
+ * ExactCoverSolver, so no search state is shared between calls and they can run on several
+ * threads at once. Use ExactCoverSolver directly to keep a solver and its state around.
+ */
+public class AlgorithmXSolver {
+    private static volatile int[][] solvedBoard; // last board solved through these static methods
 
+    private static final Random rand = new Random();
 
-import java.util.*;
-import java.util.concurrent.ForkJoinPool;
+    private static volatile Engine engine = Engine.ARRAY;
 
-public class AlgorithmXSolver {
-    private static final List<Node> Solution = new ArrayList<>();
-    private static int arraySize;
+    private static volatile boolean solutionTables = true; // small shapes are answered from SolutionTable
 
-    static int[][] solvedBoard;
+    private static volatile RestartSchedule restartSchedule; // null: searches are never restarted, the app turns restarts on
 
-    private static final Random rand = new Random();
+    private static volatile Fill fill = Fill.SEARCH;
+
+    private static volatile SolveCache solveCache = SolveCache.shared(); // consulted by solveExistingBoard and checkUniqueSolution, null to always search
+
+    private static volatile long clueBudgetMillis = 0; // time a generated puzzle may take to reach its clue count, 0: one removal pass
+
+    private static volatile boolean parallelRemoval = true; // clue removal on 16x16 and up is shared out over the common pool
+
+    private static volatile boolean minimalPuzzles = false; // generated puzzles lose clues until none can go, see ExactCoverSolver.removeXNumbers
+
+    private static volatile int gradeAttempts = 8; // removals tried per generated grid to hit the difficulty's grade and score band
+
+    private static final ExactCoverSolver legacyRows = new ExactCoverSolver(); // rows of the deprecated selectRow and deselectRow
 
     public record Placement(int row, int col, int value) {}
 
+    public record Shape(int n, int k) {} // k * k boxes of n by n cells, used as a key for per-shape state
+
+    public enum Engine { // Which Dancing Links implementation is used to search the exact cover matrix
+        NODE, // Node and ColumnNode objects linked together
+        ARRAY // ArrayDancingLinks, the matrix stored in flat int arrays
+    }
+
+    public enum Fill { // How createXSudoku gets the solved grid it takes the clues from
+        SEARCH, // a search of the empty board, any grid can come out
+        TRANSFORM // SolvedGridFactory, a seed grid shuffled by moves that keep it valid
+    }
+
+    private AlgorithmXSolver() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static void setEngine(Engine newEngine) { // engine used by solvers created after this call
+        engine = newEngine;
+    }
+
+    public static Engine getEngine() {
+        return engine;
+    }
+
+    public static void setRestartSchedule(RestartSchedule schedule) { // schedule of solvers created after this call
+        restartSchedule = schedule;
+    }
+
+    public static RestartSchedule getRestartSchedule() {
+        return restartSchedule;
+    }
+
+    public static void setSolutionTables(boolean enabled) { // setting of solvers created after this call
+        solutionTables = enabled;
+    }
+
+    public static boolean getSolutionTables() {
+        return solutionTables;
+    }
+
+    public static void setFill(Fill newFill) { // setting of solvers created after this call
+        fill = newFill;
+    }
+
+    public static Fill getFill() {
+        return fill;
+    }
+
+    public static void setSolveCache(SolveCache cache) { // null turns the cache off
+        solveCache = cache;
+    }
+
+    public static SolveCache getSolveCache() {
+        return solveCache;
+    }
+
+    public static void setClueBudget(long millis) { // setting of solvers created after this call, see ExactCoverSolver.setClueBudget
+        clueBudgetMillis = millis;
+    }
+
+    public static long getClueBudget() {
+        return clueBudgetMillis;
+    }
+
+    public static void setParallelRemoval(boolean enabled) { // setting of solvers created after this call
+        parallelRemoval = enabled;
+    }
+
+    public static boolean getParallelRemoval() {
+        return parallelRemoval;
+    }
+
+    public static void setMinimalPuzzles(boolean enabled) { // setting of solvers created after this call
+        minimalPuzzles = enabled;
+    }
+
+    public static boolean getMinimalPuzzles() {
+        return minimalPuzzles;
+    }
+
+    public static void setGradeAttempts(int attempts) { // setting of solvers created after this call, 0 turns grading off
+        gradeAttempts = attempts;
+    }
+
+    public static int getGradeAttempts() {
+        return gradeAttempts;
+    }
+
     public static void createXSudoku(Board board) { // Create a playable sudoku game with a unique solution
-        int[][] sudokuBoard = solveExistingBoard(board); // fill out the board with a solution
-        board.setSolvedBoard(solvedBoard); // send the solved board to board for easy storage
-        removeXNumbers(sudokuBoard);
-        board.setInitialBoard(sudokuBoard); // send the playable board to board for easy storage
-        board.setBoard(sudokuBoard); // set the board to the playable board
+        ExactCoverSolver solver = new ExactCoverSolver();
+        solver.createXSudoku(board);
+        solvedBoard = solver.getSolutionBoard();
     }
 
     public static int[][] solveExistingBoard(Board board) {
-        int[][] arr = board.getInitialBoard(); // takes the board loaded into Board as input
-        arraySize = arr.length;
-        List<Placement> placements = new ArrayList<>(); // create list to store found placements
-        List<int[]> xBoard = createExactCoverFromBoard(arr, placements); // create exact cover matrix
-        DancingLinks dl = new DancingLinks(xBoard); // Nodes are created and doubly linked based on the exact cover matrix
-        ColumnNode header = dl.getHeader(); // A header node is defined to keep track of the columns
-
-        Solution.clear(); // Clear the solution list before each run
-
-        try (ForkJoinPool pool = new ForkJoinPool()) { // forkJoin pool task is a build in method which allows for parallel processing
-            AlgorithmXTask task = new AlgorithmXTask(header, Solution, true); // create a task through ForkJoinPool to solve the exact cover matrix
-            if (Boolean.TRUE.equals(pool.invoke(task))) { // if a solved board is found the task is invoked, and the board is converted and returned
-                arr = convertSolutionToBoard(Solution, placements);
-            }
+        int[][] initial = board.getInitialBoard();
+        int n = board.getN();
+        int k = board.getK();
+        if (n * k != initial.length) { // a board loaded without its shape, assume square boxes
+            n = (int) Math.sqrt(initial.length);
+            k = n;
+        }
+        SolveCache cache = solveCache;
+        boolean later = cache != null && SwingUtilities.isEventDispatchThread(); // the window does not wait for the key, it is put later
+        SolveCache.Key key = cache == null || later ? null : cache.key(initial, n, k);
+        SolveCache.Result known = key == null ? null : cache.get(key);
+        if (known != null && (known.solution() != null || known.solutions() == 0)) {
+            int[][] arr = known.solution() != null ? known.solution() : initial; // a board without a solution is handed back as it is
+            solvedBoard = deepSetSolutionBoard(arr);
+            board.setSolvedBoard(solvedBoard);
+            return arr;
+        }
+
+        ExactCoverSolver solver = new ExactCoverSolver();
+        int[][] arr = solver.solveExistingBoard(board);
+        solvedBoard = solver.getSolutionBoard();
+        boolean solved = Arrays.stream(arr).flatMapToInt(Arrays::stream).noneMatch(cell -> cell == 0);
+        if (key != null) {
+            cache.put(key, solved ? SolveCache.UNKNOWN : 0, solved ? arr : null);
+        } else if (later) {
+            cache.putLater(initial, n, k, solved ? SolveCache.UNKNOWN : 0, solved ? arr : null);
         }
-        solvedBoard = deepSetSolutionBoard(arr); // set the solved board as a global variable for easy access
-        board.setSolvedBoard(solvedBoard); // send the solved board to board for easy storage
         return arr;
     }
 
     public static List<int[]> createExactCoverFromBoard(int[][] board, List<Placement> placements) {
+        int subGridSize = (int) Math.sqrt(board.length);
+        return createExactCoverFromBoard(board, subGridSize, subGridSize, placements); // square boxes
+    }
+
+    /**
+     * Exact cover rows for a board of k*k boxes that are n by n cells and hold the digits 1 to n*n.
+     * The columns are the cells, then every (row, digit), (column, digit) and (box, digit) pair.
+     */
+    public static List<int[]> createExactCoverFromBoard(
+            int[][] board, int n, int k, List<Placement> placements) {
         List<int[]> coverList = new ArrayList<>(); // create a list to store all possible number placements as constraints
+        CandidateMasks masks = CandidateMasks.fits(n) ? new CandidateMasks(n, k) : null; // candidates of every cell in one pass
+        if (masks != null) {
+            masks.load(board);
+        }
 
         for (int i = 0; i < board.length; i++) {
             for (int j = 0; j < board.length; j++) { // run through each cell in the given board
@@ -55,15 +188,16 @@ public class AlgorithmXSolver {
                 List<Integer> nums;
                 if (num == 0) { // if the cell is empty, find all possible placements
                     nums =
-                            SolverAlgorithm.getPossiblePlacements(
-                                    board, i, j, (int) Math.sqrt(board.length));
+                            masks != null
+                                    ? masks.candidateList(i, j)
+                                    : SolverAlgorithm.getPossiblePlacements(board, i, j, n);
                 } else {
                     nums = Collections.singletonList(num); // if the cell is not empty, only one placement is possible
                 }
-                for (int n : nums) { // for each possible placement, create a constraint
+                for (int value : nums) { // for each possible placement, create a constraint
                     int[] cover = new int[4]; // constraint array is sparse. It contains the cell, row, column and subgrid constraint
-                    setCoverRow(coverList, i, j, n, cover, board.length, (int) Math.sqrt(board.length)); // calculate the constraints
-                    placements.add(new Placement(i, j, n)); // add the placement to the list of placements
+                    setCoverRow(coverList, i, j, value, cover, n, k); // calculate the constraints
+                    placements.add(new Placement(i, j, value)); // add the placement to the list of placements
                 }
             }
         }
@@ -72,104 +206,114 @@ public class AlgorithmXSolver {
     }
 
     private static void setCoverRow(
-            List<int[]> coverList, int i, int j, int n, int[] cover, int boardSize, int subGridSize) { // calculate the constraints
+            List<int[]> coverList, int i, int j, int value, int[] cover, int n, int k) { // calculate the constraints
+        int boardSize = n * k;
+        int digits = n * n;
         cover[0] = i * boardSize + j; // Cell constraint
-        cover[1] = boardSize * boardSize + i * boardSize + n - 1; // Row constraint
-        cover[2] = 2 * boardSize * boardSize + j * boardSize + n - 1; // Column constraint
-        int subGridID = (i / subGridSize) * subGridSize + (j / subGridSize);
-        cover[3] = 3 * boardSize * boardSize + subGridID * boardSize + n - 1; // Sub-grid constraint
+        cover[1] = boardSize * boardSize + i * digits + value - 1; // Row constraint
+        cover[2] = boardSize * boardSize + boardSize * digits + j * digits + value - 1; // Column constraint
+        int subGridID = (i / n) * k + (j / n);
+        cover[3] = boardSize * boardSize + 2 * boardSize * digits + subGridID * digits + value - 1; // Sub-grid constraint
         coverList.add(cover);
+    }
 
+    /**
+     * Columns that may stay uncovered. When k < n a row or column has fewer cells than there are
+     * digits, so each digit appears there at most once instead of exactly once.
+     */
+    public static boolean[] secondaryColumns(int n, int k) {
+        int boardSize = n * k;
+        boolean[] secondary = new boolean[2 * boardSize * boardSize + 2 * boardSize * n * n]; // k * k boxes of n * n digits make another boardSize * boardSize
+        if (k < n) {
+            Arrays.fill(secondary, boardSize * boardSize, boardSize * boardSize + 2 * boardSize * n * n, true);
+        }
+        return secondary;
     }
 
     public static void removeXNumbers(int[][] arr) {
-        Solution.clear(); // Clear the solution list before each run
-
-        int numRemoved = 0;
-        int maxRemoved = SolverAlgorithm.setNumsRemoved(arr); // Set the number of numbers to remove, based on the difficulty input
-        int size = arr.length;
-        int[] shuffleIndices = fisherYatesShuffle(size * size); // Shuffle all cell indices
-
-        for (int i = 0; i < size * size && numRemoved < maxRemoved; i++) {
-            int row = shuffleIndices[i] / size;
-            int col = shuffleIndices[i] % size; // run through the board in a random order
-
-            if (arr[row][col] != 0) {
-                int tempNumber = arr[row][col];
-                arr[row][col] = 0; // if a number is not 0, remove it and store as a temporary value
+        new ExactCoverSolver().removeXNumbers(arr);
+    }
 
-                if (checkUniqueSolution(arr) == 1) { // check to ensure only 1 solution is possible for the new board
-                    numRemoved++;
-                } else {
-                    arr[row][col] = tempNumber; // Restore the number if removing it doesn't lead to a unique solution.
-                }
-            }
-        }
+    public static void removeXNumbers(int[][] arr, int n, int k) {
+        new ExactCoverSolver().removeXNumbers(arr, n, k);
     }
 
     public static int checkUniqueSolution(int[][] board) {
-        List<Placement> placements = new ArrayList<>();
-        List<int[]> xBoard = createExactCoverFromBoard(board, placements);
-        DancingLinks dl = new DancingLinks(xBoard); // initialize the dancing links again to solve
-        return countSolutions(dl.getHeader(), 0);
+        int subGridSize = (int) Math.sqrt(board.length);
+        return checkUniqueSolution(board, subGridSize, subGridSize); // square boxes
     }
 
-    private static int countSolutions(ColumnNode header, int count) {
-        if (header.getRight() == header) { // recursively checked, if the header is the only node left, a solution is found
-            return count + 1; // Found a solution
+    public static int checkUniqueSolution(int[][] board, int n, int k) {
+        SolveCache cache = solveCache;
+        SolveCache.Key key = cache == null ? null : cache.key(board, n, k);
+        SolveCache.Result known = key == null ? null : cache.get(key);
+        if (known != null && known.solutions() != SolveCache.UNKNOWN) {
+            return known.solutions();
         }
-        if (count > 1) {
-            return count; // Early exit if more than one solution is found
+        int solutions = new ExactCoverSolver().checkUniqueSolution(board, n, k);
+        if (key != null) {
+            cache.put(key, solutions, null);
         }
+        return solutions;
+    }
 
-        ColumnNode c = chooseHeuristicColumn(header); // MRV heuristic is used to choose the column which contains the fewest nodes
-        c.cover(); // cover the column as well as all rows which contain a constraint the column
-
-        for (Node r = c.getDown(); r != c; r = r.getDown()) {
-            for (Node j = r.getRight(); j != r; j = j.getRight()) {
-                j.getColumn().cover();
-            }  // cover all columns as well as all rows which contain a constraint the column
-
-            count = countSolutions(header, count); // recursively check for solutions
-            if (count > 1) return count; // Early exit
-
-            for (Node j = r.getLeft(); j != r; j = j.getLeft()) {
-                j.getColumn().uncover();
-            } // uncover all columns as well as all rows which contain a constraint the column
-        }
+    public static SolutionCount countSolutions(int[][] board, int n, int k, long cap) { // see ExactCoverSolver
+        return new ExactCoverSolver().countSolutions(board, n, k, cap);
+    }
 
-        c.uncover(); // uncover the original column
-        return count;
+    public static Stream<int[][]> solutions(int[][] board, int n, int k) { // lazy, see ExactCoverSolver
+        return new ExactCoverSolver().solutions(board, n, k);
     }
 
     public static ColumnNode chooseHeuristicColumn(ColumnNode header) {
-        ColumnNode c = (ColumnNode) header.getRight();
-        List<ColumnNode> columns = new ArrayList<>();
-        int minSize = c.getSize();
+        return chooseHeuristicColumn(header, rand);
+    }
+
+    public static ColumnNode chooseHeuristicColumn(ColumnNode header, Random random) {
+        ColumnNode best = null;
+        int ties = 0;
         for (ColumnNode temp = (ColumnNode) header.getRight();
                 temp != header;
                 temp = (ColumnNode) temp.getRight()) {
-            if (temp.getSize() < minSize) { // check the number of 1's in each column, to find the column with the fewest 1's
-                minSize = temp.getSize();
-                columns.clear();
-                columns.add(temp); // remove the previous MRV column and add the new one
-            } else if (temp.getSize() == minSize) {
-                columns.add(temp); // if multiple columns have the same number of 1's, add them all
+            if (best == null || temp.getSize() < best.getSize()) { // check the number of 1's in each column, to find the column with the fewest 1's
+                best = temp;
+                ties = 1;
+            } else if (temp.getSize() == best.getSize() && random.nextInt(++ties) == 0) {
+                best = temp; // reservoir sampling picks one of the tied columns at random without building a list
             }
         }
-        return columns.get(rand.nextInt(columns.size())); // if multiple columns are found, choose one at random
+        return best;
     }
 
+    /** @deprecated Keep an ExactCoverSolver and use its selectRow, this one shares its rows with every caller. */
+    @Deprecated
     public static void selectRow(Node row) {
-        Solution.add(row);
-    } // add a row to the solution list
+        synchronized (legacyRows) {
+            legacyRows.selectRow(row);
+        }
+    }
 
+    /** @deprecated Keep an ExactCoverSolver and use its deselectRow, this one shares its rows with every caller. */
+    @Deprecated
     public static void deselectRow(Node row) {
-        Solution.remove(row);
-    } // remove a row from the solution list
+        synchronized (legacyRows) {
+            legacyRows.deselectRow(row);
+        }
+    }
 
+    /** @deprecated Pass the size of the board, the overload without it takes it from the placements. */
+    @Deprecated
     public static int[][] convertSolutionToBoard(List<Node> solution, List<Placement> placements) {
-        int[][] board = new int[arraySize][arraySize];
+        int size = 0;
+        for (Placement placement : placements) { // every cell has at least one placement
+            size = Math.max(size, Math.max(placement.row(), placement.col()) + 1);
+        }
+        return convertSolutionToBoard(solution, placements, size);
+    }
+
+    public static int[][] convertSolutionToBoard(
+            List<Node> solution, List<Placement> placements, int size) {
+        int[][] board = new int[size][size];
 
         for (Node node : solution) { // convert the solution to a board
             Placement placement = placements.get(node.getRowIndex()); // get the placement from the list of placements
@@ -179,6 +323,18 @@ public class AlgorithmXSolver {
         return board;
     }
 
+    public static int[][] convertSolutionToBoard(
+            int[] solutionRows, List<Placement> placements, int size) {
+        int[][] board = new int[size][size];
+
+        for (int rowIndex : solutionRows) { // the array engine returns the matrix rows directly
+            Placement placement = placements.get(rowIndex);
+            board[placement.row][placement.col] = placement.value;
+        }
+
+        return board;
+    }
+
     public static int[][] deepSetSolutionBoard(int[][] board) {
         return SolverAlgorithm.deepCopyBoard(board);
     } // deep copy the board to ensure it is not changed
@@ -1,57 +1,67 @@
 package dk.dtu.game.core.solver.algorithmx;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Parallel Algorithm X search. Near the top of the search tree every row of the branching column
+ * becomes its own subtask working on its own snapshot of the matrix, so idle ForkJoinPool workers
+ * can steal whole branches. Further down each task searches its snapshot on its own. The first
+ * task to find a solution publishes it and tells every other task to stop.
+ */
 public class AlgorithmXTask extends RecursiveTask<Boolean> {
-    private final transient ColumnNode header;
-    private final transient List<Node> solution;
-    private final boolean isTopLevel;
-
-    public AlgorithmXTask(ColumnNode header, List<Node> solution, boolean isTopLevel) {
-        this.header = header;
-        this.solution = solution;
-        this.isTopLevel = isTopLevel;
+    private final transient ArrayDancingLinks matrix; // owned by this task alone
+    private final transient AtomicReference<int[]> result; // first solution found by any task
+    private final transient AtomicBoolean stop; // set once a solution has been found
+    private final int budget; // roughly how many tasks this branch may still be split into
+
+    public AlgorithmXTask(ArrayDancingLinks matrix, AtomicReference<int[]> result, int budget) {
+        this(matrix, result, new AtomicBoolean(false), budget);
+    }
+
+    private AlgorithmXTask(
+            ArrayDancingLinks matrix,
+            AtomicReference<int[]> result,
+            AtomicBoolean stop,
+            int budget) {
+        this.matrix = matrix;
+        this.result = result;
+        this.stop = stop;
+        this.budget = budget;
     }
 
     @Override
     protected Boolean compute() { // Recursive method to solve the exact cover matrix
-        if (header.getRight() == header) { // If the header is the only node left, the matrix is solved
-            return true;
+        if (stop.get()) { // another branch already found a solution
+            return false;
         }
 
-        ColumnNode c = AlgorithmXSolver.chooseHeuristicColumn(header); // Choose the column with the least amount of nodes
-        c.cover(); // Cover the column to avoid it being chosen again
-
-        boolean result;
-
-        for (Node r = c.getDown(); r != c; r = r.getDown()) { // Run through each row in the chosen column
-            AlgorithmXSolver.selectRow(r); // add row to the solution
-            for (Node j = r.getRight(); j != r; j = j.getRight()) {
-                j.getColumn().cover(); // cover all columns in the row to avoid them being chosen again
-            }
-
-            if (isTopLevel) { // If the task is the top level task, fork a new task
-                AlgorithmXTask task = new AlgorithmXTask(header, new ArrayList<>(solution), false);
-                task.fork(); // Fork the task to allow for parallel processing
-                result = task.join(); // Join the task to get the result
-            } else {
-                result = new AlgorithmXTask(header, solution, false).compute(); // If the task is not the top level task, compute the task
-            }
-
-            if (result) { // If a solution is found, return true
-                return true;
-            }
+        int[] rows = matrix.isSolved() ? new int[0] : matrix.branchRows();
+        while (rows.length == 1) { // a forced row needs no split, take it and look further down
+            matrix.select(rows[0]);
+            rows = matrix.isSolved() ? new int[0] : matrix.branchRows();
+        }
 
-            for (Node j = r.getLeft(); j != r; j = j.getLeft()) { // If no solution is found, uncover the row and columns
-                j.getColumn().uncover(); // uncover all columns as well as all rows which contain a constraint the column
+        if (budget <= 1 || rows.length == 0) { // small enough, search this snapshot on this thread
+            matrix.setStop(stop);
+            if (matrix.solve() && result.compareAndSet(null, matrix.getSolution())) {
+                stop.set(true); // cancel every other branch
             }
-            AlgorithmXSolver.deselectRow(r); // remove the row from the solution
+            return result.get() != null;
         }
 
-        c.uncover(); // uncover the original column
-        return false;
+        List<AlgorithmXTask> subtasks = new ArrayList<>(rows.length);
+        int childBudget = Math.max(1, budget / rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            // every branch but the last gets its own copy, the last one can reuse this matrix
+            ArrayDancingLinks branch = i < rows.length - 1 ? new ArrayDancingLinks(matrix) : matrix;
+            branch.select(rows[i]);
+            subtasks.add(new AlgorithmXTask(branch, result, stop, childBudget));
+        }
+        invokeAll(subtasks); // idle workers steal the branches that are still queued
+        return result.get() != null;
     }
-}
\ No newline at end of file
+}
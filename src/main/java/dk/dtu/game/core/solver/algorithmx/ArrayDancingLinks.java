@@ -0,0 +1,481 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dancing Links stored in parallel int arrays instead of a graph of Node and ColumnNode objects.
+ * Index 0 is the root, indices 1 to numColumns are the column headers and every entry of the
+ * sparse matrix gets an index after that. cover() and uncover() do exactly what
+ * ColumnNode.cover() and ColumnNode.uncover() do, only on array slots instead of object fields.
+ *
+ * <p>Every uncovered column also sits in a bucket for its current size. The buckets are circular
+ * lists that cover and uncover keep up to date, so the column with the fewest rows is found by
+ * looking at the lowest non-empty bucket instead of scanning every column.
+ *
+ * <p>Secondary columns may be covered at most once instead of exactly once. They are left out of
+ * the root list, so the search never branches on them and a solution may leave them uncovered,
+ * and their buckets sit after the ones the search looks at.
+ */
+public class ArrayDancingLinks {
+    private static final int ROOT = 0;
+
+    private final int numColumns;
+    private final int numRows;
+    private final int maxSize; // largest column size, sizes never grow past it
+    private final int bucketBase; // index of the sentinel of the size 0 bucket
+    private final int[] bucketOf; // sentinel of the size 0 bucket of every column header
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column; // column header of every node
+    private final int[] size; // number of nodes in every column, indexed by the column header
+    private final int[] rowIndex; // matrix row of every node
+    private final int[] rowHead; // first node of every matrix row
+
+    private final int[] bucketNext; // size buckets, indexed by column header, then one sentinel per size
+    private final int[] bucketPrev;
+    private final int[] bucketCount; // number of columns in every bucket
+    private final boolean[] covered; // covered column headers, secondary headers are never unlinked
+
+    private final int[] partial; // matrix rows chosen on the current search path
+    private int depth;
+
+    private final int[] solution; // rows of the first solution found by the last search
+    private int solutionLength;
+    private Random random = new Random();
+    private boolean randomTieBreak = true; // pick a random column among the smallest, or the first
+    private AtomicBoolean stop; // set by another thread when the search should give up
+    private AtomicLong tally; // solutions found by every branch of a shared count, null when counting alone
+    private long tallyCap; // the shared count sets stop once the tally gets here
+
+    private long nodes; // search nodes of the current attempt
+    private long covers; // columns covered by the current attempt
+    private long backtracks; // rows the current attempt took back without a new solution under them
+    private int deepest; // largest depth the current attempt got to
+    private long nodeLimit = Long.MAX_VALUE; // nodes the current attempt may use
+    private boolean cutOff; // the last attempt ran out of nodes
+    private RestartSchedule restarts; // null to search without a node budget
+    private SearchStatistics statistics; // null when nobody is counting
+
+    public ArrayDancingLinks(List<int[]> matrix) {
+        this(matrix, new boolean[0]);
+    }
+
+    /**
+     * @param matrix the rows, each listing the columns it covers
+     * @param secondary the columns that may stay uncovered, columns past its end are primary
+     */
+    public ArrayDancingLinks(List<int[]> matrix, boolean[] secondary) {
+        if (matrix == null || matrix.isEmpty()) {
+            throw new IllegalArgumentException("Matrix must not be null or empty");
+        } // Check if the matrix is empty or null
+
+        int maxColumn = -1;
+        int numNodes = 0;
+        for (int[] row : matrix) { // Find the number of columns and nodes needed
+            for (int col : row) {
+                maxColumn = Math.max(maxColumn, col);
+            }
+            numNodes += row.length;
+        }
+
+        this.numColumns = maxColumn + 1;
+        this.numRows = matrix.size();
+        int length = numColumns + 1 + numNodes; // root + column headers + nodes
+
+        left = new int[length];
+        right = new int[length];
+        up = new int[length];
+        down = new int[length];
+        column = new int[length];
+        rowIndex = new int[length];
+        rowHead = new int[numRows];
+        size = new int[numColumns + 1];
+        partial = new int[numColumns + 1];
+        solution = new int[numColumns + 1];
+        covered = new boolean[numColumns + 1];
+
+        int last = ROOT;
+        for (int c = 0; c <= numColumns; c++) { // Link the root and the primary column headers in a circle
+            if (c > 0 && c <= secondary.length && secondary[c - 1]) {
+                left[c] = c; // secondary headers only point at themselves
+                right[c] = c;
+            } else if (c > 0) {
+                left[c] = last;
+                right[last] = c;
+                last = c;
+            }
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            rowIndex[c] = -1;
+        }
+        right[last] = ROOT;
+        left[ROOT] = last;
+
+        int node = numColumns + 1;
+        for (int row = 0; row < numRows; row++) {
+            int first = node;
+            rowHead[row] = first;
+            for (int col : matrix.get(row)) {
+                int header = col + 1;
+                column[node] = header;
+                rowIndex[node] = row;
+
+                up[node] = up[header]; // append the node at the bottom of its column
+                down[node] = header;
+                down[up[header]] = node;
+                up[header] = node;
+                size[header]++;
+
+                left[node] = node - 1; // link the node to the previous node in the row
+                right[node] = node + 1;
+                node++;
+            }
+            if (node > first) { // close the horizontal row loop
+                left[first] = node - 1;
+                right[node - 1] = first;
+            }
+        }
+
+        int largest = 0;
+        for (int c = 1; c <= numColumns; c++) {
+            largest = Math.max(largest, size[c]);
+        }
+        this.maxSize = largest;
+        this.bucketBase = numColumns + 1;
+        bucketOf = new int[numColumns + 1];
+        for (int c = 1; c <= numColumns; c++) {
+            bucketOf[c] = right[c] == c ? bucketBase + maxSize + 1 : bucketBase; // secondary columns get buckets the search skips
+        }
+        bucketNext = new int[bucketBase + 2 * (maxSize + 1)];
+        bucketPrev = new int[bucketBase + 2 * (maxSize + 1)];
+        bucketCount = new int[2 * (maxSize + 1)];
+        for (int b = bucketBase; b < bucketNext.length; b++) { // empty buckets point at their own sentinel
+            bucketNext[b] = b;
+            bucketPrev[b] = b;
+        }
+        for (int c = 1; c <= numColumns; c++) {
+            addToBucket(c);
+        }
+    }
+
+    public ArrayDancingLinks(ArrayDancingLinks other) { // independent snapshot of another matrix
+        this.numColumns = other.numColumns;
+        this.numRows = other.numRows;
+        this.maxSize = other.maxSize;
+        this.bucketBase = other.bucketBase;
+        this.bucketOf = other.bucketOf;
+        this.left = other.left.clone();
+        this.right = other.right.clone();
+        this.up = other.up.clone();
+        this.down = other.down.clone();
+        this.column = other.column; // never changed after construction, so it can be shared
+        this.size = other.size.clone();
+        this.rowIndex = other.rowIndex;
+        this.rowHead = other.rowHead;
+        this.bucketNext = other.bucketNext.clone();
+        this.bucketPrev = other.bucketPrev.clone();
+        this.bucketCount = other.bucketCount.clone();
+        this.covered = other.covered.clone();
+        this.partial = other.partial.clone();
+        this.depth = other.depth;
+        this.solution = new int[other.solution.length];
+        this.random = new Random(other.random.nextLong());
+        this.randomTieBreak = other.randomTieBreak;
+        this.restarts = other.restarts;
+        this.statistics = other.statistics;
+    }
+
+    public void restore(ArrayDancingLinks source) { // copy the state of a matrix built from the same rows, without allocating
+        System.arraycopy(source.left, 0, left, 0, left.length);
+        System.arraycopy(source.right, 0, right, 0, right.length);
+        System.arraycopy(source.up, 0, up, 0, up.length);
+        System.arraycopy(source.down, 0, down, 0, down.length);
+        System.arraycopy(source.size, 0, size, 0, size.length);
+        System.arraycopy(source.bucketNext, 0, bucketNext, 0, bucketNext.length);
+        System.arraycopy(source.bucketPrev, 0, bucketPrev, 0, bucketPrev.length);
+        System.arraycopy(source.bucketCount, 0, bucketCount, 0, bucketCount.length);
+        System.arraycopy(source.covered, 0, covered, 0, covered.length);
+        System.arraycopy(source.partial, 0, partial, 0, source.depth);
+        depth = source.depth;
+    }
+
+    public void cover(int col) { // cover a column of the sparse matrix
+        coverColumn(col + 1);
+    }
+
+    public void uncover(int col) {
+        uncoverColumn(col + 1);
+    }
+
+    private void coverColumn(int c) {
+        covers++;
+        right[left[c]] = right[c]; // unlink the column header
+        left[right[c]] = left[c];
+        covered[c] = true;
+        removeFromBucket(c);
+
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j]; // remove the node from its column
+                up[down[j]] = up[j];
+                int header = column[j];
+                removeFromBucket(header); // the column moves one bucket down
+                size[header]--;
+                addToBucket(header);
+            }
+        }
+    }
+
+    private void uncoverColumn(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                int header = column[j];
+                removeFromBucket(header); // the column moves one bucket up
+                size[header]++; // reinsert the node into its column
+                addToBucket(header);
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+
+        addToBucket(c);
+        covered[c] = false;
+        right[left[c]] = c; // relink the column header
+        left[right[c]] = c;
+    }
+
+    private void addToBucket(int header) { // append the column to the bucket of its current size
+        int sentinel = bucketOf[header] + size[header];
+        bucketPrev[header] = bucketPrev[sentinel];
+        bucketNext[header] = sentinel;
+        bucketNext[bucketPrev[sentinel]] = header;
+        bucketPrev[sentinel] = header;
+        bucketCount[sentinel - bucketBase]++;
+    }
+
+    private void removeFromBucket(int header) {
+        bucketNext[bucketPrev[header]] = bucketNext[header];
+        bucketPrev[bucketNext[header]] = bucketPrev[header];
+        bucketCount[bucketOf[header] + size[header] - bucketBase]--;
+    }
+
+    public void select(int row) { // add a matrix row to the partial solution and cover its columns
+        int head = rowHead[row];
+        coverColumn(column[head]);
+        for (int j = right[head]; j != head; j = right[j]) {
+            coverColumn(column[j]);
+        }
+        partial[depth++] = row;
+    }
+
+    public void deselect(int row) { // undo select(), rows must be deselected in reverse order
+        int head = rowHead[row];
+        for (int j = left[head]; j != head; j = left[j]) {
+            uncoverColumn(column[j]);
+        }
+        uncoverColumn(column[head]);
+        depth--;
+    }
+
+    public boolean isRowAvailable(int row) { // true if none of the row's columns is covered yet
+        int head = rowHead[row];
+        if (isHeaderCovered(column[head])) {
+            return false;
+        }
+        for (int j = right[head]; j != head; j = right[j]) {
+            if (isHeaderCovered(column[j])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isHeaderCovered(int header) {
+        return covered[header];
+    }
+
+    public boolean isSolved() {
+        return right[ROOT] == ROOT;
+    }
+
+    public int[] branchRows() { // rows of the column the search would branch on next
+        int c = chooseColumn();
+        int[] rows = new int[size[c]];
+        int i = 0;
+        for (int r = down[c]; r != c; r = down[r]) {
+            rows[i++] = rowIndex[r];
+        }
+        return rows;
+    }
+
+    private int chooseColumn() { // MRV heuristic, the lowest non-empty bucket holds the smallest columns
+        for (int s = 0; s <= maxSize; s++) {
+            int count = bucketCount[s];
+            if (count > 0) {
+                int c = bucketNext[bucketBase + s];
+                if (randomTieBreak && count > 1) {
+                    for (int skip = random.nextInt(count); skip > 0; skip--) {
+                        c = bucketNext[c]; // every tied column has the same chance
+                    }
+                }
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    public boolean solve() { // Search for the first solution, the matrix is left as it was found
+        return countSolutions(1) == 1;
+    }
+
+    public int countSolutions(int limit) { // Count solutions, stopping when the limit is reached
+        if (restarts == null) {
+            return attempt(limit, Long.MAX_VALUE);
+        }
+        for (int i = 0; ; i++) {
+            int found = attempt(limit, restarts.budget(i));
+            if (!cutOff || (stop != null && stop.get())) {
+                return found;
+            }
+            if (statistics != null) {
+                statistics.recordRestart(nodes); // the random stream carries on, so the next attempt breaks ties differently
+            }
+        }
+    }
+
+    public int countSolutions(int limit, long nodeBudget) { // one attempt that gives up after the budget, see isCutOff
+        int found = attempt(limit, nodeBudget);
+        if (cutOff && statistics != null) {
+            statistics.recordAbandoned(nodes);
+        }
+        return found;
+    }
+
+    private int attempt(int limit, long budget) {
+        nodes = 0;
+        covers = 0;
+        backtracks = 0;
+        deepest = depth;
+        nodeLimit = budget;
+        cutOff = false;
+        int start = depth; // rows selected before the search, givens and forced rows
+        int found = search(limit, 0);
+        if (statistics != null) {
+            statistics.recordSearch(nodes, covers, backtracks, deepest - start); // counted in fields, added up once per attempt
+        }
+        return found;
+    }
+
+    private int search(int limit, int found) {
+        if (++nodes > nodeLimit) {
+            cutOff = true; // out of budget, unwind and let countSolutions start over
+            return found;
+        }
+
+        if (right[ROOT] == ROOT) { // every column is covered, so the chosen rows form a solution
+            if (found == 0) {
+                System.arraycopy(partial, 0, solution, 0, depth); // keep the first solution
+                solutionLength = depth;
+            }
+            if (tally != null && tally.incrementAndGet() >= tallyCap) {
+                stop.set(true); // the branches together found enough
+            }
+            return found + 1;
+        }
+
+        if (stop != null && stop.get()) {
+            return found; // another search has already finished
+        }
+
+        int c = chooseColumn();
+        coverColumn(c);
+
+        for (int r = down[c]; r != c && found < limit && !cutOff; r = down[r]) {
+            partial[depth++] = rowIndex[r]; // select the row
+            for (int j = right[r]; j != r; j = right[j]) {
+                coverColumn(column[j]);
+            }
+            if (depth > deepest) {
+                deepest = depth;
+            }
+
+            int before = found;
+            found = search(limit, found);
+            if (found == before) {
+                backtracks++; // a wrong guess, or a branch proven empty
+            }
+
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncoverColumn(column[j]);
+            }
+            depth--; // deselect the row
+        }
+
+        uncoverColumn(c);
+        return found;
+    }
+
+    public int getDepth() { // number of rows chosen so far
+        return depth;
+    }
+
+    public int[] getPartial() { // matrix rows chosen so far, a solution once isSolved()
+        return Arrays.copyOf(partial, depth);
+    }
+
+    public int[] getSolution() { // matrix rows of the first solution found by the last search
+        return Arrays.copyOf(solution, solutionLength);
+    }
+
+    public int getColumnSize(int col) {
+        return size[col + 1];
+    }
+
+    public boolean isColumnCovered(int col) {
+        return isHeaderCovered(col + 1);
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    public void setRandomTieBreak(boolean randomTieBreak) { // off: always branch on the first of the smallest columns
+        this.randomTieBreak = randomTieBreak;
+    }
+
+    public void setRestarts(RestartSchedule restarts, SearchStatistics statistics) { // restarts null for one unbounded attempt
+        this.restarts = restarts;
+        this.statistics = statistics;
+    }
+
+    public boolean isCutOff() { // the last attempt ran out of nodes before it finished
+        return cutOff;
+    }
+
+    public void setStop(AtomicBoolean stop) {
+        this.stop = stop;
+    }
+
+    public void shareCount(AtomicLong tally, long cap, AtomicBoolean stop) { // add every solution to a tally shared with other branches
+        this.tally = tally;
+        this.tallyCap = cap;
+        this.stop = stop;
+    }
+}
@@ -0,0 +1,127 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Takes clues from a solved grid until a target count is left or a deadline passes. A single pass
+ * in a random order usually gets stuck above a low target, since every clue it could still take
+ * away would make the puzzle ambiguous. From there the search puts one or two of the removed clues
+ * back and tries to take the others away again, in a new order and with the clues just put back
+ * tried last. A new puzzle is kept when it has no more clues than the one before, so the search
+ * can wander along puzzles of the same size, and the one with the fewest clues is returned. Every
+ * puzzle on the way has exactly one solution, so whatever the search holds when the deadline
+ * passes can be played.
+ */
+public class ClueSearch {
+    private final SudokuCoverMatrix coverMatrix;
+    private final int[][] solution;
+    private final int size;
+    private final Random random;
+    private long nodeBudget = Long.MAX_VALUE; // see UniquenessOracle.setNodeBudget
+    private int moves; // puzzles tried after the first pass of the last search
+
+    /**
+     * @param coverMatrix matrix of the shape of the grid, it is reset on every move
+     * @param solution the solved grid, left as it is
+     */
+    public ClueSearch(SudokuCoverMatrix coverMatrix, int[][] solution, Random random) {
+        this.coverMatrix = coverMatrix;
+        this.solution = solution;
+        this.size = solution.length;
+        this.random = random;
+    }
+
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /** A unique puzzle of the grid with as few clues as the search found, and no fewer than the target. */
+    public int[][] search(int target, long deadlineNanos) {
+        int[][] current = remove(AlgorithmXSolver.deepSetSolutionBoard(solution), new int[0], target, deadlineNanos);
+        int currentClues = clues(current);
+        int[][] best = current;
+        int bestClues = currentClues;
+        moves = 0;
+        while (bestClues > target && System.nanoTime() < deadlineNanos) {
+            int[][] puzzle = AlgorithmXSolver.deepSetSolutionBoard(current);
+            int back = 1 + random.nextInt(2); // one or two clues back
+            int[] added = new int[Math.min(back, size * size - currentClues)]; // none on a full grid, the removal just starts over
+            for (int i = 0; i < added.length; i++) {
+                added[i] = randomBlank(puzzle);
+                puzzle[added[i] / size][added[i] % size] = solution[added[i] / size][added[i] % size];
+            }
+            puzzle = remove(puzzle, added, target, deadlineNanos);
+            moves++;
+            int puzzleClues = clues(puzzle);
+            if (puzzleClues <= currentClues) { // sideways moves too, a plateau is left through its other end
+                current = puzzle;
+                currentClues = puzzleClues;
+                if (puzzleClues < bestClues) {
+                    best = puzzle;
+                    bestClues = puzzleClues;
+                }
+            }
+        }
+        return best;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    /** Takes away clues of a unique puzzle in a random order, the cells in last at the end, until the target is left. */
+    private int[][] remove(int[][] puzzle, int[] last, int target, long deadlineNanos) {
+        int[] order = new int[size * size];
+        int count = 0;
+        boolean[] isLast = new boolean[size * size];
+        for (int cell : last) {
+            isLast[cell] = true;
+        }
+        for (int cell = 0; cell < size * size; cell++) {
+            if (puzzle[cell / size][cell % size] != 0 && !isLast[cell]) {
+                order[count++] = cell;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) { // Fisher-Yates shuffle of the clues
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        for (int cell : last) {
+            order[count++] = cell;
+        }
+
+        UniquenessOracle oracle = new UniquenessOracle(coverMatrix, puzzle, Arrays.copyOf(order, count));
+        oracle.setNodeBudget(nodeBudget);
+        int clues = count;
+        for (int i = 0; i < count && clues > target && System.nanoTime() < deadlineNanos; i++) {
+            if (oracle.tryRemove(order[i] / size, order[i] % size)) {
+                clues--;
+            }
+        }
+        return oracle.getBoard();
+    }
+
+    private int randomBlank(int[][] puzzle) { // a cell without a clue, picked uniformly
+        int blanks = size * size - clues(puzzle);
+        int pick = random.nextInt(blanks);
+        for (int cell = 0; ; cell++) {
+            if (puzzle[cell / size][cell % size] == 0 && pick-- == 0) {
+                return cell;
+            }
+        }
+    }
+
+    private static int clues(int[][] puzzle) {
+        int clues = 0;
+        for (int[] row : puzzle) {
+            for (int value : row) {
+                clues += value != 0 ? 1 : 0;
+            }
+        }
+        return clues;
+    }
+}
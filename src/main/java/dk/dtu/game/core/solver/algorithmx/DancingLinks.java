@@ -8,17 +8,29 @@ public class DancingLinks {
     private final ColumnNode header;
 
     public DancingLinks(List<int[]> matrix) {
-        if (matrix == null || matrix.isEmpty() || matrix.getFirst().length != 4) {
+        this(matrix, new boolean[0]);
+    }
+
+    public DancingLinks(List<int[]> matrix, boolean[] secondary) { // secondary columns may stay uncovered
+        if (matrix == null || matrix.isEmpty() || matrix.get(0).length != 4) {
             throw new IllegalArgumentException("Matrix must not be null or empty and must have 4 columns");
         } // Check if the matrix is empty or null
 
         // Determine the number of columns needed based on the maximum index in the sparse matrix
-        int numCols = setNumCols(matrix); // Set the number of columns based on the matrix
+        int numCols = Math.max(setNumCols(matrix), secondary.length); // Set the number of columns based on the matrix
 
         header = new ColumnNode("header"); // Create a header node to keep track of the columns
         ColumnNode[] columnNodes = new ColumnNode[numCols]; // Create an array of column nodes
 
         columnNodes = setColumnNodes(columnNodes); // Set up the column nodes
+        for (int col = 0; col < secondary.length; col++) {
+            if (secondary[col]) { // the search never chooses a column outside the header list
+                columnNodes[col].getLeft().setRight(columnNodes[col].getRight());
+                columnNodes[col].getRight().setLeft(columnNodes[col].getLeft());
+                columnNodes[col].setLeft(columnNodes[col]);
+                columnNodes[col].setRight(columnNodes[col]);
+            }
+        }
 
         // Setting up nodes for each constraint in the sparse matrix and linking them
         for (int row = 0; row < matrix.size(); row++) {
@@ -0,0 +1,739 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolvedGridFactory;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import dk.dtu.game.core.solver.bitboard.SolutionTable;
+import dk.dtu.game.core.solver.logical.Grade;
+import dk.dtu.game.core.solver.logical.Grading;
+import dk.dtu.game.core.solver.logical.LogicalSolver;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An Algorithm X solver that owns all of its state: the random source, the solution being built
+ * and the last solved board. Nothing is shared between instances, so separate solvers can
+ * generate and solve boards on different threads at the same time. Create one per request, or
+ * keep one per thread. A single instance is not meant to be used by two threads at once.
+ *
+ * <p>Every shape that Board allows is handled: k * k boxes of n by n cells with the digits 1 to
+ * n * n. The methods that only get an int[][] assume square boxes, the overloads with n and k
+ * take the shape explicitly.
+ */
+public class ExactCoverSolver {
+    private static final int PARALLEL_SIZE = 16; // boards this size and up are searched in parallel
+    private static final int TASKS_PER_WORKER = 4; // how many branches each worker should have to steal from
+    private static final int COUNT_TASKS_PER_WORKER = 16; // counted subtrees differ a lot in size, so split finer
+    private static final int GRADED_SIZE = 16; // larger boards take too long to take clues from again
+    private static final long RATING_BUDGET = 50_000; // nodes a rating may take, harder puzzles all get the score this many reach
+    public static final long REMOVAL_BUDGET = 20_000; // a cap for setRemovalBudget that keeps the rare slow proof from holding up a whole generation
+    private static final Map<AlgorithmXSolver.Shape, SolvedGridFactory> GRID_FACTORIES = new ConcurrentHashMap<>(); // shared by every solver, so a shape is seeded once per run
+
+    private final Random random;
+    private final AlgorithmXSolver.Engine engine;
+    private final List<Node> solution = new ArrayList<>();
+    private final Map<AlgorithmXSolver.Shape, SudokuCoverMatrix> coverMatrices = new HashMap<>(); // one reusable matrix per board shape
+    private final Map<AlgorithmXSolver.Shape, BitboardSolver> singlesSolvers = new HashMap<>(); // fills in singles before Algorithm X, one per board shape
+    private final Map<AlgorithmXSolver.Shape, LogicalSolver> graders = new HashMap<>(); // grades generated puzzles, one per board shape
+    private final SearchStatistics statistics = new SearchStatistics();
+    private SearchStatistics counting = statistics; // counters of the call in progress, added to statistics when it ends
+    private SearchEffort effort = SearchEffort.NONE; // effort of the last solve or uniqueness check
+    private boolean randomTieBreak = true; // off while a puzzle is rated, so the same puzzle always gets the same effort
+    private long countBudget = Long.MAX_VALUE; // nodes a uniqueness check may take, capped while a puzzle is rated
+    private boolean cutOff; // the last uniqueness check ran out of countBudget, so its count is a lower bound
+    private RestartSchedule restarts; // null: every array search runs to the end in one attempt
+    private long removalBudget = Long.MAX_VALUE; // nodes a clue removal may spend on its proof, no cap unless one is set
+    private boolean minimal; // remove clues until none can go, see removeXNumbers
+    private boolean parallelRemoval; // large boards check their clue removals in batches on the pool, see SpeculativeRemoval
+    private boolean solutionTables; // answer shapes that SolutionTable holds from the table instead of a search
+    private AlgorithmXSolver.Fill fill; // how createXSudoku gets its solved grid
+    private long clueBudgetNanos; // time a puzzle may take to reach its clue count with ClueSearch, 0: one removal pass
+    private int clueTarget; // clues a generated puzzle should have, 0: as many as the difficulty leaves
+    private int gradeAttempts; // clue removals tried on a grid to hit the grade and score band of the difficulty, 0: puzzles are not graded
+    private Grading grading; // grading of the last generated puzzle, null if it was not graded
+    private int score; // difficulty score of the last generated puzzle, see SearchEffort.score
+    private String difficulty; // difficulty of the puzzles this solver generates, null to follow Config
+    private int[][] solvedBoard;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private volatile AtomicBoolean countStop = new AtomicBoolean(); // stop flag of the latest countSolutions call
+
+    public ExactCoverSolver() {
+        this(AlgorithmXSolver.getEngine(), new Random());
+    }
+
+    public ExactCoverSolver(AlgorithmXSolver.Engine engine, Random random) {
+        this.engine = engine;
+        this.random = random;
+        this.restarts = AlgorithmXSolver.getRestartSchedule();
+        this.solutionTables = AlgorithmXSolver.getSolutionTables();
+        this.fill = AlgorithmXSolver.getFill();
+        this.gradeAttempts = AlgorithmXSolver.getGradeAttempts();
+        this.parallelRemoval = AlgorithmXSolver.getParallelRemoval();
+        this.minimal = AlgorithmXSolver.getMinimalPuzzles();
+        this.clueBudgetNanos = TimeUnit.MILLISECONDS.toNanos(AlgorithmXSolver.getClueBudget());
+    }
+
+    public void createXSudoku(Board board) { // Create a playable sudoku game with a unique solution
+        int[][] sudokuBoard = fill == AlgorithmXSolver.Fill.TRANSFORM && isEmpty(board.getInitialBoard())
+                ? transformedGrid(board.getN(), board.getK())
+                : solveExistingBoard(board); // fill out the board with a solution
+        board.setSolvedBoard(solvedBoard); // send the solved board to board for easy storage
+        sudokuBoard = removeToTarget(sudokuBoard, board.getN(), board.getK());
+        board.setInitialBoard(sudokuBoard); // send the playable board to board for easy storage
+        board.setDifficultyScore(score);
+        board.setBoard(sudokuBoard); // set the board to the playable board
+    }
+
+    public int[][] solveExistingBoard(Board board) {
+        int[][] arr = board.getInitialBoard(); // takes the board loaded into Board as input
+        int size = arr.length;
+        int n = board.getN();
+        int k = board.getK();
+        if (n * k != size) { // a board loaded without its shape, assume square boxes
+            n = (int) Math.sqrt(size);
+            k = n;
+        }
+
+        SolutionTable table = table(n, k);
+        if (table != null) {
+            int[][] grid = table.solve(arr, random);
+            arr = grid != null ? grid : arr;
+        } else {
+            counting = new SearchStatistics();
+            try {
+                arr = k < n && isEmpty(arr) ? gridFactory(n, k).grid(random) : search(arr, n, k);
+            } finally {
+                endCall();
+            }
+        }
+        solvedBoard = AlgorithmXSolver.deepSetSolutionBoard(arr); // keep a copy of the solved board in this solver
+        board.setSolvedBoard(solvedBoard); // send the solved board to board for easy storage
+        return arr;
+    }
+
+    private int[][] search(int[][] arr, int n, int k) { // a solution of the board, or the board itself if there is none
+        int size = arr.length;
+        ReducedCover core = reduce(arr, n, k); // singles filled in, only the open constraints are left
+        if (core != null) {
+            if (core.isSolved()) {
+                return core.toBoard(new int[0]);
+            }
+            int[] rows = core.hasSolution() ? solveCore(core, size) : null;
+            if (rows != null) {
+                return core.toBoard(rows);
+            }
+        } else if (engine == AlgorithmXSolver.Engine.ARRAY) {
+            SudokuCoverMatrix coverMatrix = getCoverMatrix(n, k);
+            if (coverMatrix.load(arr)) { // the givens are selected in the reusable matrix
+                ArrayDancingLinks adl = configure(new ArrayDancingLinks(coverMatrix.getMatrix())); // search a copy, so the reusable matrix stays intact
+                adl.setRestarts(restarts, counting);
+                int[] rows = size >= PARALLEL_SIZE ? solveInParallel(adl) : solveInPlace(adl);
+                if (rows != null) {
+                    return coverMatrix.toBoard(rows);
+                }
+            }
+        } else {
+            List<AlgorithmXSolver.Placement> placements = new ArrayList<>(); // create list to store found placements
+            List<int[]> xBoard = AlgorithmXSolver.createExactCoverFromBoard(arr, n, k, placements); // create exact cover matrix
+            DancingLinks dl = new DancingLinks(xBoard, AlgorithmXSolver.secondaryColumns(n, k)); // Nodes are created and doubly linked based on the exact cover matrix
+            solution.clear(); // Clear the solution list before each run
+            if (solveNodes(dl.getHeader())) {
+                return AlgorithmXSolver.convertSolutionToBoard(solution, placements, size);
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Removes clues from a solved grid, then rates the puzzle and grades it with LogicalSolver. A
+     * puzzle whose grade is not the one of the difficulty, or whose score is outside the band of
+     * the difficulty, is rejected, and the removal is tried again on the same grid in another
+     * random order. When no attempt hits both, the closest puzzle is kept: the grade counts first,
+     * then how far the score is from the band.
+     */
+    private int[][] removeToTarget(int[][] grid, int n, int k) {
+        grading = null;
+        if (clueBudgetNanos > 0) { // the clue count is the target, one search that ends by its deadline
+            int[][] puzzle = searchClues(grid, n, k);
+            if (minimal) {
+                makeMinimal(puzzle, n, k);
+            }
+            if (gradeAttempts > 0 && n * k <= GRADED_SIZE) {
+                grading = grader(n, k).grade(puzzle);
+            }
+            score = rate(puzzle, n, k).score();
+            return puzzle;
+        }
+        if (gradeAttempts == 0 || n * k > GRADED_SIZE) {
+            removeXNumbers(grid, n, k);
+            score = rate(grid, n, k).score();
+            return grid;
+        }
+        LogicalSolver grader = grader(n, k);
+        Grade target = Grade.of(getDifficulty());
+        ScoreBand band = ScoreBand.of(getDifficulty());
+        int[][] best = null;
+        int gradeMiss = Integer.MAX_VALUE;
+        int bandMiss = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < gradeAttempts && (gradeMiss > 0 || bandMiss > 0); attempt++) {
+            int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+            removeXNumbers(puzzle, n, k);
+            Grading result = grader.grade(puzzle);
+            int puzzleScore = rate(puzzle, n, k).score();
+            int puzzleGradeMiss = Math.abs(result.grade().ordinal() - target.ordinal());
+            int puzzleBandMiss = band.distance(puzzleScore);
+            if (puzzleGradeMiss < gradeMiss || puzzleGradeMiss == gradeMiss && puzzleBandMiss < bandMiss) {
+                best = puzzle;
+                grading = result;
+                score = puzzleScore;
+                gradeMiss = puzzleGradeMiss;
+                bandMiss = puzzleBandMiss;
+            }
+        }
+        return best;
+    }
+
+    private LogicalSolver grader(int n, int k) {
+        return graders.computeIfAbsent(new AlgorithmXSolver.Shape(n, k), shape -> new LogicalSolver(shape.n(), shape.k()));
+    }
+
+    /**
+     * A unique puzzle of the grid with the target number of clues, or as close to it as ClueSearch
+     * gets before the clue budget runs out.
+     */
+    private int[][] searchClues(int[][] grid, int n, int k) {
+        long deadline = System.nanoTime() + clueBudgetNanos;
+        int target = clueTarget > 0 ? clueTarget : grid.length * grid.length - SolverAlgorithm.setNumsRemoved(grid, getDifficulty());
+        ClueSearch search = new ClueSearch(getCoverMatrix(n, k), grid, random);
+        search.setNodeBudget(removalBudget);
+        return search.search(target, deadline);
+    }
+
+    private static boolean isEmpty(int[][] board) {
+        for (int[] row : board) {
+            for (int value : row) {
+                if (value != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A solved grid from SolvedGridFactory. For square boxes the factory is seeded with one grid
+     * found by a search the first time, so the grids are not all shuffles of the pattern grid.
+     * The factories are shared by all solvers, so that search runs once per shape and run, also
+     * for the static calls that make a new solver every time. With k < n the grid always comes
+     * from the pattern grid, since a search on an empty board gets lost: a row may leave digits
+     * out, and nothing tells it which ones.
+     */
+    private int[][] transformedGrid(int n, int k) {
+        SolvedGridFactory factory = gridFactory(n, k);
+        if (k == n && factory.seedCount() == 0) {
+            synchronized (factory) { // solvers on other threads wait for the one search
+                if (factory.seedCount() == 0) {
+                    factory.addSeed(search(new int[n * k][n * k], n, k));
+                }
+            }
+        }
+        int[][] grid = factory.grid(random);
+        solvedBoard = AlgorithmXSolver.deepSetSolutionBoard(grid);
+        return grid;
+    }
+
+    public static SolvedGridFactory gridFactory(int n, int k) { // the shared factory of a shape, seeded by the first TRANSFORM fill
+        return GRID_FACTORIES.computeIfAbsent(new AlgorithmXSolver.Shape(n, k), shape -> new SolvedGridFactory(shape.n(), shape.k()));
+    }
+
+    private SolutionTable table(int n, int k) { // null when tables are off or the shape has none
+        return solutionTables ? SolutionTable.of(n, k) : null;
+    }
+
+    private ReducedCover reduce(int[][] board, int n, int k) { // null for boards the bitmasks cannot hold
+        if (n * k != board.length || !CandidateMasks.fits(n)) {
+            return null;
+        }
+        BitboardSolver singles =
+                singlesSolvers.computeIfAbsent(new AlgorithmXSolver.Shape(n, k), shape -> new BitboardSolver(shape.n(), shape.k()));
+        return ReducedCover.of(singles, board);
+    }
+
+    private int[] solveCore(ReducedCover core, int size) {
+        if (engine == AlgorithmXSolver.Engine.ARRAY) {
+            ArrayDancingLinks adl = configure(new ArrayDancingLinks(core.getRows(), core.getSecondary()));
+            adl.setRestarts(restarts, counting);
+            return size >= PARALLEL_SIZE ? solveInParallel(adl) : solveInPlace(adl);
+        }
+        DancingLinks dl = new DancingLinks(core.getRows(), core.getSecondary());
+        solution.clear(); // Clear the solution list before each run
+        if (!solveNodes(dl.getHeader())) {
+            return null;
+        }
+        return solution.stream().mapToInt(Node::getRowIndex).toArray();
+    }
+
+    private SudokuCoverMatrix getCoverMatrix(int n, int k) {
+        SudokuCoverMatrix coverMatrix =
+                coverMatrices.computeIfAbsent(new AlgorithmXSolver.Shape(n, k), shape -> new SudokuCoverMatrix(shape.n(), shape.k()));
+        configure(coverMatrix.getMatrix());
+        return coverMatrix;
+    }
+
+    /**
+     * Sets the random source and the statistics of a matrix, copies made from it keep them. Only
+     * searches for a solution restart: a count that has to prove there is no second solution
+     * explores the whole tree either way, and restarting it only repeats work.
+     */
+    private ArrayDancingLinks configure(ArrayDancingLinks adl) {
+        adl.setRandom(random);
+        adl.setRandomTieBreak(randomTieBreak);
+        adl.setRestarts(null, counting);
+        return adl;
+    }
+
+    private void endCall() { // the counters of the call become its effort, and go into the totals
+        effort = counting.getEffort();
+        statistics.add(counting);
+        counting = statistics;
+    }
+
+    private static int[] solveInPlace(ArrayDancingLinks adl) {
+        return adl.solve() ? adl.getSolution() : null;
+    }
+
+    private int[] solveInParallel(ArrayDancingLinks adl) { // split the top of the search tree over the pool
+        AtomicReference<int[]> result = new AtomicReference<>();
+        pool.invoke(new AlgorithmXTask(adl, result, pool.getParallelism() * TASKS_PER_WORKER));
+        return result.get();
+    }
+
+    private boolean solveNodes(ColumnNode header) { // sequential search on the Node graph
+        if (header.getRight() == header) { // If the header is the only node left, the matrix is solved
+            return true;
+        }
+
+        ColumnNode c = AlgorithmXSolver.chooseHeuristicColumn(header, random); // Choose the column with the least amount of nodes
+        c.cover(); // Cover the column to avoid it being chosen again
+
+        for (Node r = c.getDown(); r != c; r = r.getDown()) { // Run through each row in the chosen column
+            solution.add(r); // add row to the solution
+            for (Node j = r.getRight(); j != r; j = j.getRight()) {
+                j.getColumn().cover(); // cover all columns in the row to avoid them being chosen again
+            }
+
+            if (solveNodes(header)) { // If a solution is found, return true
+                return true;
+            }
+
+            for (Node j = r.getLeft(); j != r; j = j.getLeft()) { // If no solution is found, uncover the row and columns
+                j.getColumn().uncover();
+            }
+            solution.remove(solution.size() - 1); // remove the row from the solution
+        }
+
+        c.uncover(); // uncover the original column
+        return false;
+    }
+
+    public void removeXNumbers(int[][] arr) { // square boxes
+        int n = (int) Math.sqrt(arr.length);
+        removeXNumbers(arr, n, n);
+    }
+
+    /**
+     * Takes clues from a solved grid in a random order while the puzzle stays unique, up to the
+     * count of the difficulty. With minimal puzzles on there is no count: every clue is tried and
+     * no proof is cut short, which leaves a puzzle that no clue can be taken from, since taking
+     * clues only adds solutions. MinimalityCheck then makes sure of it on the pool.
+     */
+    public void removeXNumbers(int[][] arr, int n, int k) {
+        if (!minimal) {
+            removeClues(arr, n, k, SolverAlgorithm.setNumsRemoved(arr, getDifficulty()), removalBudget); // Set the number of numbers to remove, based on the difficulty input
+            return;
+        }
+        removeClues(arr, n, k, arr.length * arr.length, Long.MAX_VALUE); // every clue is tried, and no proof is cut short
+        makeMinimal(arr, n, k);
+    }
+
+    private void makeMinimal(int[][] puzzle, int n, int k) { // take clues away until none can go, checked on the pool
+        MinimalityCheck check = new MinimalityCheck(pool, n, k);
+        for (int cell = check.findRemovable(puzzle); cell >= 0; cell = check.findRemovable(puzzle)) {
+            puzzle[cell / puzzle.length][cell % puzzle.length] = 0; // a clue kept because its proof was cut short
+        }
+    }
+
+    private void removeClues(int[][] arr, int n, int k, int maxRemoved, long budget) {
+        int numRemoved = 0;
+        int size = arr.length;
+        int[] shuffleIndices = fisherYatesShuffle(size * size); // Shuffle all cell indices
+
+        if (engine == AlgorithmXSolver.Engine.ARRAY && table(n, k) == null) { // a table answers each check below with a scan
+            if (checkUniqueSolution(arr, n, k) != 1) {
+                return; // no clue can be removed from a board without a unique solution
+            }
+            if (parallelRemoval && size >= PARALLEL_SIZE && pool.getParallelism() > 1) { // checks are slow enough to share out
+                SpeculativeRemoval removal = new SpeculativeRemoval(pool, n, k);
+                removal.setNodeBudget(budget);
+                removal.remove(arr, shuffleIndices, maxRemoved);
+                return;
+            }
+            UniquenessOracle oracle = new UniquenessOracle(getCoverMatrix(n, k), arr, shuffleIndices);
+            oracle.setNodeBudget(budget);
+            for (int i = 0; i < size * size && numRemoved < maxRemoved; i++) {
+                int row = shuffleIndices[i] / size;
+                int col = shuffleIndices[i] % size;
+                if (oracle.tryRemove(row, col)) { // only the other digits of this cell are tried
+                    arr[row][col] = 0;
+                    numRemoved++;
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < size * size && numRemoved < maxRemoved; i++) {
+            int row = shuffleIndices[i] / size;
+            int col = shuffleIndices[i] % size; // run through the board in a random order
+
+            if (arr[row][col] != 0) {
+                int tempNumber = arr[row][col];
+                arr[row][col] = 0; // if a number is not 0, remove it and store as a temporary value
+
+                if (checkUniqueSolution(arr, n, k) == 1) { // check to ensure only 1 solution is possible for the new board
+                    numRemoved++;
+                } else {
+                    arr[row][col] = tempNumber; // Restore the number if removing it doesn't lead to a unique solution.
+                }
+            }
+        }
+    }
+
+    public int checkUniqueSolution(int[][] board) { // square boxes
+        int n = (int) Math.sqrt(board.length);
+        return checkUniqueSolution(board, n, n);
+    }
+
+    public int checkUniqueSolution(int[][] board, int n, int k) { // 0, 1 or 2 for more than one, see getEffort for the work it took
+        counting = new SearchStatistics();
+        try {
+            return countUpToTwo(board, n, k);
+        } finally {
+            endCall();
+        }
+    }
+
+    /**
+     * The effort a uniqueness check of the puzzle takes, as a measure of how hard the puzzle is.
+     * The singles are filled in first for free, and ties between columns are not broken at
+     * random, so a puzzle is always rated the same. The check gives up after RATING_BUDGET nodes,
+     * so the hardest puzzles of the large boards all get about the same effort.
+     */
+    public SearchEffort rate(int[][] puzzle, int n, int k) {
+        randomTieBreak = false;
+        countBudget = RATING_BUDGET;
+        try {
+            checkUniqueSolution(puzzle, n, k);
+        } finally {
+            randomTieBreak = true;
+            countBudget = Long.MAX_VALUE;
+        }
+        return effort;
+    }
+
+    boolean isProvenUnique(int[][] board, int n, int k, long budget) { // a check that runs out of budget counts as not unique
+        countBudget = budget;
+        try {
+            return checkUniqueSolution(board, n, k) == 1 && !cutOff;
+        } finally {
+            countBudget = Long.MAX_VALUE;
+        }
+    }
+
+    private int countUpToTwo(int[][] board, int n, int k) {
+        cutOff = false;
+        SolutionTable table = table(n, k);
+        if (table != null) {
+            return table.countSolutions(board, 2);
+        }
+        ReducedCover core = reduce(board, n, k);
+        if (core != null) {
+            if (core.isSolved()) {
+                return 1; // the singles alone complete the board, so this is the only solution
+            }
+            if (!core.hasSolution()) {
+                return 0;
+            }
+            if (engine == AlgorithmXSolver.Engine.ARRAY) {
+                ArrayDancingLinks adl = configure(new ArrayDancingLinks(core.getRows(), core.getSecondary()));
+                int found = adl.countSolutions(2, countBudget); // stop as soon as a second solution is found
+                cutOff = adl.isCutOff();
+                return found;
+            }
+            return countSolutions(new DancingLinks(core.getRows(), core.getSecondary()).getHeader(), 0);
+        }
+        if (engine == AlgorithmXSolver.Engine.ARRAY) {
+            SudokuCoverMatrix coverMatrix = getCoverMatrix(n, k); // reused, only the givens are selected again
+            if (!coverMatrix.load(board)) {
+                return 0; // two givens clash, so there is no solution
+            }
+            int found = coverMatrix.countSolutions(2, countBudget); // stop as soon as a second solution is found
+            cutOff = coverMatrix.getMatrix().isCutOff();
+            return found;
+        }
+        List<AlgorithmXSolver.Placement> placements = new ArrayList<>();
+        List<int[]> xBoard = AlgorithmXSolver.createExactCoverFromBoard(board, n, k, placements);
+        DancingLinks dl = new DancingLinks(xBoard, AlgorithmXSolver.secondaryColumns(n, k)); // initialize the dancing links again to solve
+        return countSolutions(dl.getHeader(), 0);
+    }
+
+    /**
+     * Counts the solutions of a board up to a cap, with the top of the search tree split over the
+     * ForkJoinPool. Every branch counts on its own copy of the matrix, always with the array
+     * engine, and the counts are added up. The count stops once the cap is reached, or when
+     * cancelCount() is called from another thread, which leaves the count found so far.
+     */
+    public SolutionCount countSolutions(int[][] board, int n, int k, long cap) {
+        if (cap < 1) {
+            throw new IllegalArgumentException("Cap must be at least 1");
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        countStop = stop;
+        long start = System.nanoTime();
+        SearchStatistics countStatistics = new SearchStatistics();
+
+        long count = 0;
+        ArrayDancingLinks adl = null;
+        SolutionTable table = table(n, k);
+        ReducedCover core = table == null ? reduce(board, n, k) : null;
+        if (table != null) {
+            count = table.countSolutions(board, (int) Math.min(cap, Integer.MAX_VALUE));
+        } else if (core != null) {
+            if (core.isSolved()) {
+                count = 1;
+            } else if (core.hasSolution()) {
+                adl = new ArrayDancingLinks(core.getRows(), core.getSecondary());
+            }
+        } else {
+            SudokuCoverMatrix coverMatrix = getCoverMatrix(n, k);
+            if (coverMatrix.load(board)) { // clashing givens have no solution
+                adl = new ArrayDancingLinks(coverMatrix.getMatrix()); // count a copy, so the reusable matrix stays intact
+            }
+        }
+        if (adl != null) {
+            adl.setRandomTieBreak(false); // the count is the same whichever smallest column comes first
+            adl.setRestarts(null, countStatistics);
+            AtomicLong found = new AtomicLong();
+            pool.invoke(new SolutionCountTask(adl, found, stop, cap, pool.getParallelism() * COUNT_TASKS_PER_WORKER));
+            count = Math.min(found.get(), cap); // branches that find a solution at the same moment may pass the cap
+        }
+        boolean cancelled = stop.get() && count < cap;
+        return new SolutionCount(count, cap, cancelled, countStatistics.getNodes(), System.nanoTime() - start);
+    }
+
+    public void cancelCount() { // stop the count running on this solver, safe to call from any thread
+        countStop.set(true);
+    }
+
+    /**
+     * Every solution of a board as a lazy stream: a solution is only searched for when the stream
+     * asks for the next one, so limit() and findFirst() stop the search early. A parallel stream
+     * splits the search tree, see SolutionSpliterator. The stream has its own copy of the matrix,
+     * so this solver can be used again before the stream is done.
+     */
+    public Stream<int[][]> solutions(int[][] board, int n, int k) {
+        SolutionTable table = table(n, k);
+        if (table != null) {
+            return table.solutions(board);
+        }
+        ReducedCover core = reduce(board, n, k);
+        if (core != null) {
+            if (core.isSolved()) {
+                return Stream.<int[][]>of(core.toBoard(new int[0]));
+            }
+            if (!core.hasSolution()) {
+                return Stream.empty();
+            }
+            ArrayDancingLinks adl = new ArrayDancingLinks(core.getRows(), core.getSecondary());
+            adl.setRandomTieBreak(false);
+            return StreamSupport.stream(new SolutionSpliterator(adl, core::toBoard), false);
+        }
+        SudokuCoverMatrix coverMatrix = getCoverMatrix(n, k);
+        if (!coverMatrix.load(board)) {
+            return Stream.empty(); // two givens clash
+        }
+        ArrayDancingLinks adl = new ArrayDancingLinks(coverMatrix.getMatrix()); // the givens are among its chosen rows
+        adl.setRandomTieBreak(false);
+        return StreamSupport.stream(new SolutionSpliterator(adl, coverMatrix::toBoard), false);
+    }
+
+    /**
+     * Writes up to limit solutions of a board to a file, one per line in the format of saved
+     * games: the cells of a row separated by commas, the rows by semicolons. Returns how many
+     * solutions were written.
+     */
+    public long writeSolutions(int[][] board, int n, int k, long limit, Path file) throws IOException {
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file);
+                Stream<int[][]> solutions = solutions(board, n, k).limit(limit)) {
+            for (Iterator<int[][]> it = solutions.iterator(); it.hasNext(); written++) {
+                writer.write(serializeBoard(it.next()));
+                writer.newLine();
+            }
+        }
+        return written;
+    }
+
+    private static String serializeBoard(int[][] board) {
+        StringBuilder builder = new StringBuilder();
+        for (int[] row : board) {
+            for (int cell : row) {
+                builder.append(cell).append(",");
+            }
+            builder.setLength(builder.length() - 1); // Remove last comma
+            builder.append(";");
+        }
+        builder.setLength(builder.length() - 1); // Remove last semicolon
+        return builder.toString();
+    }
+
+    private int countSolutions(ColumnNode header, int count) {
+        if (header.getRight() == header) { // recursively checked, if the header is the only node left, a solution is found
+            return count + 1; // Found a solution
+        }
+        if (count > 1) {
+            return count; // Early exit if more than one solution is found
+        }
+
+        ColumnNode c = AlgorithmXSolver.chooseHeuristicColumn(header, random); // MRV heuristic is used to choose the column which contains the fewest nodes
+        c.cover(); // cover the column as well as all rows which contain a constraint the column
+
+        for (Node r = c.getDown(); r != c; r = r.getDown()) {
+            for (Node j = r.getRight(); j != r; j = j.getRight()) {
+                j.getColumn().cover();
+            }  // cover all columns as well as all rows which contain a constraint the column
+
+            count = countSolutions(header, count); // recursively check for solutions
+            if (count > 1) return count; // Early exit
+
+            for (Node j = r.getLeft(); j != r; j = j.getLeft()) {
+                j.getColumn().uncover();
+            } // uncover all columns as well as all rows which contain a constraint the column
+        }
+
+        c.uncover(); // uncover the original column
+        return count;
+    }
+
+    public int[] fisherYatesShuffle(int n) { // Fisher-Yates shuffle using this solver's random source
+        int[] arr = new int[n];
+        for (int i = 0; i < n; i++) {
+            arr[i] = i; // create an array of n elements
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1); // randomly shuffle the array
+            int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
+        return arr;
+    }
+
+    public int[][] getSolutionBoard() {
+        return solvedBoard;
+    }
+
+    public void selectRow(Node row) { // add a row to the solution being built
+        solution.add(row);
+    }
+
+    public void deselectRow(Node row) { // remove a row from the solution being built
+        solution.remove(row);
+    }
+
+    public void setRestartSchedule(RestartSchedule restarts) { // array engine searches for a solution, null to turn it off
+        this.restarts = restarts;
+    }
+
+    public void setRemovalBudget(long removalBudget) { // see UniquenessOracle.setNodeBudget, Long.MAX_VALUE for no cap
+        this.removalBudget = removalBudget;
+    }
+
+    public void setMinimalPuzzles(boolean minimal) { // generate minimal puzzles whatever the difficulty's clue count, off by default
+        this.minimal = minimal;
+    }
+
+    public void setParallelRemoval(boolean parallelRemoval) { // see SpeculativeRemoval, on by default
+        this.parallelRemoval = parallelRemoval;
+    }
+
+    public void setClueBudget(long budget, TimeUnit unit) { // wall-clock time of ClueSearch per puzzle, 0 for one removal pass
+        this.clueBudgetNanos = unit.toNanos(budget);
+    }
+
+    public void setClueTarget(int clueTarget) { // clues ClueSearch aims for, 0 for as many as the difficulty leaves
+        this.clueTarget = clueTarget;
+    }
+
+    public void setFill(AlgorithmXSolver.Fill fill) { // see AlgorithmXSolver.Fill
+        this.fill = fill;
+    }
+
+    public void setSolutionTables(boolean solutionTables) { // see SolutionTable, on by default
+        this.solutionTables = solutionTables;
+    }
+
+    public void setGradeAttempts(int gradeAttempts) { // see removeToTarget, 0 to take the first puzzle without grading it
+        if (gradeAttempts < 0) {
+            throw new IllegalArgumentException("Grade attempts must not be negative");
+        }
+        this.gradeAttempts = gradeAttempts;
+    }
+
+    public void setDifficulty(String difficulty) { // generate for this difficulty whatever Config says, null to follow Config again
+        this.difficulty = difficulty;
+    }
+
+    public String getDifficulty() {
+        return difficulty != null ? difficulty : Config.getDifficulty();
+    }
+
+    public Grading getGrading() { // how the last generated puzzle was graded, null if it was not
+        return grading;
+    }
+
+    public SearchEffort getEffort() { // effort of the last solve or uniqueness check, NONE if it needed no search
+        return effort;
+    }
+
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void setForkJoinPool(ForkJoinPool pool) { // pool used for parallel searches, the common pool by default
+        this.pool = pool;
+    }
+
+    public AlgorithmXSolver.Engine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,98 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that a puzzle with a unique solution is minimal: no clue can be taken away without a
+ * second solution turning up. A clue can go exactly when no other digit in its cell leads to a
+ * solution, as in UniquenessOracle. The clues are split over the pool, each task on its own
+ * cover matrix, and the first clue found that can go stops every other task, including the
+ * searches they are in the middle of.
+ */
+public class MinimalityCheck {
+    private static final int TASKS_PER_WORKER = 4; // clues differ a lot in how long they take, so split finer
+
+    private final ForkJoinPool pool;
+    private final int n;
+    private final int k;
+    private final AtomicInteger checks = new AtomicInteger(); // clues checked by the last call
+
+    public MinimalityCheck(ForkJoinPool pool, int n, int k) {
+        this.pool = pool;
+        this.n = n;
+        this.k = k;
+    }
+
+    public boolean isMinimal(int[][] puzzle) {
+        return findRemovable(puzzle) < 0;
+    }
+
+    /** A clue that can be taken away with the puzzle still unique, as row * size + col, -1 if there is none. */
+    public int findRemovable(int[][] puzzle) {
+        int size = puzzle.length;
+        List<Integer> clues = new ArrayList<>();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (puzzle[cell / size][cell % size] != 0) {
+                clues.add(cell);
+            }
+        }
+        checks.set(0);
+        if (clues.isEmpty()) {
+            return -1;
+        }
+
+        int taskCount = Math.min(clues.size(), pool.getParallelism() * TASKS_PER_WORKER);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger removable = new AtomicInteger(-1);
+        List<Callable<Void>> tasks = new ArrayList<>(taskCount);
+        for (int t = 0; t < taskCount; t++) {
+            int first = t;
+            tasks.add(() -> {
+                SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(n, k);
+                coverMatrix.getMatrix().setStop(stop); // a search in progress gives up once another task has found a clue
+                for (int i = first; i < clues.size() && !stop.get(); i += taskCount) { // every taskCount-th clue
+                    int cell = clues.get(i);
+                    checks.incrementAndGet();
+                    if (canRemove(coverMatrix, puzzle, cell) && removable.compareAndSet(-1, cell)) {
+                        stop.set(true);
+                    }
+                }
+                return null;
+            });
+        }
+        pool.invokeAll(tasks);
+        return removable.get();
+    }
+
+    public int getChecks() { // clues checked by the last call, fewer than the clues when it stopped early
+        return checks.get();
+    }
+
+    private static boolean canRemove(SudokuCoverMatrix coverMatrix, int[][] puzzle, int cell) {
+        int size = puzzle.length;
+        int row = cell / size;
+        int col = cell % size;
+        int value = puzzle[row][col];
+        puzzle = AlgorithmXSolver.deepSetSolutionBoard(puzzle);
+        puzzle[row][col] = 0;
+        if (!coverMatrix.load(puzzle)) {
+            throw new IllegalArgumentException("The givens on the board clash");
+        }
+        for (int v = 1; v <= coverMatrix.getDigits(); v++) {
+            if (v != value && coverMatrix.place(row, col, v)) {
+                boolean solvable = coverMatrix.countSolutions(1) > 0; // the first completion is enough
+                coverMatrix.unplace(row, col, v);
+                if (solvable) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The part of a board that is left for Algorithm X after the easy work is done up front. Naked
+ * and hidden singles are filled in until nothing changes. Only the constraints that are still
+ * open get a column, and only the candidates of the still empty cells get a row, so Dancing Links
+ * never sees the givens. A solution of this core plus the filled board is a solution of the
+ * original board, and every solution of the board comes about this way, so counting the core
+ * counts the board. A board that the singles complete never reaches Dancing Links at all.
+ *
+ * <p>When the boxes are wider than the board (k < n) rows and columns hold each digit at most
+ * once. Their columns are secondary and only get a core column once a candidate needs it.
+ */
+public class ReducedCover {
+    private final int size;
+    private final int digits; // n * n, more than size when k < n
+    private final int[][] filled; // the board after the singles, null when they hit a contradiction
+    private final List<int[]> rows = new ArrayList<>(); // core matrix, columns numbered from 0
+    private final List<AlgorithmXSolver.Placement> placements = new ArrayList<>(); // placement of every core row
+    private boolean[] secondary = new boolean[0]; // core columns that may stay uncovered
+
+    private ReducedCover(int size, CandidateMasks masks) {
+        this.size = size;
+        this.digits = masks == null ? 0 : masks.getN() * masks.getN();
+        this.filled = masks == null ? null : masks.toBoard();
+        if (masks != null && !buildCore(masks)) {
+            rows.clear(); // an open constraint without candidates can never be covered
+            placements.clear();
+        }
+    }
+
+    public static ReducedCover of(BitboardSolver singles, int[][] board) {
+        return new ReducedCover(board.length, singles.fillSingles(board));
+    }
+
+    private boolean buildCore(CandidateMasks masks) { // false if some open constraint has no rows
+        int all = masks.getAllDigits();
+        int boxes = size * size / digits;
+        int rowBase = size * size; // same column layout as setCoverRow
+        int colBase = rowBase + size * digits;
+        int boxBase = colBase + size * digits;
+        int[] columnOf = new int[boxBase + boxes * digits]; // open constraint -> core column, -1 when satisfied
+        Arrays.fill(columnOf, -1);
+        int columns = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (masks.get(cell) == 0) {
+                columnOf[cell] = columns++;
+            }
+        }
+        boolean linesHoldAllDigits = size == digits;
+        for (int unit = 0; linesHoldAllDigits && unit < size; unit++) { // digits still missing from every row and column
+            columns = openColumns(columnOf, columns, rowBase + unit * digits, all & ~masks.rowDigits(unit));
+            columns = openColumns(columnOf, columns, colBase + unit * digits, all & ~masks.colDigits(unit));
+        }
+        for (int unit = 0; unit < boxes; unit++) {
+            columns = openColumns(columnOf, columns, boxBase + unit * digits, all & ~masks.boxDigits(unit));
+        }
+        if (columns == 0) {
+            return true; // the singles solved the board
+        }
+        int primary = columns;
+
+        for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            int box = masks.boxOf(row, col);
+            for (int mask = masks.candidates(cell); mask != 0; mask &= mask - 1) {
+                int digit = CandidateMasks.digitOf(mask & -mask);
+                int rowColumn = rowBase + row * digits + digit - 1;
+                int colColumn = colBase + col * digits + digit - 1;
+                if (columnOf[rowColumn] == -1) {
+                    columnOf[rowColumn] = columns++; // a secondary column, opened by its first candidate
+                }
+                if (columnOf[colColumn] == -1) {
+                    columnOf[colColumn] = columns++;
+                }
+                rows.add(new int[] {
+                    columnOf[cell], columnOf[rowColumn], columnOf[colColumn], columnOf[boxBase + box * digits + digit - 1]
+                }); // same four constraints as setCoverRow, renumbered
+                placements.add(new AlgorithmXSolver.Placement(row, col, digit));
+            }
+        }
+
+        int[] rowsPerColumn = new int[columns];
+        for (int[] cover : rows) {
+            for (int column : cover) {
+                rowsPerColumn[column]++;
+            }
+        }
+        for (int column = 0; column < primary; column++) {
+            if (rowsPerColumn[column] == 0) {
+                return false;
+            }
+        }
+        secondary = new boolean[columns];
+        Arrays.fill(secondary, primary, columns, true);
+        return true;
+    }
+
+    private static int openColumns(int[] columnOf, int columns, int base, int missing) {
+        for (; missing != 0; missing &= missing - 1) {
+            columnOf[base + CandidateMasks.digitOf(missing & -missing) - 1] = columns++;
+        }
+        return columns;
+    }
+
+    public boolean hasSolution() { // false when the singles or the core show there is none
+        return filled != null && (isSolved() || !rows.isEmpty());
+    }
+
+    public boolean isSolved() { // the singles alone completed the board
+        return filled != null && isFull(filled);
+    }
+
+    private static boolean isFull(int[][] board) {
+        for (int[] row : board) {
+            for (int value : row) {
+                if (value == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public List<int[]> getRows() {
+        return rows;
+    }
+
+    public boolean[] getSecondary() { // core columns that may stay uncovered, see ArrayDancingLinks
+        return secondary;
+    }
+
+    public List<AlgorithmXSolver.Placement> getPlacements() {
+        return placements;
+    }
+
+    public int[][] toBoard(int[] coreRows) { // the filled board completed with the chosen core rows
+        int[][] board = AlgorithmXSolver.deepSetSolutionBoard(filled);
+        for (int row : coreRows) {
+            AlgorithmXSolver.Placement placement = placements.get(row);
+            board[placement.row()][placement.col()] = placement.value();
+        }
+        return board;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,58 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+/**
+ * How many search nodes each attempt of a restarting search may use. With random tie-breaking the
+ * time a Dancing Links search takes is heavy-tailed: most searches are quick, a few get stuck low
+ * in a bad branch. Giving up after a budget and starting over with other tie-breaks cuts off that
+ * tail. The budgets keep growing, so a search that needs a large tree still finishes.
+ */
+public final class RestartSchedule {
+    private final long unit; // nodes in the smallest attempt
+    private final double factor; // growth per attempt of a geometric schedule, 0 for Luby
+
+    private RestartSchedule(long unit, double factor) {
+        if (unit < 1) {
+            throw new IllegalArgumentException("The node budget must be at least 1");
+        }
+        this.unit = unit;
+        this.factor = factor;
+    }
+
+    public static RestartSchedule luby(long unit) { // unit times 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+        return new RestartSchedule(unit, 0);
+    }
+
+    public static RestartSchedule geometric(long unit, double factor) { // unit times 1, factor, factor^2, ...
+        if (factor <= 1) {
+            throw new IllegalArgumentException("A geometric schedule must grow");
+        }
+        return new RestartSchedule(unit, factor);
+    }
+
+    public long budget(int attempt) { // node budget of an attempt, counted from 0
+        double scale = factor == 0 ? lubyTerm(attempt + 1) : Math.pow(factor, attempt);
+        double budget = unit * scale;
+        return budget >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) budget;
+    }
+
+    private static long lubyTerm(int i) { // i-th term of the Luby sequence, from 1
+        int k = 1;
+        while ((1L << k) - 1 < i) {
+            k++;
+        }
+        while ((1L << k) - 1 != i) { // i lies inside an earlier copy of the sequence
+            i -= (1 << (k - 1)) - 1;
+            k = 1;
+            while ((1L << k) - 1 < i) {
+                k++;
+            }
+        }
+        return 1L << (k - 1);
+    }
+
+    @Override
+    public String toString() {
+        return factor == 0 ? "luby(" + unit + ")" : "geometric(" + unit + ", " + factor + ")";
+    }
+}
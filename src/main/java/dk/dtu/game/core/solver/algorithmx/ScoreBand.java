@@ -0,0 +1,31 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+/**
+ * The difficulty scores, see SearchEffort.score, that a generated puzzle should have.
+ *
+ * @param min lowest score in the band
+ * @param max highest score in the band
+ */
+public record ScoreBand(int min, int max) {
+
+    public static ScoreBand of(String difficulty) { // the band of a Config difficulty, easy if it is not one
+        if (difficulty == null) {
+            return new ScoreBand(0, 0);
+        }
+        return switch (difficulty) {
+            case "medium" -> new ScoreBand(0, 29); // up to 6 wrong guesses
+            case "hard" -> new ScoreBand(30, 49); // 7 to 30
+            case "extreme" -> new ScoreBand(50, Integer.MAX_VALUE); // 31 and more
+            default -> new ScoreBand(0, 0); // the singles are enough
+        };
+    }
+
+    public boolean contains(int score) {
+        return score >= min && score <= max;
+    }
+
+    public int distance(int score) { // how far a score is outside the band, 0 inside it
+        return score < min ? min - score : Math.max(0, score - max);
+    }
+}
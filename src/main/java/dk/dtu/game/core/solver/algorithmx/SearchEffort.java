@@ -0,0 +1,24 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+/**
+ * How much work a Dancing Links search took.
+ *
+ * @param nodes search nodes visited
+ * @param covers columns covered
+ * @param backtracks rows taken back without a new solution under them
+ * @param maxDepth most rows chosen on one path, on top of the givens and the singles
+ */
+public record SearchEffort(long nodes, long covers, long backtracks, int maxDepth) {
+    public static final SearchEffort NONE = new SearchEffort(0, 0, 0, 0);
+
+    /**
+     * Difficulty score of a puzzle this is the rating of, see ExactCoverSolver.rate: ten times
+     * log2 of one more than the wrong guesses the proof took. 0 when the singles finish the
+     * puzzle, each doubling of the guesses adds 10. The log keeps the same bands usable from 6x6
+     * boards, where a proof takes a handful of guesses, to 16x16 ones, where it can take millions.
+     */
+    public int score() {
+        return (int) Math.round(10 * Math.log1p(backtracks) / Math.log(2));
+    }
+}
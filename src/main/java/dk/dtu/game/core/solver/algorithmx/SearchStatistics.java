@@ -0,0 +1,104 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the Dancing Links searches of one solver. The matrices a solver hands out, and
+ * the copies made for parallel branches, all add to the same counters, so they are safe to update
+ * from several threads.
+ */
+public class SearchStatistics {
+    private final LongAdder searches = new LongAdder(); // attempts, restarted ones included
+    private final LongAdder nodes = new LongAdder(); // search nodes over all attempts
+    private final LongAdder restarts = new LongAdder(); // attempts that ran out of budget
+    private final LongAdder wastedNodes = new LongAdder(); // nodes spent in those attempts
+    private final LongAdder abandoned = new LongAdder(); // budgeted searches that gave up without a restart
+    private final LongAdder covers = new LongAdder(); // column covers over all attempts
+    private final LongAdder backtracks = new LongAdder(); // rows taken back without a new solution under them
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0); // most rows any attempt chose on top of its start
+
+    void recordSearch(long searchNodes, long searchCovers, long searchBacktracks, int searchDepth) {
+        searches.increment();
+        nodes.add(searchNodes);
+        covers.add(searchCovers);
+        backtracks.add(searchBacktracks);
+        maxDepth.accumulate(searchDepth);
+    }
+
+    void recordRestart(long searchNodes) {
+        restarts.increment();
+        wastedNodes.add(searchNodes);
+    }
+
+    void recordAbandoned(long searchNodes) {
+        abandoned.increment();
+        wastedNodes.add(searchNodes);
+    }
+
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public long getRestarts() {
+        return restarts.sum();
+    }
+
+    public long getWastedNodes() {
+        return wastedNodes.sum();
+    }
+
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    public long getCovers() {
+        return covers.sum();
+    }
+
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    public SearchEffort getEffort() { // the search counters as one value
+        return new SearchEffort(getNodes(), getCovers(), getBacktracks(), getMaxDepth());
+    }
+
+    void add(SearchStatistics other) { // fold in the counters of a single call
+        searches.add(other.getSearches());
+        nodes.add(other.getNodes());
+        restarts.add(other.getRestarts());
+        wastedNodes.add(other.getWastedNodes());
+        abandoned.add(other.getAbandoned());
+        covers.add(other.getCovers());
+        backtracks.add(other.getBacktracks());
+        maxDepth.accumulate(other.getMaxDepth());
+    }
+
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        restarts.reset();
+        wastedNodes.reset();
+        abandoned.reset();
+        covers.reset();
+        backtracks.reset();
+        maxDepth.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "searches=" + getSearches() + ", nodes=" + getNodes() + ", restarts=" + getRestarts()
+                + ", abandoned=" + getAbandoned() + ", wastedNodes=" + getWastedNodes() + ", covers=" + getCovers()
+                + ", backtracks=" + getBacktracks() + ", maxDepth=" + getMaxDepth();
+    }
+}
@@ -0,0 +1,26 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+/**
+ * The outcome of a capped solution count.
+ *
+ * @param count solutions found, never more than the cap
+ * @param cap the largest count the caller asked for
+ * @param cancelled the count was stopped from outside before it finished
+ * @param nodes search nodes visited by every branch together
+ * @param nanos wall clock time of the count
+ */
+public record SolutionCount(long count, long cap, boolean cancelled, long nodes, long nanos) {
+
+    public boolean isExact() { // the whole tree was searched, so count is every solution there is
+        return !cancelled && count < cap;
+    }
+
+    public boolean isCapped() { // there are at least cap solutions
+        return count >= cap;
+    }
+
+    public double nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,60 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel solution count. The top of the search tree is split the same way AlgorithmXTask splits
+ * it, every branch on its own snapshot of the matrix, but no branch may end the others by finding
+ * something: each one counts its whole subtree and adds every solution to a shared total as it
+ * finds it. Once the total reaches the cap, or the stop flag is set from outside, every branch
+ * gives up at its next node.
+ */
+public class SolutionCountTask extends RecursiveAction {
+    private final transient ArrayDancingLinks matrix; // owned by this task alone
+    private final transient AtomicLong found; // solutions counted by every task so far
+    private final transient AtomicBoolean stop; // set when the cap is reached or the count is cancelled
+    private final long cap;
+    private final int budget; // roughly how many tasks this branch may still be split into
+
+    public SolutionCountTask(ArrayDancingLinks matrix, AtomicLong found, AtomicBoolean stop, long cap, int budget) {
+        this.matrix = matrix;
+        this.found = found;
+        this.stop = stop;
+        this.cap = cap;
+        this.budget = budget;
+    }
+
+    @Override
+    protected void compute() {
+        if (stop.get()) {
+            return;
+        }
+
+        int[] rows = matrix.isSolved() ? new int[0] : matrix.branchRows();
+        while (rows.length == 1) { // a forced row is in every solution of this branch, take it without a split
+            matrix.select(rows[0]);
+            rows = matrix.isSolved() ? new int[0] : matrix.branchRows();
+        }
+
+        if (budget <= 1 || rows.length == 0) { // small enough, count this snapshot on this thread
+            matrix.shareCount(found, cap, stop); // every solution goes to the total right away, so the cap holds across branches
+            matrix.countSolutions(Integer.MAX_VALUE);
+            return;
+        }
+
+        List<SolutionCountTask> subtasks = new ArrayList<>(rows.length);
+        int childBudget = Math.max(1, budget / rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            // every branch but the last gets its own copy, the last one can reuse this matrix
+            ArrayDancingLinks branch = i < rows.length - 1 ? new ArrayDancingLinks(matrix) : matrix;
+            branch.select(rows[i]);
+            subtasks.add(new SolutionCountTask(branch, found, stop, cap, childBudget));
+        }
+        invokeAll(subtasks); // idle workers steal the branches that are still queued
+    }
+}
@@ -0,0 +1,116 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Every solution of an exact cover matrix, one at a time. The search is the same depth first
+ * search as ArrayDancingLinks.countSolutions, but it keeps its position on an explicit stack of
+ * levels instead of the call stack, so it can stop after each solution and carry on from there on
+ * the next call. Only the matrix and one level per chosen row are kept, however many solutions
+ * there are.
+ *
+ * <p>trySplit hands the rows not tried yet at the shallowest level that still has some to a new
+ * spliterator with its own copy of the matrix, so a parallel stream gets whole subtrees.
+ */
+public class SolutionSpliterator implements Spliterator<int[][]> {
+    private final ArrayDancingLinks matrix; // owned by this spliterator alone
+    private final Function<int[], int[][]> toBoard; // chosen matrix rows to a board
+    private final int[][] options; // rows of the branching column at every level
+    private final int[] next; // option tried at every level
+    private final int[] end; // options from here on belong to a split off spliterator
+    private final boolean[] selected; // the option at next is selected in the matrix
+    private int level; // deepest level, -1 once every solution has been handed out
+    private boolean rootSolved; // the matrix was solved before any row was chosen
+    private long estimate = Long.MAX_VALUE; // halved on every split, the real size is unknown
+
+    public SolutionSpliterator(ArrayDancingLinks matrix, Function<int[], int[][]> toBoard) {
+        this(matrix, toBoard, matrix.isSolved() ? null : matrix.branchRows());
+    }
+
+    private SolutionSpliterator(ArrayDancingLinks matrix, Function<int[], int[][]> toBoard, int[] rootOptions) {
+        this.matrix = matrix;
+        this.toBoard = toBoard;
+        int levels = matrix.getNumColumns() + 1; // every chosen row covers at least one column
+        this.options = new int[levels][];
+        this.next = new int[levels];
+        this.end = new int[levels];
+        this.selected = new boolean[levels];
+        this.rootSolved = rootOptions == null;
+        if (!rootSolved) {
+            options[0] = rootOptions;
+            end[0] = rootOptions.length;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[][]> action) {
+        if (rootSolved) {
+            rootSolved = false;
+            level = -1;
+            action.accept(toBoard.apply(matrix.getPartial()));
+            return true;
+        }
+        while (level >= 0) {
+            if (selected[level]) { // back out of the option tried last time
+                matrix.deselect(options[level][next[level]]);
+                selected[level] = false;
+                next[level]++;
+            }
+            if (next[level] >= end[level]) { // every option of this level is done, go back up
+                level--;
+                continue;
+            }
+
+            matrix.select(options[level][next[level]]);
+            selected[level] = true;
+            if (matrix.isSolved()) {
+                action.accept(toBoard.apply(matrix.getPartial()));
+                return true; // the next call carries on from here
+            }
+            int[] rows = matrix.branchRows(); // empty when some column can no longer be covered
+            level++;
+            options[level] = rows;
+            next[level] = 0;
+            end[level] = rows.length;
+            selected[level] = false;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<int[][]> trySplit() {
+        for (int l = 0; l <= level; l++) {
+            int untried = end[l] - (selected[l] ? next[l] + 1 : next[l]);
+            int give = selected[l] ? (untried + 1) / 2 : untried / 2; // keep at least one option to work on
+            if (give > 0) {
+                ArrayDancingLinks copy = new ArrayDancingLinks(matrix);
+                for (int m = level; m >= l; m--) { // the copy goes back to the node the options branch from
+                    if (selected[m]) {
+                        copy.deselect(options[m][next[m]]);
+                    }
+                }
+                int[] handedOff = Arrays.copyOfRange(options[l], end[l] - give, end[l]);
+                end[l] -= give;
+                estimate >>>= 1;
+                SolutionSpliterator split = new SolutionSpliterator(copy, toBoard, handedOff);
+                split.estimate = estimate;
+                return split;
+            }
+        }
+        return null; // nothing left to hand off
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,178 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Clue removal that checks several clues at once on a ForkJoinPool. The next clues of the removal
+ * order are checked as a batch, each on its own copy of the board. A clue that cannot go now
+ * never can, since every later removal only adds solutions, so those stay. The others are taken
+ * away together if the board is still unique without all of them. If it is not, the longest run
+ * of them, in removal order, that can go together is found by checking several run lengths at
+ * once. That run goes, the clue after it stays, and the rest are checked again in the next batch.
+ * Without a node budget this removes exactly the clues a one by one pass in the same order does.
+ */
+public class SpeculativeRemoval {
+    private static final int BATCH_PER_WORKER = 2; // clues checked per worker in one batch
+    private static final ThreadLocal<ExactCoverSolver> CHECKERS = // one solver per thread, each keeps its own matrices
+            ThreadLocal.withInitial(() -> new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random()));
+
+    private final ForkJoinPool pool;
+    private final int n;
+    private final int k;
+    private long nodeBudget = Long.MAX_VALUE;
+    private int checks; // uniqueness checks of the last removal
+
+    public SpeculativeRemoval(ForkJoinPool pool, int n, int k) {
+        this.pool = pool;
+        this.n = n;
+        this.k = k;
+    }
+
+    public void setNodeBudget(long nodeBudget) { // a check that runs out keeps its clues, Long.MAX_VALUE for no cap
+        this.nodeBudget = nodeBudget;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    /**
+     * Takes up to maxRemoved clues from a board with a unique solution, trying the cells in the
+     * order given, and returns how many went. The board stays unique.
+     */
+    public int remove(int[][] board, int[] order, int maxRemoved) {
+        int size = board.length;
+        int[] queue = new int[order.length];
+        int tail = 0;
+        for (int cell : order) {
+            if (board[cell / size][cell % size] != 0) {
+                queue[tail++] = cell;
+            }
+        }
+        int batchSize = Math.max(2, pool.getParallelism() * BATCH_PER_WORKER);
+        int head = 0;
+        int removed = 0;
+        checks = 0;
+        while (head < tail && removed < maxRemoved) {
+            int batch = Math.min(Math.min(batchSize, tail - head), maxRemoved - removed); // no more than can still go
+            List<int[]> alone = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                alone.add(new int[] {queue[head + i]});
+            }
+            head += batch;
+            boolean[] unique = check(board, alone);
+
+            int[] passed = new int[batch]; // clues that can go on their own, in removal order
+            int count = 0;
+            for (int i = 0; i < batch; i++) {
+                if (unique[i]) {
+                    passed[count++] = alone.get(i)[0];
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            int run = longestRun(board, passed, count);
+            for (int i = 0; i < run; i++) {
+                board[passed[i] / size][passed[i] % size] = 0;
+            }
+            removed += run;
+            int back = count - run - 1; // passed[run] stays, the ones after it are checked again
+            if (back > 0) {
+                head -= back;
+                System.arraycopy(passed, run + 1, queue, head, back);
+            }
+        }
+        return removed;
+    }
+
+    private int longestRun(int[][] board, int[] passed, int count) { // longest start of passed that can go together
+        int lo = 1; // known to go together
+        int hi = count + 1; // known not to, count + 1 stands for nothing found yet
+        boolean first = true;
+        while (hi - lo > 1) {
+            int[] lengths = first ? firstLengths(lo, count) : lengths(lo, hi, pool.getParallelism());
+            first = false;
+            List<int[]> runs = new ArrayList<>(lengths.length);
+            for (int length : lengths) {
+                int[] run = new int[length];
+                System.arraycopy(passed, 0, run, 0, length);
+                runs.add(run);
+            }
+            boolean[] unique = check(board, runs);
+            for (int i = 0; i < lengths.length; i++) { // a run that cannot go makes every longer run fail too
+                if (unique[i]) {
+                    lo = Math.max(lo, lengths[i]);
+                } else {
+                    hi = Math.min(hi, lengths[i]);
+                }
+            }
+        }
+        return lo;
+    }
+
+    private int[] firstLengths(int lo, int count) { // the whole list first, it often goes at once
+        int[] inner = lengths(lo, count, pool.getParallelism() - 1);
+        int[] lengths = new int[inner.length + 1];
+        System.arraycopy(inner, 0, lengths, 0, inner.length);
+        lengths[inner.length] = count;
+        return lengths;
+    }
+
+    private static int[] lengths(int lo, int hi, int workers) { // lengths strictly between lo and hi, spread evenly, one per worker
+        int parts = Math.min(workers, hi - lo - 1);
+        if (parts <= 0) {
+            return new int[0];
+        }
+        int[] lengths = new int[parts];
+        for (int j = 1; j <= parts; j++) {
+            lengths[j - 1] = lo + (int) ((long) (hi - lo) * j / (parts + 1));
+        }
+        return lengths;
+    }
+
+    private boolean[] check(int[][] board, List<int[]> removals) { // whether each removal keeps the board unique, checked in parallel
+        List<Callable<Boolean>> tasks = new ArrayList<>(removals.size());
+        for (int[] cells : removals) {
+            tasks.add(() -> {
+                int[][] copy = SolverAlgorithm.deepCopyBoard(board);
+                for (int cell : cells) {
+                    copy[cell / copy.length][cell % copy.length] = 0;
+                }
+                return CHECKERS.get().isProvenUnique(copy, n, k, nodeBudget);
+            });
+        }
+        checks += tasks.size();
+        boolean[] unique = new boolean[tasks.size()];
+        List<Future<Boolean>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < unique.length; i++) {
+            unique[i] = result(results.get(i));
+        }
+        return unique;
+    }
+
+    private static boolean result(Future<Boolean> check) { // a check that failed throws what it threw
+        try {
+            return check.get(); // done already, invokeAll waits for every task
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The complete exact cover matrix of an empty board, with a row for every (cell, value) pair. The
+ * matrix for each board shape is built once and shared as a read-only template. Each instance keeps
+ * its own working copy. A board is loaded by resetting the copy from the template and selecting
+ * the rows of its givens, so a uniqueness check costs only the search and allocates close to
+ * nothing.
+ */
+public class SudokuCoverMatrix {
+    private static final Map<AlgorithmXSolver.Shape, ArrayDancingLinks> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int digits;
+    private final ArrayDancingLinks template;
+    private final ArrayDancingLinks matrix;
+
+    public SudokuCoverMatrix(int size) { // square boxes
+        this((int) Math.sqrt(size), (int) Math.sqrt(size));
+    }
+
+    public SudokuCoverMatrix(int n, int k) { // k * k boxes of n by n cells
+        this.size = n * k;
+        this.digits = n * n;
+        this.template = TEMPLATES.computeIfAbsent(new AlgorithmXSolver.Shape(n, k), SudokuCoverMatrix::buildTemplate);
+        this.matrix = new ArrayDancingLinks(template);
+    }
+
+    private static ArrayDancingLinks buildTemplate(AlgorithmXSolver.Shape shape) {
+        int size = shape.n() * shape.k();
+        List<int[]> rows =
+                AlgorithmXSolver.createExactCoverFromBoard(
+                        new int[size][size], shape.n(), shape.k(), new ArrayList<>()); // rows come out in rowOf order
+        return new ArrayDancingLinks(rows, AlgorithmXSolver.secondaryColumns(shape.n(), shape.k()));
+    }
+
+    public int rowOf(int row, int col, int value) { // matrix row of placing value in (row, col)
+        return (row * size + col) * digits + value - 1;
+    }
+
+    public void reset() { // back to the empty board
+        matrix.restore(template);
+    }
+
+    public boolean place(int row, int col, int value) { // select a given, false if it clashes with the others
+        int matrixRow = rowOf(row, col, value);
+        if (!matrix.isRowAvailable(matrixRow)) {
+            return false;
+        }
+        matrix.select(matrixRow);
+        return true;
+    }
+
+    public void unplace(int row, int col, int value) { // undo the latest place()
+        matrix.deselect(rowOf(row, col, value));
+    }
+
+    public boolean load(int[][] board) { // reset and place every given, false if two givens clash
+        reset();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (board[i][j] != 0 && !place(i, j, board[i][j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int countSolutions(int limit) {
+        return matrix.countSolutions(limit);
+    }
+
+    public int countSolutions(int limit, long nodeBudget) { // gives up after the budget, see ArrayDancingLinks.isCutOff
+        return matrix.countSolutions(limit, nodeBudget);
+    }
+
+    public int[][] toBoard(int[] rows) { // convert matrix rows back to a board
+        int[][] board = new int[size][size];
+        for (int matrixRow : rows) {
+            int cell = matrixRow / digits;
+            board[cell / size][cell % size] = matrixRow % digits + 1;
+        }
+        return board;
+    }
+
+    public ArrayDancingLinks getMatrix() { // working copy, with every placed given selected
+        return matrix;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getDigits() { // digits 1 to n * n
+        return digits;
+    }
+}
@@ -0,0 +1,126 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.algorithmx;
+
+import java.util.Arrays;
+
+/**
+ * Decides whether a clue can be removed from a puzzle that has exactly one solution. The puzzle
+ * stays unique after the removal exactly when no other digit in the blanked cell leads to a
+ * solution, so only those digits are tried and each search stops at the first completion.
+ *
+ * <p>The givens stay selected in one cover matrix between removals. They are selected in reverse
+ * removal order, so the clue that is tested next is normally on top and can be deselected without
+ * touching the others.
+ */
+public class UniquenessOracle {
+    private final SudokuCoverMatrix coverMatrix;
+    private final int size;
+    private final int[][] board; // the puzzle as it is after the accepted removals
+    private final int[] stack; // cells of the selected givens, in selection order
+    private final int[] position; // index of each cell in the stack, -1 if it is blank
+    private final int[] lifted; // scratch buffer for givens taken off the stack temporarily
+    private int stackSize;
+    private long nodeBudget = Long.MAX_VALUE; // nodes one alternative may take before the clue is kept
+
+    /**
+     * @param coverMatrix matrix of the same shape as the board, it is reset and then owned by the oracle
+     * @param board a puzzle with exactly one solution, it is copied
+     * @param order the cells, as row * size + col, in the order they will be tried
+     */
+    public UniquenessOracle(SudokuCoverMatrix coverMatrix, int[][] board, int[] order) {
+        this.coverMatrix = coverMatrix;
+        this.size = board.length;
+        this.board = AlgorithmXSolver.deepSetSolutionBoard(board);
+        this.stack = new int[size * size];
+        this.position = new int[size * size];
+        this.lifted = new int[size * size];
+
+        boolean[] ordered = new boolean[size * size];
+        for (int cell : order) {
+            ordered[cell] = true;
+        }
+        Arrays.fill(position, -1);
+        coverMatrix.reset();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (!ordered[cell] && valueAt(cell) != 0) {
+                push(cell); // givens that are never tried go to the bottom
+            }
+        }
+        for (int i = order.length - 1; i >= 0; i--) {
+            if (valueAt(order[i]) != 0) {
+                push(order[i]); // the first cell to try ends up on top
+            }
+        }
+    }
+
+    public boolean tryRemove(int row, int col) { // blank the cell if the puzzle stays unique
+        int cell = row * size + col;
+        int value = board[row][col];
+        if (value == 0) {
+            return false;
+        }
+
+        int liftedCount = 0;
+        while (stackSize > position[cell] + 1) { // take off the givens selected after this one
+            int top = pop();
+            lifted[liftedCount++] = top;
+        }
+        pop();
+        for (int i = liftedCount - 1; i >= 0; i--) {
+            push(lifted[i]); // select them again in the same order
+        }
+
+        if (hasAlternative(row, col, value)) {
+            push(cell); // another digit fits, so the clue has to stay
+            return false;
+        }
+        board[row][col] = 0;
+        return true;
+    }
+
+    private boolean hasAlternative(int row, int col, int value) {
+        for (int v = 1; v <= coverMatrix.getDigits(); v++) {
+            if (v != value && coverMatrix.place(row, col, v)) {
+                boolean solvable = coverMatrix.countSolutions(1, nodeBudget) > 0; // the first completion is enough
+                solvable |= coverMatrix.getMatrix().isCutOff(); // not proven impossible, so the clue stays to be safe
+                coverMatrix.unplace(row, col, v);
+                if (solvable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void push(int cell) {
+        if (!coverMatrix.place(cell / size, cell % size, valueAt(cell))) {
+            throw new IllegalArgumentException("The givens on the board clash");
+        }
+        position[cell] = stackSize;
+        stack[stackSize++] = cell;
+    }
+
+    private int pop() {
+        int cell = stack[--stackSize];
+        coverMatrix.unplace(cell / size, cell % size, valueAt(cell));
+        position[cell] = -1;
+        return cell;
+    }
+
+    private int valueAt(int cell) {
+        return board[cell / size][cell % size];
+    }
+
+    /**
+     * Caps the search for an alternative digit. Proving that no alternative exists can take far
+     * longer on some boards than on others. A clue whose proof runs past the budget is kept, so the
+     * puzzle stays unique and only ends up with a clue more than it strictly needs.
+     */
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    public int[][] getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,183 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.bitboard;
+
+/**
+ * A standalone solver on CandidateMasks. Before every branch it fills in naked singles (cells with
+ * one candidate) and hidden singles (digits with one place left in a row, column or box) until
+ * nothing changes, then it branches on the empty cell with the fewest candidates. Every placement
+ * is recorded on a trail, so backtracking removes exactly the digits placed since the branch and
+ * nothing is copied. One instance can solve any number of boards of its shape, but only on one
+ * thread at a time.
+ */
+public class BitboardSolver {
+    private final CandidateMasks masks;
+    private final int size;
+    private final int[][] units; // cells of every row, column and box
+    private final boolean[] holdsAllDigits; // units that must contain every digit, not just at most once
+
+    private final int[] trail; // cells in the order they were filled
+    private int trailSize;
+    private int[][] solution; // first solution found by the last search
+    private int found;
+
+    public BitboardSolver(int n, int k) {
+        this.masks = new CandidateMasks(n, k);
+        this.size = n * k;
+        this.trail = new int[size * size];
+        this.units = new int[size + size + k * k][];
+        this.holdsAllDigits = new boolean[units.length];
+
+        int digits = n * n;
+        for (int i = 0; i < size; i++) {
+            units[i] = new int[size];
+            units[size + i] = new int[size];
+            for (int j = 0; j < size; j++) {
+                units[i][j] = i * size + j; // row i
+                units[size + i][j] = j * size + i; // column i
+            }
+            holdsAllDigits[i] = size == digits; // rows and columns are only complete when n == k
+            holdsAllDigits[size + i] = size == digits;
+        }
+        int[] filled = new int[k * k];
+        for (int b = 0; b < k * k; b++) {
+            units[2 * size + b] = new int[digits];
+            holdsAllDigits[2 * size + b] = true;
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int box = masks.boxOf(row, col);
+                units[2 * size + box][filled[box]++] = row * size + col;
+            }
+        }
+    }
+
+    public int[][] solve(int[][] board) { // the first solution, or null if there is none
+        return countSolutions(board, 1) == 1 ? solution : null;
+    }
+
+    public int countSolutions(int[][] board, int limit) { // count solutions, stopping when the limit is reached
+        found = 0;
+        solution = null;
+        trailSize = 0;
+        if (masks.load(board)) { // givens that clash have no solution
+            search(limit);
+        }
+        return found;
+    }
+
+    public CandidateMasks fillSingles(int[][] board) { // the board with every forced single filled in, null on a contradiction
+        trailSize = 0;
+        if (!masks.load(board) || !propagate()) {
+            return null;
+        }
+        return masks; // valid until this solver is used again
+    }
+
+    private void search(int limit) {
+        int mark = trailSize;
+        if (propagate()) {
+            int cell = chooseCell();
+            if (cell == -1) { // every cell is filled
+                if (found++ == 0) {
+                    solution = masks.toBoard();
+                }
+            } else {
+                for (int mask = masks.candidates(cell); mask != 0 && found < limit; mask &= mask - 1) {
+                    int branch = trailSize;
+                    fill(cell, CandidateMasks.digitOf(mask & -mask));
+                    search(limit);
+                    undo(branch);
+                }
+            }
+        }
+        undo(mark);
+    }
+
+    private boolean propagate() { // place singles until nothing changes, false on a contradiction
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = 0; cell < size * size; cell++) { // naked singles
+                if (masks.get(cell) == 0) {
+                    int mask = masks.candidates(cell);
+                    if (mask == 0) {
+                        return false;
+                    }
+                    if ((mask & (mask - 1)) == 0) {
+                        fill(cell, CandidateMasks.digitOf(mask));
+                        changed = true;
+                    }
+                }
+            }
+            for (int u = 0; u < units.length; u++) { // hidden singles
+                if (holdsAllDigits[u]) {
+                    int result = hiddenSingles(units[u]);
+                    if (result < 0) {
+                        return false;
+                    }
+                    changed |= result > 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int hiddenSingles(int[] unit) { // fill digits with one place left, -1 on a contradiction
+        int placed = 0;
+        int once = 0;
+        int twice = 0;
+        for (int cell : unit) {
+            int digit = masks.get(cell);
+            if (digit != 0) {
+                placed |= CandidateMasks.bitOf(digit);
+            } else {
+                int mask = masks.candidates(cell);
+                twice |= once & mask;
+                once |= mask;
+            }
+        }
+        if ((placed | once) != masks.getAllDigits()) {
+            return -1; // some digit has nowhere to go
+        }
+
+        int singles = once & ~twice;
+        int filled = 0;
+        for (; singles != 0; singles &= singles - 1) {
+            int bit = singles & -singles;
+            for (int cell : unit) {
+                if ((masks.candidates(cell) & bit) != 0) {
+                    fill(cell, CandidateMasks.digitOf(bit));
+                    filled++;
+                    break;
+                }
+            }
+        }
+        return filled == Integer.bitCount(once & ~twice) ? filled : -1; // a single lost its cell to another one
+    }
+
+    private int chooseCell() { // empty cell with the fewest candidates, -1 if the board is full
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < size * size && bestCount > 2; cell++) {
+            if (masks.get(cell) == 0) {
+                int count = Integer.bitCount(masks.candidates(cell));
+                if (count < bestCount) {
+                    best = cell;
+                    bestCount = count;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void fill(int cell, int digit) {
+        masks.place(cell, digit);
+        trail[trailSize++] = cell;
+    }
+
+    private void undo(int mark) { // remove every digit filled since the mark
+        while (trailSize > mark) {
+            masks.remove(trail[--trailSize]);
+        }
+    }
+}
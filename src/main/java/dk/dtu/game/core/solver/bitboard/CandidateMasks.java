@@ -0,0 +1,162 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.bitboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Candidates of every cell kept as bitmasks. Each row, column and box has one int where bit d - 1
+ * is set when digit d is placed in it, so the candidates of a cell are the digits missing from
+ * all three masks. Placing or removing a digit updates three masks, and looking up the candidates
+ * of a cell is a few bitwise operations instead of a scan of its row, column and box.
+ *
+ * <p>Boards follow the shape of Board: n x n boxes, n * k cells per side and n * n digits.
+ */
+public class CandidateMasks {
+    private final int n; // side of a box
+    private final int size; // side of the board
+    private final int boxesPerRow;
+    private final int allDigits; // one bit for every digit
+
+    private final int[] values; // the board, cell = row * size + col
+    private final int[] rowMask;
+    private final int[] colMask;
+    private final int[] boxMask;
+
+    public CandidateMasks(int n, int k) {
+        if (!fits(n)) {
+            throw new IllegalArgumentException("At most 31 digits fit in a mask");
+        }
+        this.n = n;
+        this.size = n * k;
+        this.boxesPerRow = k;
+        this.allDigits = (1 << (n * n)) - 1;
+        this.values = new int[size * size];
+        this.rowMask = new int[size];
+        this.colMask = new int[size];
+        this.boxMask = new int[k * k];
+    }
+
+    public static boolean fits(int n) { // true if the n * n digits of the shape fit in an int mask
+        return n * n <= Integer.SIZE - 1;
+    }
+
+    public static CandidateMasks of(int[][] board, int n) { // masks of a board, givens that clash are all kept
+        CandidateMasks masks = new CandidateMasks(n, board.length / n);
+        masks.load(board);
+        return masks;
+    }
+
+    public boolean load(int[][] board) { // clear and place every given, false if two givens clash
+        Arrays.fill(values, 0);
+        Arrays.fill(rowMask, 0);
+        Arrays.fill(colMask, 0);
+        Arrays.fill(boxMask, 0);
+        boolean consistent = true;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int digit = board[row][col];
+                if (digit != 0) {
+                    int cell = row * size + col;
+                    consistent &= canPlace(cell, digit);
+                    place(cell, digit);
+                }
+            }
+        }
+        return consistent;
+    }
+
+    public int candidates(int cell) { // mask of the digits that can go in an empty cell, 0 if it is filled
+        if (values[cell] != 0) {
+            return 0;
+        }
+        int row = cell / size;
+        int col = cell % size;
+        return allDigits & ~(rowMask[row] | colMask[col] | boxMask[boxOf(row, col)]);
+    }
+
+    public int candidates(int row, int col) {
+        return candidates(row * size + col);
+    }
+
+    public List<Integer> candidateList(int row, int col) { // the candidates in increasing order
+        List<Integer> digits = new ArrayList<>();
+        for (int mask = candidates(row, col); mask != 0; mask &= mask - 1) {
+            digits.add(digitOf(mask & -mask));
+        }
+        return digits;
+    }
+
+    public boolean canPlace(int cell, int digit) {
+        return (candidates(cell) & bitOf(digit)) != 0;
+    }
+
+    public void place(int cell, int digit) {
+        int row = cell / size;
+        int col = cell % size;
+        int bit = bitOf(digit);
+        values[cell] = digit;
+        rowMask[row] |= bit;
+        colMask[col] |= bit;
+        boxMask[boxOf(row, col)] |= bit;
+    }
+
+    public void remove(int cell) { // undo place(), only valid when the digit is placed once in each unit
+        int row = cell / size;
+        int col = cell % size;
+        int bit = bitOf(values[cell]);
+        values[cell] = 0;
+        rowMask[row] &= ~bit;
+        colMask[col] &= ~bit;
+        boxMask[boxOf(row, col)] &= ~bit;
+    }
+
+    public int rowDigits(int row) { // mask of the digits placed in a row
+        return rowMask[row];
+    }
+
+    public int colDigits(int col) {
+        return colMask[col];
+    }
+
+    public int boxDigits(int box) {
+        return boxMask[box];
+    }
+
+    public int boxOf(int row, int col) {
+        return (row / n) * boxesPerRow + col / n;
+    }
+
+    public int get(int cell) {
+        return values[cell];
+    }
+
+    public int[][] toBoard() {
+        int[][] board = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(values, row * size, board[row], 0, size);
+        }
+        return board;
+    }
+
+    public static int bitOf(int digit) {
+        return 1 << (digit - 1);
+    }
+
+    public static int digitOf(int bit) { // digit of a mask with a single bit set
+        return Integer.numberOfTrailingZeros(bit) + 1;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getAllDigits() {
+        return allDigits;
+    }
+}
@@ -0,0 +1,202 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.bitboard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Every solved grid of a small board shape, each stored as one long. Bit (d - 1) * cells + cell
+ * is set when digit d is in that cell, so a board matches a grid when all the bits of its givens
+ * are set in the grid. Solving, counting and uniqueness checks are then a scan over a few hundred
+ * longs instead of a search.
+ *
+ * <p>Only shapes with at most 64 (digit, cell) pairs fit, which are the 2 x 2 boxes: one box
+ * (24 grids) and the 4 x 4 board (288 grids). A table is enumerated the first time it is needed
+ * and kept in a gzipped file in the cache directory, so later runs only read it back.
+ */
+public final class SolutionTable {
+    private static final Logger logger = LoggerFactory.getLogger(SolutionTable.class);
+    private static final Map<Long, SolutionTable> TABLES = new ConcurrentHashMap<>(); // one per shape, keyed by n << 32 | k
+    private static volatile Path cacheDirectory = Path.of(System.getProperty("java.io.tmpdir"), "sudoku-solution-tables");
+
+    private final int n;
+    private final int k;
+    private final int size;
+    private final int cells;
+    private final long[] grids;
+
+    private SolutionTable(int n, int k, long[] grids) {
+        this.n = n;
+        this.k = k;
+        this.size = n * k;
+        this.cells = size * size;
+        this.grids = grids;
+    }
+
+    public static boolean supports(int n, int k) { // true if every (digit, cell) pair of the shape fits in a long
+        int size = n * k;
+        return k >= 1 && k <= n && n * n * size * size <= Long.SIZE;
+    }
+
+    public static SolutionTable of(int n, int k) { // the table of a shape, null if it does not fit
+        if (!supports(n, k)) {
+            return null;
+        }
+        return TABLES.computeIfAbsent(((long) n << 32) | k, key -> load(cacheDirectory, n, k));
+    }
+
+    public static void setCacheDirectory(Path directory) { // where tables are kept between runs
+        cacheDirectory = directory;
+    }
+
+    public static SolutionTable load(Path directory, int n, int k) { // read the table from a directory, or build and save it there
+        Path file = directory.resolve(n + "x" + k + ".gz");
+        if (Files.exists(file)) {
+            try {
+                return read(file, n, k);
+            } catch (IOException e) {
+                logger.warn("Solution table {} could not be read, building it again: {}", file, e.getMessage());
+            }
+        }
+        SolutionTable table = new SolutionTable(n, k, enumerate(n, k));
+        try {
+            Files.createDirectories(directory);
+            table.write(file);
+        } catch (IOException e) {
+            logger.warn("Solution table {} could not be saved: {}", file, e.getMessage()); // the table still works, it is just built again next run
+        }
+        return table;
+    }
+
+    private static SolutionTable read(Path file, int n, int k) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != n || in.readInt() != k) {
+                throw new IOException("table is for another shape");
+            }
+            long[] grids = new long[in.readInt()];
+            int cells = n * k * n * k;
+            for (int i = 0; i < grids.length; i++) {
+                grids[i] = in.readLong();
+                if (Long.bitCount(grids[i]) != cells) {
+                    throw new IOException("grid " + i + " is not a full board"); // a damaged file
+                }
+            }
+            return new SolutionTable(n, k, grids);
+        }
+    }
+
+    private void write(Path file) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(n);
+            out.writeInt(k);
+            out.writeInt(grids.length);
+            for (long grid : grids) {
+                out.writeLong(grid);
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING); // readers never see half a file
+    }
+
+    private static long[] enumerate(int n, int k) { // every solved grid, cell by cell
+        CandidateMasks masks = new CandidateMasks(n, k);
+        List<Long> grids = new ArrayList<>();
+        fillFrom(masks, 0, n * k * n * k, grids);
+        return grids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void fillFrom(CandidateMasks masks, int cell, int cells, List<Long> grids) {
+        if (cell == cells) {
+            long grid = 0;
+            for (int c = 0; c < cells; c++) {
+                grid |= 1L << ((masks.get(c) - 1) * cells + c);
+            }
+            grids.add(grid);
+            return;
+        }
+        for (int mask = masks.candidates(cell); mask != 0; mask &= mask - 1) {
+            masks.place(cell, CandidateMasks.digitOf(mask & -mask));
+            fillFrom(masks, cell + 1, cells, grids);
+            masks.remove(cell);
+        }
+    }
+
+    private long givens(int[][] board) { // bits of the givens, -1 if some value is not a digit of this shape
+        long givens = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int digit = board[row][col];
+                if (digit < 0 || digit > n * n) {
+                    return -1;
+                }
+                if (digit != 0) {
+                    givens |= 1L << ((digit - 1) * cells + row * size + col);
+                }
+            }
+        }
+        return givens;
+    }
+
+    public int countSolutions(int[][] board, int limit) { // count matching grids, stopping when the limit is reached
+        long givens = givens(board);
+        int found = 0;
+        for (int i = 0; i < grids.length && found < limit && givens != -1; i++) {
+            if ((grids[i] & givens) == givens) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public int[][] solve(int[][] board, Random random) { // a random solution, or null if there is none
+        long givens = givens(board);
+        if (givens == -1) {
+            return null;
+        }
+        int matches = 0;
+        long chosen = 0;
+        for (long grid : grids) {
+            if ((grid & givens) == givens && random.nextInt(++matches) == 0) {
+                chosen = grid; // reservoir sampling, every match has the same chance
+            }
+        }
+        return matches == 0 ? null : toBoard(chosen);
+    }
+
+    public Stream<int[][]> solutions(int[][] board) { // every solution, in table order
+        long givens = givens(board);
+        if (givens == -1) {
+            return Stream.empty();
+        }
+        return LongStream.of(grids).filter(grid -> (grid & givens) == givens).mapToObj(this::toBoard);
+    }
+
+    private int[][] toBoard(long grid) {
+        int[][] board = new int[size][size];
+        for (long bits = grid; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            int cell = bit % cells;
+            board[cell / size][cell % size] = bit / cells + 1;
+        }
+        return board;
+    }
+
+    public int size() { // number of solved grids of the shape
+        return grids.length;
+    }
+}
@@ -235,7 +235,7 @@ public class BruteForceAlgorithm { // outdatex solver, heuristic solver and algo
                         List<Integer> possiblePlacements =
                                 SolverAlgorithm.getPossiblePlacements(board, i, j, n);
                         if (possiblePlacements.size() == 1) {
-                            board[i][j] = possiblePlacements.getFirst();
+                            board[i][j] = possiblePlacements.get(0);
                             changed = true;
                         }
                     }
@@ -0,0 +1,484 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.heuristicsolver;
+
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Forward checking with conflict-directed backjumping (FC-CBJ) over the empty cells of a board.
+ * Every cell filled by the search gets a depth. When a value is placed, it is taken out of the
+ * domains of the empty peers, and each peer remembers which depths took values from it. When
+ * every value of a cell fails, the search jumps straight back to the deepest depth that took part
+ * in one of the failures and skips the depths in between, which had nothing to do with it. The
+ * depths involved are kept as bit sets in long arrays. Only failures that cannot involve a depth
+ * are skipped, so the search still finds a solution whenever there is one.
+ *
+ * <p>A box holds every digit once, so a digit that has no place left in a box is a failure too,
+ * and a digit with a single place left in a box fills that cell next. Otherwise cells are picked
+ * by minimum remaining values with the most empty peers as the tie break, and the values of a cell
+ * are tried least constraining first, like the rest of HeuristicSolver.
+ *
+ * <p>None of this is counted again at a node. The empty cells sit in one list per domain size,
+ * every cell knows how many of its peers are empty, and every box knows how many places each digit
+ * has left, and all of it is updated as values are placed and taken back. The values a depth takes
+ * out of domains go on a trail, which is rolled back to the depth's checkpoint on backtrack. A
+ * search is built once per board shape and reused, so solving allocates nothing.
+ */
+class ConflictDirectedSearch {
+    private static final int SOLVED = -1;
+    private static final int UNSOLVABLE = -2;
+
+    private final int n;
+    private final int k;
+    private final int cells;
+    private final int digits;
+    private final int[][] peers; // cells sharing a row, column or box with every cell
+    private final int words; // longs in a depth set
+    private final int[] boxOf; // box of every cell
+    private final int[][] boxCells; // cells of every box
+
+    private final int[] value; // digit of every cell, 0 while empty
+    private final int[] domain; // candidates of every empty cell, bit d - 1 for digit d
+    private final int[] cellAt; // cell filled at every depth
+    private final int[] depthOf; // depth every cell was filled at, -1 for the givens
+    private final int[][] orderAt; // digits of that cell in the order they are tried
+    private final int[] ruledOut; // scratch for the least constraining value order
+    private final long[][] conflicts; // depths the failures at every depth were caused by
+    private final long[][] prunedBy; // depths that took values out of every cell's domain
+
+    private final int[] trailCell; // cells whose domain lost a value, in order
+    private final int[] trailStart; // where the trail of every depth starts
+    private int trailSize;
+
+    private final int[] bucketHead; // first empty cell with every domain size, -1 if there is none
+    private final int[] next; // next and previous empty cell with the same domain size
+    private final int[] prev;
+    private final int[] emptyPeers; // empty peers of every cell
+    private final int[] places; // empty cells of a box a digit still fits in, at box * digits + d - 1
+    private final int[] once; // per box, the digits with a single place left
+    private final int[] nowhere; // per box, the digits with no place left
+    private final int[] placed; // per box, the digits on the board
+
+    private Random random;
+    private int empties;
+    private int forced; // digit with a single place left in a box, 0 if there is none
+    private long nodes;
+    private long labels; // cells the last solve picked to fill, one per level of the recursion
+
+    ConflictDirectedSearch(int n, int k) {
+        if (!CandidateMasks.fits(n)) {
+            throw new IllegalArgumentException("At most 31 digits fit in a domain mask");
+        }
+        this.n = n;
+        this.k = k;
+        int size = n * k;
+        this.cells = size * size;
+        this.digits = n * n;
+        this.peers = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            peers[cell] = peersOf(cell, n, size);
+        }
+        this.words = (cells + Long.SIZE - 1) / Long.SIZE;
+        this.boxOf = new int[cells];
+        this.boxCells = new int[k * k][digits];
+        int[] filled = new int[k * k];
+        for (int cell = 0; cell < cells; cell++) {
+            int box = cell / size / n * k + cell % size / n;
+            boxOf[cell] = box;
+            boxCells[box][filled[box]++] = cell;
+        }
+        this.value = new int[cells];
+        this.domain = new int[cells];
+        this.cellAt = new int[cells];
+        this.depthOf = new int[cells];
+        this.orderAt = new int[cells][digits];
+        this.ruledOut = new int[digits];
+        this.conflicts = new long[cells][words];
+        this.prunedBy = new long[cells][words];
+        this.trailCell = new int[cells * peers[0].length];
+        this.trailStart = new int[cells + 1];
+        this.bucketHead = new int[digits + 1];
+        this.next = new int[cells];
+        this.prev = new int[cells];
+        this.emptyPeers = new int[cells];
+        this.places = new int[k * k * digits];
+        this.once = new int[k * k];
+        this.nowhere = new int[k * k];
+        this.placed = new int[k * k];
+    }
+
+    private static int[] peersOf(int cell, int n, int size) {
+        int row = cell / size;
+        int col = cell % size;
+        int[] found = new int[3 * size + n * n];
+        int count = 0;
+        for (int other = 0; other < size * size; other++) {
+            int r = other / size;
+            int c = other % size;
+            boolean sameBox = r / n == row / n && c / n == col / n;
+            if (other != cell && (r == row || c == col || sameBox)) {
+                found[count++] = other;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    boolean fits(int n, int k) { // true if the search was built for this shape
+        return this.n == n && this.k == k;
+    }
+
+    /**
+     * Fills the empty cells of a board, given as digits with 0 for empty, and the candidate masks
+     * of the empty cells. Returns false if the board has no solution, which the search proves.
+     */
+    boolean solve(int[] board, int[] candidates, Random random) {
+        this.random = random;
+        empties = 0;
+        trailSize = 0;
+        nodes = 0;
+        labels = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            value[cell] = board[cell];
+            domain[cell] = board[cell] == 0 ? candidates[cell] : 0;
+            depthOf[cell] = -1;
+            Arrays.fill(prunedBy[cell], 0);
+            if (board[cell] == 0) {
+                empties++;
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) { // the givens take their digits out of their peers' domains
+            if (value[cell] != 0) {
+                for (int peer : peers[cell]) {
+                    if (value[peer] == value[cell]) {
+                        return false; // two givens clash
+                    }
+                    domain[peer] &= ~(1 << (value[cell] - 1));
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (value[cell] == 0 && domain[cell] == 0) {
+                return false; // an empty cell without candidates before the search even starts
+            }
+        }
+        count();
+        if (boxWithoutPlace() != -1) {
+            return false; // or a digit without a place in some box
+        }
+
+        if (label(0) != SOLVED) {
+            return false;
+        }
+        System.arraycopy(value, 0, board, 0, cells);
+        return true;
+    }
+
+    long getNodes() { // cells filled by the last solve, failed attempts included
+        return nodes;
+    }
+
+    long getLabels() { // recursive calls of the last solve, kept per search so solves on other threads do not race
+        return labels;
+    }
+
+    private void count() { // the buckets, empty peers and places of the board the search starts from
+        Arrays.fill(bucketHead, -1);
+        Arrays.fill(places, 0);
+        Arrays.fill(placed, 0);
+        for (int cell = 0; cell < cells; cell++) {
+            emptyPeers[cell] = 0;
+            for (int peer : peers[cell]) {
+                if (value[peer] == 0) {
+                    emptyPeers[cell]++;
+                }
+            }
+            if (value[cell] == 0) {
+                link(cell);
+                for (int mask = domain[cell]; mask != 0; mask &= mask - 1) {
+                    places[boxOf[cell] * digits + Integer.numberOfTrailingZeros(mask)]++;
+                }
+            } else {
+                placed[boxOf[cell]] |= 1 << (value[cell] - 1);
+            }
+        }
+        for (int box = 0; box < placed.length; box++) {
+            once[box] = 0;
+            nowhere[box] = 0;
+            for (int d = 0; d < digits; d++) {
+                if (places[box * digits + d] == 1) {
+                    once[box] |= 1 << d;
+                } else if (places[box * digits + d] == 0) {
+                    nowhere[box] |= 1 << d;
+                }
+            }
+        }
+    }
+
+    private int label(int depth) { // SOLVED, UNSOLVABLE, or the depth to jump back to
+        if (depth == empties) {
+            return SOLVED;
+        }
+        labels++;
+        int cell = chooseCell();
+        cellAt[depth] = cell;
+        long[] conflict = conflicts[depth];
+        System.arraycopy(prunedBy[cell], 0, conflict, 0, words); // the values this cell lost are part of every failure here
+
+        int[] order = orderAt[depth];
+        int count = leastConstrainingOrder(cell, order);
+        fill(cell, depth);
+        for (int i = 0; i < count; i++) {
+            int digit = order[i];
+            nodes++;
+            value[cell] = digit;
+            placed[boxOf[cell]] |= 1 << (digit - 1);
+            int wipedOut = forwardCheck(depth, cell, digit);
+            int box = wipedOut == -1 ? boxWithoutPlace() : -1;
+            if (box != -1) {
+                undo(depth);
+                orBox(conflict, box); // the depths that filled or pruned that box, together with this one
+                clear(conflict, depth); // this cell is still in the box, but trying its next value is not a jump
+            } else if (wipedOut == -1) {
+                int jump = label(depth + 1);
+                if (jump == SOLVED) {
+                    return SOLVED;
+                }
+                undo(depth);
+                if (jump != depth) { // the failure below had nothing to do with this cell, keep jumping
+                    empty(cell);
+                    return jump;
+                }
+            } else {
+                undo(depth);
+                or(conflict, prunedBy[wipedOut]); // the depths that emptied that domain, together with this one
+            }
+        }
+        empty(cell);
+
+        int back = highest(conflict);
+        if (back < 0) {
+            return UNSOLVABLE; // no earlier choice is involved, so the board itself has no solution
+        }
+        or(conflicts[back], conflict);
+        clear(conflicts[back], back);
+        return back;
+    }
+
+    private void fill(int cell, int depth) { // the cell leaves its bucket, its candidates leave its box, and its peers lose an empty peer
+        depthOf[cell] = depth;
+        unlink(cell);
+        for (int mask = domain[cell]; mask != 0; mask &= mask - 1) {
+            lose(cell, mask & -mask);
+        }
+        for (int peer : peers[cell]) {
+            emptyPeers[peer]--;
+        }
+    }
+
+    private void empty(int cell) { // undoes fill once the cell is given up
+        value[cell] = 0;
+        for (int mask = domain[cell]; mask != 0; mask &= mask - 1) {
+            gain(cell, mask & -mask);
+        }
+        link(cell);
+        for (int peer : peers[cell]) {
+            emptyPeers[peer]++;
+        }
+    }
+
+    private int forwardCheck(int depth, int cell, int digit) { // -1, or an empty peer that lost its last candidate
+        trailStart[depth] = trailSize;
+        int bit = 1 << (digit - 1);
+        int wipedOut = -1;
+        for (int peer : peers[cell]) {
+            if (value[peer] == 0 && (domain[peer] & bit) != 0) {
+                unlink(peer);
+                domain[peer] &= ~bit;
+                link(peer);
+                lose(peer, bit);
+                prunedBy[peer][depth >>> 6] |= 1L << depth;
+                trailCell[trailSize++] = peer;
+                if (domain[peer] == 0 && wipedOut == -1) {
+                    wipedOut = peer;
+                }
+            }
+        }
+        return wipedOut;
+    }
+
+    private void undo(int depth) { // give back every candidate taken at this depth
+        int cell = cellAt[depth];
+        int bit = 1 << (value[cell] - 1);
+        while (trailSize > trailStart[depth]) {
+            int peer = trailCell[--trailSize];
+            unlink(peer);
+            domain[peer] |= bit;
+            link(peer);
+            gain(peer, bit);
+            prunedBy[peer][depth >>> 6] &= ~(1L << depth);
+        }
+        placed[boxOf[cell]] &= ~bit;
+    }
+
+    private void link(int cell) { // put an empty cell first in the bucket of its domain size
+        int size = Integer.bitCount(domain[cell]);
+        int head = bucketHead[size];
+        next[cell] = head;
+        prev[cell] = -1;
+        if (head != -1) {
+            prev[head] = cell;
+        }
+        bucketHead[size] = cell;
+    }
+
+    private void unlink(int cell) { // take an empty cell out of its bucket, before its domain changes
+        if (prev[cell] != -1) {
+            next[prev[cell]] = next[cell];
+        } else {
+            bucketHead[Integer.bitCount(domain[cell])] = next[cell];
+        }
+        if (next[cell] != -1) {
+            prev[next[cell]] = prev[cell];
+        }
+    }
+
+    private void lose(int cell, int bit) { // the digit no longer fits in the cell
+        int box = boxOf[cell];
+        int left = --places[box * digits + Integer.numberOfTrailingZeros(bit)];
+        if (left == 1) {
+            once[box] |= bit;
+        } else if (left == 0) {
+            once[box] &= ~bit;
+            nowhere[box] |= bit;
+        }
+    }
+
+    private void gain(int cell, int bit) { // the digit fits in the cell again
+        int box = boxOf[cell];
+        int left = ++places[box * digits + Integer.numberOfTrailingZeros(bit)];
+        if (left == 1) {
+            nowhere[box] &= ~bit;
+            once[box] |= bit;
+        } else if (left == 2) {
+            once[box] &= ~bit;
+        }
+    }
+
+    private int boxWithoutPlace() { // -1, or a box where some digit fits nowhere
+        for (int box = 0; box < placed.length; box++) {
+            if ((nowhere[box] & ~placed[box]) != 0) {
+                return box;
+            }
+        }
+        return -1;
+    }
+
+    private void orBox(long[] conflict, int box) {
+        for (int cell : boxCells[box]) {
+            if (value[cell] == 0) {
+                or(conflict, prunedBy[cell]);
+            } else if (depthOf[cell] >= 0) {
+                conflict[depthOf[cell] >>> 6] |= 1L << depthOf[cell];
+            }
+        }
+    }
+
+    private int hiddenSingle() { // -1, or a cell holding the only place left for a digit in its box
+        for (int box = 0; box < placed.length; box++) {
+            int single = once[box] & ~placed[box];
+            if (single != 0) {
+                int bit = single & -single;
+                for (int cell : boxCells[box]) {
+                    if (value[cell] == 0 && (domain[cell] & bit) != 0) {
+                        forced = Integer.numberOfTrailingZeros(bit) + 1;
+                        return cell;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int chooseCell() { // a naked or hidden single, else minimum remaining values, then the most empty peers
+        forced = 0;
+        if (bucketHead[1] != -1) {
+            return bucketHead[1];
+        }
+        int single = hiddenSingle();
+        if (single != -1) {
+            return single;
+        }
+        int size = 2;
+        while (bucketHead[size] == -1) {
+            size++;
+        }
+        int best = bucketHead[size];
+        for (int cell = next[best]; cell != -1; cell = next[cell]) {
+            if (emptyPeers[cell] > emptyPeers[best]) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    private int leastConstrainingOrder(int cell, int[] digits) { // digits of the domain in a random order, then by how many peers they rule out
+        int count = Integer.bitCount(domain[cell]);
+        int i = 0;
+        for (int mask = domain[cell]; mask != 0; mask &= mask - 1) {
+            digits[i++] = Integer.numberOfTrailingZeros(mask) + 1;
+        }
+        for (i = count - 1; i > 0; i--) { // shuffle, so ties come out in a random order
+            int j = random.nextInt(i + 1);
+            int temp = digits[i];
+            digits[i] = digits[j];
+            digits[j] = temp;
+        }
+        for (i = 0; i < count; i++) {
+            ruledOut[i] = 0;
+            int bit = 1 << (digits[i] - 1);
+            for (int peer : peers[cell]) {
+                if (value[peer] == 0 && (domain[peer] & bit) != 0) {
+                    ruledOut[i]++;
+                }
+            }
+        }
+        for (i = 1; i < count; i++) { // stable insertion sort, the domains are small
+            int digit = digits[i];
+            int key = ruledOut[i];
+            int j = i - 1;
+            for (; j >= 0 && ruledOut[j] > key; j--) {
+                digits[j + 1] = digits[j];
+                ruledOut[j + 1] = ruledOut[j];
+            }
+            digits[j + 1] = digit;
+            ruledOut[j + 1] = key;
+        }
+        for (i = count - 1; i > 0 && forced != 0; i--) { // a forced digit goes first, the others are only tried if it fails
+            if (digits[i] == forced) {
+                digits[i] = digits[i - 1];
+                digits[i - 1] = forced;
+            }
+        }
+        return count;
+    }
+
+    private static void or(long[] into, long[] from) {
+        for (int w = 0; w < into.length; w++) {
+            into[w] |= from[w];
+        }
+    }
+
+    private static void clear(long[] set, int depth) {
+        set[depth >>> 6] &= ~(1L << depth);
+    }
+
+    private static int highest(long[] set) { // deepest depth in the set, -1 if it is empty
+        for (int w = set.length - 1; w >= 0; w--) {
+            if (set[w] != 0) {
+                return w * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(set[w]);
+            }
+        }
+        return -1;
+    }
+}
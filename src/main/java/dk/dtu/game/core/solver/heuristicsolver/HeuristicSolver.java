@@ -2,19 +2,21 @@ package dk.dtu.game.core.solver.heuristicsolver;
 
 import dk.dtu.game.core.Board;
 import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.SudokuCoverMatrix;
+import dk.dtu.game.core.solver.algorithmx.UniquenessOracle;
 
 import java.util.*;
 
 public class HeuristicSolver { // Class for solving the sudoku puzzle using a heuristic approach
     static Random random = new Random();
-    static int recursionCount;
+    private static final ThreadLocal<ConflictDirectedSearch> search = new ThreadLocal<>(); // reused while the shape stays the same
 
 
     public static void createPlayableSudoku (Board board) { // Create a playable sudoku game
         int n = board.getN(); // Get the size of the subgrid
         int k = board.getK(); // Get the size of the grid
         int[][][] possiblePlacements = createSetFromBoard(board, n, k); // Create a set of possible placements
-        fillBoard(possiblePlacements, n, k, new HashSet<>(), new HashMap<>()); // Fill the board with a solution
+        fillBoard(possiblePlacements, n, k); // Fill the board with a solution
         int [][] playableSudoku = deepCopy3DBoard(possiblePlacements, n, k); // extract the solution from the 3-dimensional board
         board.setSolvedBoard(playableSudoku); // send the solved board to board for easy storage
 
@@ -149,94 +151,53 @@ public class HeuristicSolver { // Class for solving the sudoku puzzle using a he
 
 
 
-    public static boolean fillBoard(int[][][] arr, int subgrid, int gridSize, Set<int[]> conflictSet, Map<String, Integer> conflictMap) {
-        recursionCount++; // Increment the recursion count, only used for test-purposes
+    /**
+     * Fills the empty cells of the 3-dimensional board with a solution, see ConflictDirectedSearch.
+     * The search is complete, so false means the board has no solution, and then the board is left
+     * as it was.
+     */
+    public static boolean fillBoard(int[][][] arr, int subgrid, int gridSize) {
         int boardLength = subgrid * gridSize;
+        int[] board = new int[boardLength * boardLength];
+        int[] candidates = new int[boardLength * boardLength];
+        toMasks(arr, board, candidates);
 
-
-            boolean isChanged = true; // boolean value to ensure function only exits when no more placements can be made
-
-            // Initial pass to make obvious placements
-            while (isChanged) { // while placements can be made
-                isChanged = false;
-                for (int i = 0; i < boardLength; i++) {
-                    for (int j = 0; j < boardLength; j++) { // run through each cell in the board
-                        if (placementCount(arr[i][j]) == 1 && arr[i][j][0] == 0) { // if the cell has only one possible placement, or is empty
-                            int value = placeableValue(arr[i][j]);  // get the placement value
-                            arr[i][j][0] = value; // place the value in the cell
-                            removePossiblePlacements(arr, i, j, value, subgrid, gridSize); // remove this value as a possible placement from the row, column and subgrid
-                            isChanged = true; // a change has been made
-                        }
-                    }
-                }
-            }
-
-        if (isFullyFilled(arr)) { // if the board is fully filled end the recursion
-            return true;
-        }
-        // Find the cell with the minimum remaining values (MRV) and highest degree
-        int[] mrvCell = findMRVAndHighestDegreeCell(arr, subgrid, gridSize, conflictMap); // find the cell with the minimum remaining values and highest degree
-
-        if (mrvCell == null) { // if no cell is found, return false
+        if (!searchFor(subgrid, gridSize).solve(board, candidates, random)) {
             return false;
         }
-
-        int row = mrvCell[0];
-        int col = mrvCell[1];
-        List<Integer> possibleValues = getLCV(arr, row, col, subgrid, gridSize);
-        Collections.shuffle(possibleValues, random); // Shuffle possible values to introduce randomness
-
-        for (int value : possibleValues) {
-            int[][][] arrCopy = copyBoard(arr); // Make a copy of the board
-            arrCopy[row][col][0] = value; // Place the value in the copy
-            removePossiblePlacements(arrCopy, row, col, value, subgrid, gridSize);
-
-            boolean consistent = isConsistent(arrCopy, subgrid, gridSize); // Perform forward checking
-
-            if (consistent && fillBoard(arrCopy, subgrid, gridSize, conflictSet, conflictMap)) {
-                // If the recursive call returns true, copy the solution back to the original array
-                for (int r = 0; r < arr.length; r++) {
-                    for (int c = 0; c < arr[r].length; c++) {
-                        arr[r][c] = arrCopy[r][c].clone();
-                    }
-                }
-                return true;
-            }
-            conflictSet.add(new int[]{row, col}); // Add the cell to the conflict set
-            String conflictKey = row + "-" + col + "-" + value;
-            conflictMap.put(conflictKey, conflictMap.getOrDefault(conflictKey, 0) + 1); // Add the conflict to the conflict map
-
-            // Backjumping
-            if (conflictMap.get(conflictKey) > 1) { // If the conflict has occurred more than once
-                return false;
-            }
-        }
-        return false; // If no placement leads to a solution, return false for backtracking
-    }
-
-    private static boolean isConsistent(int[][][] arr, int subgrid, int gridSize) {
-        int boardLength = subgrid * gridSize;
-
         for (int i = 0; i < boardLength; i++) {
             for (int j = 0; j < boardLength; j++) {
-                if (arr[i][j][0] == 0 && placementCount(arr[i][j]) == 0) { // If a cell is empty and has no possible placements
-                    return false;
+                if (arr[i][j][0] == 0) {
+                    arr[i][j][0] = board[i * boardLength + j];
+                    removePossiblePlacements(arr, i, j, arr[i][j][0], subgrid, gridSize); // keep the possible placements in step with the board
                 }
             }
         }
         return true;
     }
 
-    private static int[][][] copyBoard(int[][][] arr) {
-        int[][][] copy = new int[arr.length][arr[0].length][arr[0][0].length];
+    private static void toMasks(int[][][] arr, int[] board, int[] candidates) { // the digits and possible placements of every cell, row by row
         for (int i = 0; i < arr.length; i++) {
-            for (int j = 0; j < arr[i].length; j++) {
-                for (int k = 0; k < arr[i][j].length; k++) {
-                    copy[i][j][k] = arr[i][j][k];
+            for (int j = 0; j < arr.length; j++) {
+                int cell = i * arr.length + j;
+                board[cell] = arr[i][j][0];
+                candidates[cell] = 0;
+                for (int value = 1; value < arr[i][j].length; value++) {
+                    if (arr[i][j][value] == 1) {
+                        candidates[cell] |= 1 << (value - 1); // the possible placements as a bitmask
+                    }
                 }
             }
-        } // Create a deep copy of the board
-        return copy;
+        }
+    }
+
+    private static ConflictDirectedSearch searchFor(int n, int k) {
+        ConflictDirectedSearch current = search.get();
+        if (current == null || !current.fits(n, k)) {
+            current = new ConflictDirectedSearch(n, k);
+            search.set(current);
+        }
+        return current;
     }
 
     private static List<Integer> getPossibleValues(int[] cell) {
@@ -279,171 +240,81 @@ public class HeuristicSolver { // Class for solving the sudoku puzzle using a he
         return count;
     }
 
-    private static int[] findMRVAndHighestDegreeCell(int[][][] arr, int subgrid, int gridSize, Map<String, Integer> conflictMap) {
-        int boardLength = subgrid * gridSize;
-        int minCount = Integer.MAX_VALUE;
-        int maxDegree = -1;
-        int[] cell = null;
-
-        // 2 heuristics in one, Minimum Remaining Values (MRV) and Highest Degree
-
-        for (int i = 0; i < boardLength; i++) {
-            for (int j = 0; j < boardLength; j++) {
-                if (arr[i][j][0] == 0) {
-                    int count = placementCount(arr[i][j]); // Get the number of possible placements for a cell
-                    int degree = calculateDegree(arr, i, j, subgrid, gridSize); // Get the degree of the cell
-                    if (count < minCount || (count == minCount && degree > maxDegree)) {
-                        minCount = count;
-                        maxDegree = degree;
-                        cell = new int[]{i, j}; // Find the cell with the minimum remaining values and highest degree
-                    }
-                }
-            }
-        }
-        if (cell != null) { // If a cell is found, add it to the conflict map
-            String conflictKey = cell[0] + "-" + cell[1];
-            if (conflictMap.containsKey(conflictKey)) {
-                conflictMap.put(conflictKey, conflictMap.get(conflictKey) + 1);
-            } else {
-                conflictMap.put(conflictKey, 1);
-            }
-        }
-        return cell;
-    }
-
-    private static int calculateDegree(int[][][] arr, int row, int col, int subgrid, int gridSize) {
-        int boardLength = subgrid * gridSize;
-        int degree = 0;
-
-        // Count the number of unassigned neighbors in the row and column
-        for (int i = 0; i < boardLength; i++) {
-            if (arr[row][i][0] == 0 && i != col) {
-                degree++;
-            }
-            if (arr[i][col][0] == 0 && i != row) {
-                degree++;
-            }
-        }
-
-        // Count the number of unassigned neighbors in the subgrid
-        int startRow = (row / subgrid) * subgrid;
-        int startCol = (col / subgrid) * subgrid;
-        for (int i = startRow; i < startRow + subgrid; i++) {
-            for (int j = startCol; j < startCol + subgrid; j++) {
-                if (arr[i][j][0] == 0 && (i != row || j != col)) {
-                    degree++;
-                }
-            }
-        }
-
-        return degree;
-    }
-
-    private static List<Integer> getLCV(int[][][] arr, int row, int col, int subgrid, int gridSize) {
-        List<Integer> possibleValues = getPossibleValues(arr[row][col]);
-        Collections.shuffle(possibleValues, random); // Shuffle to introduce randomness
-        possibleValues.sort((a, b) -> {
-            return countConstraints(arr, row, col, a, subgrid, gridSize) - countConstraints(arr, row, col, b, subgrid, gridSize);
-        });
-        return possibleValues;
-    }
-
-    private static int countConstraints(int[][][] arr, int row, int col, int value, int subgrid, int gridSize) {
-        int boardLength = subgrid * gridSize;
-        int constraints = 0;
-
-        // Count constraints in the row
-        for (int j = 0; j < boardLength; j++) {
-            if (arr[row][j][0] == 0 && arr[row][j][value] == 1) {
-                constraints++;
-            }
-        }
-
-        // Count constraints in the column
-        for (int i = 0; i < boardLength; i++) {
-            if (arr[i][col][0] == 0 && arr[i][col][value] == 1) {
-                constraints++;
-            }
-        }
-
-        // Count constraints in the subgrid
-        int startRow = (row / subgrid) * subgrid;
-        int startCol = (col / subgrid) * subgrid;
-        for (int i = startRow; i < startRow + subgrid; i++) {
-            for (int j = startCol; j < startCol + subgrid; j++) {
-                if (arr[i][j][0] == 0 && arr[i][j][value] == 1) {
-                    constraints++;
-                }
-            }
-        }
-
-        return constraints;
-    }
-
     public static int[][] removeNumsFromBoard(int[][][] sudokuBoard, int n, int k) {
+        if (isFullyFilled(sudokuBoard)) { // a solved board fits the exact cover matrix, so the uniqueness oracle can be used
+            return removeNumsWithOracle(sudokuBoard, n, k);
+        }
 
-
-        int[] row = new int[n * k];
-        int[] col = new int[n * k];
-        for (int i = 0; i < n * k; i++) {
-            row[i] = i;
-            col[i] = i;
+        int size = n * k;
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
         }
-        row = fisherYatesShuffle(row);
-        col = fisherYatesShuffle(col); // Shuffle the rows and columns
+        cells = fisherYatesShuffle(cells); // try the cells in a random order, once each: a clue that had to stay never becomes removable later
 
         int numsRemoved = 0;
-        int maxNumRemoved = SolverAlgorithm.setNumsRemoved(new int[n * k][n * k]); // Set the number of numbers to remove based on the difficulty
+        int maxNumRemoved = SolverAlgorithm.setNumsRemoved(new int[size][size]); // Set the number of numbers to remove based on the difficulty
         int tempVal;
 
+        for (int i = 0; i < cells.length && numsRemoved < maxNumRemoved; i++) { // While the number of removed numbers is less than the maximum number of numbers to remove, continue iterating
+            int row = cells[i] / size;
+            int col = cells[i] % size;
+            if (sudokuBoard[row][col][0] != 0) { // If the cell is not empty
 
-        int i = 0;
-        int j = 0;
-
-        while (numsRemoved < maxNumRemoved && i < n * k) { // While the number of removed numbers is less than the maximum number of numbers to remove, continue iterating
-            if (sudokuBoard[row[i]][col[j]][0] != 0) { // If the cell is not empty
-
-                List<Integer> possibleValues = getPossibleValues(sudokuBoard[row[i]][col[j]]);
+                List<Integer> possibleValues = getPossibleValues(sudokuBoard[row][col]);
                 Collections.shuffle(possibleValues, random); // Shuffle the possible values to introduce randomness
 
-                tempVal = sudokuBoard[row[i]][col[j]][0];
-                sudokuBoard[row[i]][col[j]][0] = 0;
-                addPossiblePlacements(sudokuBoard, row[i], col[j], tempVal, n, k); // a number has been removed, and possible placements are added to the affected cells
+                tempVal = sudokuBoard[row][col][0];
+                sudokuBoard[row][col][0] = 0;
+                addPossiblePlacements(sudokuBoard, row, col, tempVal, n, k); // a number has been removed, and possible placements are added to the affected cells
 
-                int [][][] copyBoard = copyBoard(sudokuBoard);
+                int[] board = new int[size * size];
+                int[] candidates = new int[size * size];
+                toMasks(sudokuBoard, board, candidates); // the search works on masks, so the 3-dimensional board is not copied for every value
 
                 boolean uniqueSolution = true;
 
                 for (int val : possibleValues) {
-                    copyBoard[row[i]][col[j]][0] = val; // Place a possible value in the cell
-                    removePossiblePlacements(copyBoard, row[i], col[j], val, n, k); // Remove the value as a possible placement from the row, column and subgrid
+                    board[row * size + col] = val; // Place a possible value in the cell, the search takes it out of the row, column and subgrid
 
-                    if (fillBoard(copyBoard, n, k, new HashSet<>(), new HashMap<>())) {
+                    if (searchFor(n, k).solve(board, candidates, random)) {
                         uniqueSolution = false;
                         break;
                     } // If a unique solution is not found, break the loop
-
-                    addPossiblePlacements(copyBoard, row[i], col[j], val, n, k); // Add the value as a possible placement again
                 }
 
-                if (uniqueSolution) { // If a unique solution is found, remove the number
-                    row = fisherYatesShuffle(row);
-                    col = fisherYatesShuffle(col);
-                    i = 0;
-                    j = 0;
+                if (uniqueSolution) { // If a unique solution is found, the number stays removed
                     numsRemoved++;
-                    // reshuffle and begin at the start to ensure randomness
-
                 } else {
-                    sudokuBoard[row[i]][col[j]][0] = tempVal;
-                    removePossiblePlacements(sudokuBoard, row[i], col[j], tempVal, n, k);
+                    sudokuBoard[row][col][0] = tempVal;
+                    removePossiblePlacements(sudokuBoard, row, col, tempVal, n, k);
                 } // If a unique solution is not found, restore the number
             }
+        }
 
-            j++;
-            if (j >= n * k) {
-                j = 0;
-                i++;
+        return deepCopy3DBoard(sudokuBoard, n, k); // Extract the playable board from the 3-dimensional board
+    }
+
+    private static int[][] removeNumsWithOracle(int[][][] sudokuBoard, int n, int k) {
+        int size = n * k;
+        int[] cells = new int[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = i;
+        }
+        cells = fisherYatesShuffle(cells); // try the cells in a random order, once each
+
+        int numsRemoved = 0;
+        int maxNumRemoved = SolverAlgorithm.setNumsRemoved(new int[size][size]); // Set the number of numbers to remove based on the difficulty
+        UniquenessOracle oracle = new UniquenessOracle(new SudokuCoverMatrix(n, k), deepCopy3DBoard(sudokuBoard, n, k), cells);
+
+        for (int i = 0; i < cells.length && numsRemoved < maxNumRemoved; i++) {
+            int row = cells[i] / size;
+            int col = cells[i] % size;
+            if (oracle.tryRemove(row, col)) { // the puzzle stays unique without this number
+                int tempVal = sudokuBoard[row][col][0];
+                sudokuBoard[row][col][0] = 0;
+                addPossiblePlacements(sudokuBoard, row, col, tempVal, n, k); // keep the possible placements in step with the board
+                numsRemoved++;
             }
         }
 
@@ -0,0 +1,22 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.logical;
+
+/** How hard a puzzle is for a person, set by the hardest technique LogicalSolver needs on it. */
+public enum Grade {
+    EASY, // singles are enough
+    MEDIUM, // subsets and the interactions between boxes and lines
+    HARD, // fish and wings
+    EXTREME; // the techniques run out and a person has to guess
+
+    public static Grade of(String difficulty) { // the grade of a Config difficulty, easy if it is not one
+        if (difficulty == null) {
+            return EASY;
+        }
+        return switch (difficulty) {
+            case "medium" -> MEDIUM;
+            case "hard" -> HARD;
+            case "extreme" -> EXTREME;
+            default -> EASY;
+        };
+    }
+}
@@ -0,0 +1,13 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.logical;
+
+/**
+ * What LogicalSolver made of a puzzle.
+ *
+ * @param grade the grade of the hardest technique used, EXTREME if the techniques were not enough
+ * @param hardest the hardest technique used, null if the board needed none
+ * @param solved every cell was filled without guessing
+ * @param board the board as far as the techniques got, 0 for the cells left open
+ * @param trace every step taken
+ */
+public record Grading(Grade grade, Technique hardest, boolean solved, int[][] board, StepTrace trace) {}
@@ -0,0 +1,487 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.logical;
+
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.Arrays;
+
+/**
+ * Solves a puzzle the way a person would, with the techniques of Technique and no guessing, and
+ * grades it by the hardest one it needed. The candidates of every cell are an int mask, and after
+ * every step the easiest techniques are tried again first, so a harder technique only counts when
+ * nothing easier would do.
+ *
+ * <p>Boxes hold every digit, but when k < n the rows and columns have fewer cells than there are
+ * digits, so a digit may be missing from them. Hidden subsets then only look at boxes, and the
+ * techniques that need every digit in a line, box/line reduction and the fish, are only used when
+ * k == n. A solver keeps its scratch arrays between calls, so one instance per thread grades
+ * puzzles without allocating much more than the result.
+ */
+public class LogicalSolver {
+    private final int n;
+    private final int size;
+    private final int cells;
+    private final int allDigits;
+    private final int boxes; // units 0 to boxes - 1 are the boxes, then the rows, then the columns
+    private final int[][] units;
+    private final boolean[] complete; // units that hold every digit
+    private final int[][] peers;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+
+    private final int[] value; // digit of every cell, 0 while open
+    private final int[] candidates; // digits an open cell can still take, bit d - 1 for digit d
+    private final int[] pick; // cells or digits a subset is picked from
+    private final int[] chosen; // the subset being built
+    private final int[] positions; // per digit, where it can go in a unit or which lines a fish digit sits on
+    private int open;
+    private boolean contradiction; // some cell or unit has run out of candidates, the puzzle has no solution
+    private Technique hardest;
+    private int[] trace = new int[64];
+    private int traceSize;
+
+    public LogicalSolver(int n, int k) {
+        if (!CandidateMasks.fits(n)) {
+            throw new IllegalArgumentException("At most 31 digits fit in a candidate mask");
+        }
+        this.n = n;
+        this.size = n * k;
+        this.cells = size * size;
+        this.allDigits = (1 << (n * n)) - 1;
+        this.boxes = k * k;
+        this.units = new int[boxes + 2 * size][];
+        this.complete = new boolean[units.length];
+        this.rowOf = new int[cells];
+        this.colOf = new int[cells];
+        this.boxOf = new int[cells];
+        int[] filled = new int[boxes];
+        for (int box = 0; box < boxes; box++) {
+            units[box] = new int[n * n];
+            complete[box] = true;
+        }
+        for (int line = 0; line < size; line++) {
+            units[boxes + line] = new int[size];
+            units[boxes + size + line] = new int[size];
+            complete[boxes + line] = k == n;
+            complete[boxes + size + line] = k == n;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            rowOf[cell] = cell / size;
+            colOf[cell] = cell % size;
+            boxOf[cell] = rowOf[cell] / n * k + colOf[cell] / n;
+            units[boxOf[cell]][filled[boxOf[cell]]++] = cell;
+            units[boxes + rowOf[cell]][colOf[cell]] = cell;
+            units[boxes + size + colOf[cell]][rowOf[cell]] = cell;
+        }
+        this.peers = new int[cells][];
+        for (int cell = 0; cell < cells; cell++) {
+            int[] found = new int[3 * size + n * n];
+            int count = 0;
+            for (int other = 0; other < cells; other++) {
+                if (other != cell && isPeer(cell, other)) {
+                    found[count++] = other;
+                }
+            }
+            peers[cell] = Arrays.copyOf(found, count);
+        }
+        this.value = new int[cells];
+        this.candidates = new int[cells];
+        this.pick = new int[Math.max(size, n * n)];
+        this.chosen = new int[3];
+        this.positions = new int[Math.max(size, n * n)];
+    }
+
+    /** Solves as much of the board as the techniques allow. The board itself is not changed. */
+    public Grading grade(int[][] board) {
+        load(board);
+        while (!contradiction && open > 0 && step()) {
+            // every step changes the board, so start over from the easiest technique
+        }
+        boolean solved = !contradiction && open == 0;
+        Grade grade = !solved ? Grade.EXTREME : hardest == null ? Grade.EASY : hardest.getGrade();
+        return new Grading(grade, hardest, solved, toBoard(), new StepTrace(Arrays.copyOf(trace, traceSize), size));
+    }
+
+    private boolean step() { // true if a technique changed the board
+        return nakedSingles()
+                || hiddenSingles()
+                || pointing()
+                || boxLine()
+                || nakedSubsets(2, Technique.NAKED_PAIR)
+                || hiddenSubsets(2, Technique.HIDDEN_PAIR)
+                || nakedSubsets(3, Technique.NAKED_TRIPLE)
+                || hiddenSubsets(3, Technique.HIDDEN_TRIPLE)
+                || fish(2, Technique.X_WING)
+                || xyWing()
+                || fish(3, Technique.SWORDFISH);
+    }
+
+    private void load(int[][] board) {
+        open = 0;
+        contradiction = false;
+        hardest = null;
+        traceSize = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int digit = board[rowOf[cell]][colOf[cell]];
+            if (digit < 0 || digit > n * n) {
+                contradiction = true; // not a digit of this shape
+                digit = 0;
+            }
+            value[cell] = digit;
+            candidates[cell] = digit == 0 ? allDigits : 0;
+            if (digit == 0) {
+                open++;
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (value[cell] != 0) {
+                int bit = CandidateMasks.bitOf(value[cell]);
+                for (int peer : peers[cell]) {
+                    contradiction |= value[peer] == value[cell]; // two givens clash
+                    candidates[peer] &= ~bit;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            contradiction |= value[cell] == 0 && candidates[cell] == 0;
+        }
+    }
+
+    private int[][] toBoard() {
+        int[][] board = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(value, row * size, board[row], 0, size);
+        }
+        return board;
+    }
+
+    private boolean isPeer(int cell, int other) {
+        return rowOf[cell] == rowOf[other] || colOf[cell] == colOf[other] || boxOf[cell] == boxOf[other];
+    }
+
+    private void place(int cell, int digit, Technique technique) {
+        record(technique, cell, digit, true);
+        value[cell] = digit;
+        candidates[cell] = 0;
+        open--;
+        int bit = CandidateMasks.bitOf(digit);
+        for (int peer : peers[cell]) {
+            if (value[peer] == 0 && (candidates[peer] & bit) != 0) {
+                candidates[peer] &= ~bit;
+                contradiction |= candidates[peer] == 0;
+            }
+        }
+    }
+
+    private boolean eliminate(int cell, int digits, Technique technique) { // true if the cell had any of the digits
+        int removed = candidates[cell] & digits;
+        if (value[cell] != 0 || removed == 0) {
+            return false;
+        }
+        candidates[cell] &= ~removed;
+        contradiction |= candidates[cell] == 0;
+        for (; removed != 0; removed &= removed - 1) {
+            record(technique, cell, CandidateMasks.digitOf(removed & -removed), false);
+        }
+        return true;
+    }
+
+    private void record(Technique technique, int cell, int digit, boolean placement) {
+        if (hardest == null || technique.ordinal() > hardest.ordinal()) {
+            hardest = technique;
+        }
+        if (traceSize == trace.length) {
+            trace = Arrays.copyOf(trace, 2 * trace.length);
+        }
+        trace[traceSize++] = StepTrace.encode(technique, cell, digit, placement);
+    }
+
+    private boolean nakedSingles() { // every open cell with one candidate left, in one sweep
+        boolean progress = false;
+        for (int cell = 0; cell < cells && !contradiction; cell++) {
+            int mask = candidates[cell];
+            if (value[cell] == 0 && mask != 0 && (mask & (mask - 1)) == 0) {
+                place(cell, CandidateMasks.digitOf(mask), Technique.NAKED_SINGLE);
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private boolean hiddenSingles() { // a digit with one place left in a unit that must hold it
+        for (int u = 0; u < units.length; u++) {
+            if (!complete[u]) {
+                continue;
+            }
+            int once = 0;
+            int twice = 0;
+            int placed = 0;
+            for (int cell : units[u]) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+                placed |= value[cell] == 0 ? 0 : CandidateMasks.bitOf(value[cell]);
+            }
+            if ((once | placed) != allDigits) {
+                contradiction = true; // a digit has nowhere to go
+                return true;
+            }
+            int singles = once & ~twice;
+            if (singles != 0) {
+                for (; singles != 0; singles &= singles - 1) {
+                    int bit = singles & -singles;
+                    int cell = cellWith(units[u], bit);
+                    if (cell == -1) {
+                        contradiction = true; // two digits needed the same cell
+                        return true;
+                    }
+                    place(cell, CandidateMasks.digitOf(bit), Technique.HIDDEN_SINGLE);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int cellWith(int[] unit, int bit) { // the first open cell of the unit that can take the digit, -1 if none
+        for (int cell : unit) {
+            if ((candidates[cell] & bit) != 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    private boolean pointing() { // the places of a digit in a box all lie on one row or column
+        boolean progress = false;
+        for (int box = 0; box < boxes && !progress; box++) {
+            for (int bit = 1; bit <= allDigits && !progress; bit <<= 1) {
+                int row = -1;
+                int col = -1;
+                boolean oneRow = true;
+                boolean oneCol = true;
+                for (int cell : units[box]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        oneRow &= row == -1 || rowOf[cell] == row;
+                        oneCol &= col == -1 || colOf[cell] == col;
+                        row = rowOf[cell];
+                        col = colOf[cell];
+                    }
+                }
+                if (row != -1 && oneRow) {
+                    progress = eliminateOutside(units[boxes + row], box, bit, Technique.POINTING);
+                }
+                if (col != -1 && oneCol) {
+                    progress |= eliminateOutside(units[boxes + size + col], box, bit, Technique.POINTING);
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean eliminateOutside(int[] line, int box, int bit, Technique technique) {
+        boolean progress = false;
+        for (int cell : line) {
+            if (boxOf[cell] != box) {
+                progress |= eliminate(cell, bit, technique);
+            }
+        }
+        return progress;
+    }
+
+    private boolean boxLine() { // the places of a digit in a full line all lie in one box
+        boolean progress = false;
+        for (int u = boxes; u < units.length && !progress; u++) {
+            if (!complete[u]) {
+                continue;
+            }
+            boolean isRow = u < boxes + size;
+            int line = isRow ? u - boxes : u - boxes - size;
+            for (int bit = 1; bit <= allDigits && !progress; bit <<= 1) {
+                int box = -1;
+                boolean oneBox = true;
+                for (int cell : units[u]) {
+                    if ((candidates[cell] & bit) != 0) {
+                        oneBox &= box == -1 || boxOf[cell] == box;
+                        box = boxOf[cell];
+                    }
+                }
+                if (box != -1 && oneBox) {
+                    for (int cell : units[box]) {
+                        if ((isRow ? rowOf[cell] : colOf[cell]) != line) {
+                            progress |= eliminate(cell, bit, Technique.BOX_LINE);
+                        }
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean nakedSubsets(int subset, Technique technique) { // subset cells of a unit with only subset digits between them
+        for (int[] unit : units) {
+            int picked = 0;
+            for (int cell : unit) {
+                int count = Integer.bitCount(candidates[cell]);
+                if (count >= 2 && count <= subset) {
+                    pick[picked++] = cell;
+                }
+            }
+            if (picked >= subset && nakedFrom(unit, picked, 0, 0, 0, subset, technique)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedFrom(int[] unit, int picked, int start, int depth, int union, int subset, Technique technique) {
+        if (depth == subset) {
+            boolean progress = false;
+            for (int cell : unit) {
+                if (cell != chosen[0] && cell != chosen[1] && (subset == 2 || cell != chosen[2])) {
+                    progress |= eliminate(cell, union, technique);
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < picked; i++) {
+            int next = union | candidates[pick[i]];
+            if (Integer.bitCount(next) <= subset) {
+                chosen[depth] = pick[i];
+                if (nakedFrom(unit, picked, i + 1, depth + 1, next, subset, technique)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenSubsets(int subset, Technique technique) { // subset digits of a unit with only subset places between them
+        for (int u = 0; u < units.length; u++) {
+            if (!complete[u]) {
+                continue;
+            }
+            int[] unit = units[u];
+            int digits = n * n;
+            Arrays.fill(positions, 0, digits, 0);
+            for (int i = 0; i < unit.length; i++) {
+                for (int mask = candidates[unit[i]]; mask != 0; mask &= mask - 1) {
+                    positions[Integer.numberOfTrailingZeros(mask)] |= 1 << i;
+                }
+            }
+            int picked = 0;
+            for (int d = 0; d < digits; d++) {
+                int count = Integer.bitCount(positions[d]);
+                if (count >= 2 && count <= subset) {
+                    pick[picked++] = d;
+                }
+            }
+            if (picked >= subset && hiddenFrom(unit, picked, 0, 0, 0, 0, subset, technique)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenFrom(
+            int[] unit, int picked, int start, int depth, int places, int digits, int subset, Technique technique) {
+        if (depth == subset) {
+            boolean progress = false;
+            for (int mask = places; mask != 0; mask &= mask - 1) {
+                progress |= eliminate(unit[Integer.numberOfTrailingZeros(mask)], allDigits & ~digits, technique);
+            }
+            return progress;
+        }
+        for (int i = start; i < picked; i++) {
+            int next = places | positions[pick[i]];
+            if (Integer.bitCount(next) <= subset
+                    && hiddenFrom(unit, picked, i + 1, depth + 1, next, digits | 1 << pick[i], subset, technique)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fish(int subset, Technique technique) { // a digit confined to subset columns in subset rows, or the other way round
+        if (!complete[boxes]) {
+            return false;
+        }
+        for (int bit = 1; bit <= allDigits; bit <<= 1) {
+            for (int byRow = 0; byRow < 2; byRow++) {
+                int picked = 0;
+                for (int line = 0; line < size; line++) {
+                    int across = 0; // the crossing lines the digit can sit on
+                    for (int i = 0; i < size; i++) {
+                        if ((candidates[byRow == 1 ? line * size + i : i * size + line] & bit) != 0) {
+                            across |= 1 << i;
+                        }
+                    }
+                    int count = Integer.bitCount(across);
+                    if (count >= 2 && count <= subset) {
+                        positions[picked] = across;
+                        pick[picked++] = line;
+                    }
+                }
+                if (picked >= subset && fishFrom(bit, byRow == 1, picked, 0, 0, 0, 0, subset, technique)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean fishFrom(
+            int bit, boolean byRow, int picked, int start, int depth, int base, int across, int subset, Technique technique) {
+        if (depth == subset) {
+            boolean progress = false;
+            for (int mask = across; mask != 0; mask &= mask - 1) {
+                int cross = Integer.numberOfTrailingZeros(mask);
+                for (int line = 0; line < size; line++) {
+                    if ((base & 1 << line) == 0) {
+                        progress |= eliminate(byRow ? line * size + cross : cross * size + line, bit, technique);
+                    }
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i < picked; i++) {
+            int next = across | positions[i];
+            if (Integer.bitCount(next) <= subset
+                    && fishFrom(bit, byRow, picked, i + 1, depth + 1, base | 1 << pick[i], next, subset, technique)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean xyWing() { // a pivot xy and pincers xz and yz that both see it, so z leaves every cell that sees both pincers
+        for (int pivot = 0; pivot < cells; pivot++) {
+            int xy = candidates[pivot];
+            if (Integer.bitCount(xy) != 2) {
+                continue;
+            }
+            for (int first : peers[pivot]) {
+                int xz = candidates[first];
+                if (Integer.bitCount(xz) != 2 || Integer.bitCount(xz & xy) != 1) {
+                    continue;
+                }
+                int z = xz & ~xy;
+                int yz = (xy & ~xz) | z;
+                for (int second : peers[pivot]) {
+                    if (second == first || candidates[second] != yz) {
+                        continue;
+                    }
+                    boolean progress = false;
+                    for (int cell : peers[first]) {
+                        if (cell != pivot && cell != second && isPeer(cell, second)) {
+                            progress |= eliminate(cell, z, Technique.XY_WING);
+                        }
+                    }
+                    if (progress) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.logical;
+
+/**
+ * The steps LogicalSolver took, in order. A step is a digit placed in a cell or a candidate taken
+ * out of a cell, packed into one int: the digit in the low 5 bits, then 10 bits of cell, 5 bits of
+ * technique and a bit that is set for placements. Candidates that a placement takes out of its
+ * peers are not steps of their own.
+ */
+public final class StepTrace {
+    private static final int CELL_SHIFT = 5;
+    private static final int TECHNIQUE_SHIFT = 15;
+    private static final int PLACEMENT = 1 << 20;
+    private static final Technique[] TECHNIQUES = Technique.values();
+
+    private final int[] steps;
+    private final int size; // side of the board, to name the cells
+
+    StepTrace(int[] steps, int size) {
+        this.steps = steps;
+        this.size = size;
+    }
+
+    static int encode(Technique technique, int cell, int digit, boolean placement) {
+        return (placement ? PLACEMENT : 0) | technique.ordinal() << TECHNIQUE_SHIFT | cell << CELL_SHIFT | (digit - 1);
+    }
+
+    public int size() {
+        return steps.length;
+    }
+
+    public Technique technique(int step) {
+        return TECHNIQUES[(steps[step] >>> TECHNIQUE_SHIFT) & 31];
+    }
+
+    public int cell(int step) { // row * side + column
+        return (steps[step] >>> CELL_SHIFT) & 1023;
+    }
+
+    public int digit(int step) {
+        return (steps[step] & 31) + 1;
+    }
+
+    public boolean isPlacement(int step) { // false: the digit was taken out of the cell's candidates
+        return (steps[step] & PLACEMENT) != 0;
+    }
+
+    @Override
+    public String toString() { // "NS r1c2=5 NP r3c4-7 ...", rows and columns counted from 1
+        StringBuilder text = new StringBuilder();
+        for (int step = 0; step < steps.length; step++) {
+            if (step > 0) {
+                text.append(' ');
+            }
+            text.append(technique(step).getCode())
+                    .append(" r")
+                    .append(cell(step) / size + 1)
+                    .append('c')
+                    .append(cell(step) % size + 1)
+                    .append(isPlacement(step) ? '=' : '-')
+                    .append(digit(step));
+        }
+        return text.toString();
+    }
+}
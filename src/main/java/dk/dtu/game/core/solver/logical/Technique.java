@@ -0,0 +1,33 @@
+/* (C)2024 */
+package dk.dtu.game.core.solver.logical;
+
+/** The techniques of LogicalSolver, easiest first. The solver always tries them in this order. */
+public enum Technique {
+    NAKED_SINGLE("NS", Grade.EASY),
+    HIDDEN_SINGLE("HS", Grade.EASY),
+    POINTING("PT", Grade.MEDIUM), // a digit confined to one line of a box leaves the rest of the line
+    BOX_LINE("BL", Grade.MEDIUM), // a digit confined to one box of a line leaves the rest of the box
+    NAKED_PAIR("NP", Grade.MEDIUM),
+    HIDDEN_PAIR("HP", Grade.MEDIUM),
+    NAKED_TRIPLE("NT", Grade.MEDIUM),
+    HIDDEN_TRIPLE("HT", Grade.MEDIUM),
+    X_WING("XW", Grade.HARD),
+    XY_WING("XY", Grade.HARD),
+    SWORDFISH("SF", Grade.HARD);
+
+    private final String code; // short name used in traces
+    private final Grade grade;
+
+    Technique(String code, Grade grade) {
+        this.code = code;
+        this.grade = grade;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Grade getGrade() {
+        return grade;
+    }
+}
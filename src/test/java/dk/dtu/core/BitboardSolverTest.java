@@ -0,0 +1,90 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.bitboard.CandidateMasks;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BitboardSolverTest {
+
+    @Test
+    @DisplayName("The bitboard solver solves the reference puzzles")
+    void testSolve() {
+        BitboardSolver solver = new BitboardSolver(3, 3);
+        for (int[][] puzzle : new int[][][] {DancingLinksEngineTest.PUZZLE, DancingLinksEngineTest.HARD_PUZZLE}) {
+            int[][] solution = solver.solve(puzzle);
+            assertNotNull(solution);
+            assertTrue(BoardChecks.isSolvedGrid(solution, 3));
+            assertTrue(BoardChecks.keepsGivens(puzzle, solution));
+            assertEquals(1, solver.countSolutions(puzzle, 2));
+        }
+
+        int[][] clash = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.PUZZLE);
+        clash[0][2] = 5; // a second 5 in the first row
+        assertNull(solver.solve(clash));
+    }
+
+    @Test
+    @DisplayName("The bitboard solver counts the same solutions as Algorithm X")
+    void testCounts() {
+        assertEquals(288, new BitboardSolver(2, 2).countSolutions(new int[4][4], Integer.MAX_VALUE));
+
+        Random random = new Random(17);
+        BitboardSolver solver = new BitboardSolver(3, 3);
+        ExactCoverSolver exactCover = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, random);
+        for (int i = 0; i < 20; i++) {
+            int[][] puzzle = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.HARD_PUZZLE);
+            for (int blanks = 0; blanks < i % 4; blanks++) {
+                puzzle[random.nextInt(9)][random.nextInt(9)] = 0; // some of these have several solutions
+            }
+            assertEquals(exactCover.checkUniqueSolution(puzzle), solver.countSolutions(puzzle, 2));
+        }
+    }
+
+    @Test
+    @DisplayName("Boards with more digits than rows are filled with every box complete")
+    void testWideDigitBoard() {
+        int[][] solution = new BitboardSolver(3, 2).solve(new int[6][6]);
+        assertNotNull(solution);
+        assertTrue(BoardChecks.isSolvedGrid(solution, 3));
+    }
+
+    @Test
+    @DisplayName("Candidate masks give the same candidates as a scan of the board")
+    void testCandidateMasks() {
+        int[][] board = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.PUZZLE);
+        CandidateMasks masks = CandidateMasks.of(board, 3);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                if (board[i][j] == 0) {
+                    assertEquals(scan(board, i, j), masks.candidateList(i, j));
+                    assertEquals(scan(board, i, j), SolverAlgorithm.getPossiblePlacements(board, i, j, 3));
+                }
+            }
+        }
+
+        masks.place(2, 4); // place a 4 in (0,2) and take it away again
+        assertFalse(masks.candidateList(0, 3).contains(4));
+        masks.remove(2);
+        assertEquals(scan(board, 0, 3), masks.candidateList(0, 3));
+    }
+
+    private static List<Integer> scan(int[][] board, int row, int col) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int c = 1; c <= board.length; c++) {
+            if (SolverAlgorithm.checkBoard(board, row, col, c, 3)) {
+                candidates.add(c);
+            }
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,55 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+/** Helpers shared by the solver tests to check boards without going through a solver. */
+final class BoardChecks {
+
+    private BoardChecks() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    // A complete grid where every row, column and n x n box holds each value at most once
+    static boolean isSolvedGrid(int[][] grid, int n) {
+        int size = grid.length;
+        int maxValue = n * n;
+        for (int i = 0; i < size; i++) {
+            boolean[] rowSeen = new boolean[maxValue + 1];
+            boolean[] colSeen = new boolean[maxValue + 1];
+            for (int j = 0; j < size; j++) {
+                int r = grid[i][j];
+                int c = grid[j][i];
+                if (r < 1 || r > maxValue || c < 1 || c > maxValue || rowSeen[r] || colSeen[c]) {
+                    return false;
+                }
+                rowSeen[r] = true;
+                colSeen[c] = true;
+            }
+        }
+        for (int boxRow = 0; boxRow < size; boxRow += n) {
+            for (int boxCol = 0; boxCol < size; boxCol += n) {
+                boolean[] seen = new boolean[maxValue + 1];
+                for (int i = boxRow; i < boxRow + n; i++) {
+                    for (int j = boxCol; j < boxCol + n; j++) {
+                        if (seen[grid[i][j]]) {
+                            return false;
+                        }
+                        seen[grid[i][j]] = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // Every given of the puzzle is kept in the solution
+    static boolean keepsGivens(int[][] puzzle, int[][] solution) {
+        for (int i = 0; i < puzzle.length; i++) {
+            for (int j = 0; j < puzzle.length; j++) {
+                if (puzzle[i][j] != 0 && puzzle[i][j] != solution[i][j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
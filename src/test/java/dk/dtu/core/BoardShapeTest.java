@@ -0,0 +1,143 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ArrayDancingLinks;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SudokuCoverMatrix;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.heuristicsolver.HeuristicSolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BoardShapeTest {
+
+    static final int[][] SHAPES = {{2, 1}, {2, 2}, {3, 1}, {3, 2}, {3, 3}, {4, 2}, {4, 3}, {5, 3}}; // n, k
+
+    @Test
+    @DisplayName("Algorithm X generates a unique puzzle for every board shape")
+    void testGenerateEveryShape() throws Board.BoardNotCreatable {
+        Config.setDifficulty("hard");
+        for (AlgorithmXSolver.Engine engine : AlgorithmXSolver.Engine.values()) {
+            ExactCoverSolver solver = new ExactCoverSolver(engine, new Random(9));
+            for (int[] shape : SHAPES) {
+                int n = shape[0];
+                int k = shape[1];
+                Board board = new Board(n, k);
+                solver.createXSudoku(board);
+
+                int[][] puzzle = board.getInitialBoard();
+                assertTrue(BoardChecks.isSolvedGrid(board.getSolvedBoard(), n), engine + " " + n + "x" + k);
+                assertTrue(BoardChecks.keepsGivens(puzzle, board.getSolvedBoard()));
+                assertEquals(1, solver.checkUniqueSolution(puzzle, n, k));
+                assertEquals(1, new BitboardSolver(n, k).countSolutions(puzzle, 2)); // checked by a different solver
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Algorithm X counts the same solutions as the bitboard solver on every shape")
+    void testCountsEveryShape() throws Board.BoardNotCreatable {
+        Random random = new Random(4);
+        for (int[] shape : SHAPES) {
+            int n = shape[0];
+            int k = shape[1];
+            int size = n * k;
+            int[][] grid = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, random).solveExistingBoard(new Board(n, k));
+            SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(n, k);
+            for (int i = 0; i < 10; i++) {
+                int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+                for (int blanks = 0; blanks < size * size * i / 12; blanks++) {
+                    puzzle[random.nextInt(size)][random.nextInt(size)] = 0;
+                }
+                int expected = new BitboardSolver(n, k).countSolutions(puzzle, 2);
+                assertEquals(expected, new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, random).checkUniqueSolution(puzzle, n, k));
+                assertEquals(expected, new ExactCoverSolver(AlgorithmXSolver.Engine.NODE, random).checkUniqueSolution(puzzle, n, k));
+                assertTrue(coverMatrix.load(puzzle));
+                assertEquals(expected, coverMatrix.countSolutions(2)); // the full matrix, without the singles
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Rows and columns of a narrow board may leave digits out")
+    void testSecondaryColumns() {
+        SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(2, 1); // one 2x2 box, digits 1 to 4
+        assertTrue(coverMatrix.load(new int[2][2]));
+        assertEquals(24, coverMatrix.countSolutions(Integer.MAX_VALUE)); // every order of the four digits
+
+        List<int[]> rows = AlgorithmXSolver.createExactCoverFromBoard(new int[2][2], 2, 1, new ArrayList<>());
+        ArrayDancingLinks dl = new ArrayDancingLinks(rows, AlgorithmXSolver.secondaryColumns(2, 1));
+        dl.setRandomTieBreak(false);
+        int rowDigitColumn = 4; // digit 1 in the first row
+        dl.select(0); // 1 in (0,0)
+        assertTrue(dl.isColumnCovered(rowDigitColumn));
+        assertFalse(dl.isRowAvailable(4)); // 1 in (0,1) would repeat it
+        dl.deselect(0);
+        assertFalse(dl.isColumnCovered(rowDigitColumn));
+        assertEquals(24, dl.countSolutions(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("The heuristic generator uses the oracle for narrow boards too")
+    void testHeuristicNarrowBoard() throws Board.BoardNotCreatable {
+        Board board = new Board(3, 2);
+        HeuristicSolver.createPlayableSudoku(board);
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(board.getInitialBoard(), 3, 2));
+    }
+
+    @Test
+    @DisplayName("Backjumping finds a solution exactly when the bitboard solver does")
+    void testBackjumpingIsComplete() throws Board.BoardNotCreatable {
+        Random random = new Random(14);
+        for (int[] shape : new int[][] {{2, 1}, {2, 2}, {3, 2}, {3, 3}, {4, 2}}) {
+            int n = shape[0];
+            int k = shape[1];
+            int size = n * k;
+            int[][] grid = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, random).solveExistingBoard(new Board(n, k));
+            for (int i = 0; i < 20; i++) {
+                int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+                for (int blanks = 0; blanks < size * size * (i % 6) / 10; blanks++) {
+                    puzzle[random.nextInt(size)][random.nextInt(size)] = 0;
+                }
+                if (i % 2 == 1) {
+                    puzzle[random.nextInt(size)][random.nextInt(size)] = 1 + random.nextInt(n * n); // often leaves no solution
+                }
+                Board board = new Board(n, k);
+                board.setInitialBoard(puzzle);
+                int[][][] possiblePlacements = HeuristicSolver.createSetFromBoard(board, n, k);
+
+                boolean solvable = new BitboardSolver(n, k).countSolutions(puzzle, 1) == 1;
+                assertEquals(solvable, HeuristicSolver.fillBoard(possiblePlacements, n, k), n + "x" + k + " board " + i);
+                if (solvable) {
+                    int[][] solution = HeuristicSolver.deepCopy3DBoard(possiblePlacements, n, k);
+                    assertTrue(BoardChecks.isSolvedGrid(solution, n));
+                    assertTrue(BoardChecks.keepsGivens(puzzle, solution));
+                }
+            }
+        }
+
+        for (long seed = 0; seed < 5; seed++) { // half empty boards with wide boxes, where a box runs out of places for a digit
+            int[][] puzzle = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(seed)).solveExistingBoard(new Board(4, 3));
+            Random blanks = new Random(seed);
+            for (int[] row : puzzle) {
+                for (int j = 0; j < row.length; j++) {
+                    if (blanks.nextDouble() < 0.5) {
+                        row[j] = 0;
+                    }
+                }
+            }
+            Board board = new Board(4, 3);
+            board.setInitialBoard(puzzle);
+            assertTrue(HeuristicSolver.fillBoard(HeuristicSolver.createSetFromBoard(board, 4, 3), 4, 3), "4x3 board " + seed);
+        }
+    }
+}
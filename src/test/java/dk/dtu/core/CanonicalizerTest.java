@@ -0,0 +1,157 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.Canonicalizer;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CanonicalizerTest {
+
+    @Test
+    @DisplayName("Shuffled and relabelled copies of a puzzle have the same form, on every shape")
+    void testCopies() throws Board.BoardNotCreatable {
+        Random random = new Random(21);
+        for (int[] shape : new int[][] {{2, 2}, {3, 2}, {3, 3}, {4, 3}, {4, 4}}) {
+            int n = shape[0];
+            int k = shape[1];
+            Canonicalizer canonicalizer = new Canonicalizer(n, k);
+            for (String difficulty : new String[] {"easy", "extreme"}) {
+                Config.setDifficulty(difficulty);
+                ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(21));
+                generator.setGradeAttempts(0);
+                for (int i = 0; i < 5; i++) {
+                    Board board = new Board(n, k);
+                    generator.createXSudoku(board);
+                    int[][] puzzle = board.getInitialBoard();
+                    Canonicalizer.Canonical canonical = canonicalizer.canonicalize(puzzle);
+                    assertTrue(canonical.exact());
+                    assertArrayEquals(canonical.board(), canonical.transform().apply(puzzle));
+                    assertArrayEquals(puzzle, canonical.transform().revert(canonical.board()));
+                    assertArrayEquals(board.getSolvedBoard(), canonical.transform().revert(canonical.transform().apply(board.getSolvedBoard())));
+                    for (int copy = 0; copy < 5; copy++) {
+                        Canonicalizer.Canonical other = canonicalizer.canonicalize(randomSymmetry(n, k, random).apply(puzzle));
+                        assertArrayEquals(canonical.board(), other.board(), n + "x" + k + " " + difficulty);
+                        assertEquals(canonical.hash(), other.hash());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Different puzzles have different forms, and the form is the smallest copy")
+    void testDifferent() throws Board.BoardNotCreatable {
+        Config.setDifficulty("hard");
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(4));
+        Canonicalizer canonicalizer = new Canonicalizer(3, 3);
+        Random random = new Random(4);
+        Set<Canonicalizer.Hash> hashes = new HashSet<>();
+        int[][] solved = null;
+        for (int i = 0; i < 30; i++) {
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            int[][] form = canonicalizer.canonicalize(board.getInitialBoard()).board();
+            assertTrue(hashes.add(canonicalizer.canonicalize(board.getInitialBoard()).hash()));
+            solved = board.getSolvedBoard();
+            for (int copy = 0; copy < 200; copy++) { // no copy comes before the form
+                int[][] shuffled = canonicalizer.canonicalize(randomSymmetry(3, 3, random).apply(form)).board();
+                assertArrayEquals(form, shuffled);
+                int[][] named = relabel(randomSymmetry(3, 3, random).apply(form));
+                assertTrue(compare(form, named) <= 0);
+            }
+        }
+
+        Canonicalizer.Canonical grid = canonicalizer.canonicalize(solved);
+        assertTrue(grid.exact());
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, grid.board()[0]);
+        assertEquals(grid.hash(), canonicalizer.canonicalize(randomSymmetry(3, 3, random).apply(solved)).hash());
+        assertArrayEquals(new int[9][9], canonicalizer.canonicalize(new int[9][9]).board());
+    }
+
+    @Test
+    @DisplayName("Boards of another size or with a digit twice in a line are refused")
+    void testRefused() {
+        Canonicalizer canonicalizer = new Canonicalizer(3, 3);
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize(new int[6][6]));
+        int[][] twice = new int[9][9];
+        twice[0][0] = 5;
+        twice[0][8] = 5;
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize(twice));
+        int[][] tooLarge = new int[9][9];
+        tooLarge[4][4] = 10;
+        assertThrows(IllegalArgumentException.class, () -> canonicalizer.canonicalize(tooLarge));
+        assertThrows(IllegalArgumentException.class, () -> new Canonicalizer(2, 3));
+    }
+
+    private static Canonicalizer.Transform randomSymmetry(int n, int k, Random random) {
+        int[] digits = new int[n * n + 1];
+        int[] names = shuffled(n * n, random);
+        for (int d = 1; d <= n * n; d++) {
+            digits[d] = names[d - 1] + 1;
+        }
+        return new Canonicalizer.Transform(random.nextBoolean(), lines(n, k, random), lines(n, k, random), digits);
+    }
+
+    private static int[] lines(int n, int k, Random random) { // bands in any order, the lines in them too
+        int[] bands = shuffled(k, random);
+        int[] lines = new int[n * k];
+        for (int b = 0; b < k; b++) {
+            int[] order = shuffled(n, random);
+            for (int i = 0; i < n; i++) {
+                lines[b * n + i] = bands[b] * n + order[i];
+            }
+        }
+        return lines;
+    }
+
+    private static int[] shuffled(int count, Random random) {
+        int[] arr = new int[count];
+        for (int i = 0; i < count; i++) {
+            arr[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
+        return arr;
+    }
+
+    private static int[][] relabel(int[][] board) { // digits named in the order they first appear in
+        int[] names = new int[board.length + 1];
+        int next = 1;
+        int[][] result = new int[board.length][];
+        for (int r = 0; r < board.length; r++) {
+            result[r] = board[r].clone();
+            for (int c = 0; c < board.length; c++) {
+                int value = board[r][c];
+                if (value != 0 && names[value] == 0) {
+                    names[value] = next++;
+                }
+                result[r][c] = names[value];
+            }
+        }
+        return result;
+    }
+
+    private static int compare(int[][] a, int[][] b) {
+        for (int r = 0; r < a.length; r++) {
+            int compared = Arrays.compare(a[r], b[r]);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,71 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ClueSearchTest {
+
+    @Test
+    @DisplayName("A target the search can reach is hit exactly, and the puzzle is unique")
+    void testReachesTarget() throws Board.BoardNotCreatable {
+        Config.setDifficulty("easy");
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(23));
+        generator.setClueBudget(5, TimeUnit.SECONDS);
+        generator.setClueTarget(28);
+        for (int i = 0; i < 5; i++) {
+            Board board = new Board(3, 3);
+            long start = System.nanoTime();
+            generator.createXSudoku(board);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)); // done long before the deadline
+            assertEquals(28, clues(board.getInitialBoard()));
+            assertEquals(1, generator.checkUniqueSolution(board.getInitialBoard(), 3, 3));
+            assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), board.getSolvedBoard()));
+        }
+    }
+
+    @Test
+    @DisplayName("Past one removal pass the search finds fewer clues, and stops at its deadline")
+    void testBeatsSinglePass() throws Board.BoardNotCreatable {
+        Config.setDifficulty("extreme"); // 17 clues, more than a single pass can take away
+        int[] total = new int[2];
+        for (int budget : new int[] {0, 300}) {
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(23));
+            generator.setGradeAttempts(0);
+            generator.setClueBudget(budget, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < 8; i++) {
+                Board board = new Board(3, 3);
+                long start = System.nanoTime();
+                generator.createXSudoku(board);
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertEquals(1, generator.checkUniqueSolution(board.getInitialBoard(), 3, 3));
+                assertTrue(clues(board.getInitialBoard()) >= 17);
+                assertTrue(budget == 0 || millis < budget + 500, millis + " ms for a budget of " + budget);
+                total[budget == 0 ? 0 : 1] += clues(board.getInitialBoard());
+            }
+        }
+        assertTrue(total[1] < total[0], total[1] + " clues in all against " + total[0] + " after one pass");
+
+        ExactCoverSolver large = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(23));
+        large.setGradeAttempts(0);
+        large.setClueBudget(200, TimeUnit.MILLISECONDS);
+        Board board = new Board(4, 4);
+        long start = System.nanoTime();
+        large.createXSudoku(board);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2)); // the grid and the rating come on top of the budget
+        assertEquals(1, large.checkUniqueSolution(board.getInitialBoard(), 4, 4));
+    }
+
+    private static long clues(int[][] board) {
+        return Arrays.stream(board).flatMapToInt(Arrays::stream).filter(cell -> cell != 0).count();
+    }
+}
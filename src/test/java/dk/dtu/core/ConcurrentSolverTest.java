@@ -0,0 +1,162 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SolutionCount;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentSolverTest {
+
+    private static final int TASKS = 48;
+
+    record Result(int[][] puzzle, int[][] solution) {}
+
+    @Test
+    @DisplayName("Many solver instances generate valid unique puzzles in parallel")
+    void testParallelGeneration() throws Exception {
+        Config.setDifficulty("medium");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    ExactCoverSolver solver = new ExactCoverSolver();
+                                    Board board = new Board(3, 3);
+                                    solver.createXSudoku(board);
+                                    return new Result(board.getInitialBoard(), board.getSolvedBoard());
+                                }));
+            }
+
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                assertTrue(BoardChecks.isSolvedGrid(result.solution(), 3));
+                assertTrue(BoardChecks.keepsGivens(result.puzzle(), result.solution()));
+                assertEquals(1, new ExactCoverSolver().checkUniqueSolution(result.puzzle()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("The static wrappers can be called from many threads at once")
+    void testParallelStaticSolves() throws Exception {
+        int[][] expected = new ExactCoverSolver().solveExistingBoard(boardOf(DancingLinksEngineTest.HARD_PUZZLE));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<int[][]>> futures = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                futures.add(
+                        executor.submit(
+                                () -> AlgorithmXSolver.solveExistingBoard(
+                                        boardOf(DancingLinksEngineTest.HARD_PUZZLE))));
+            }
+            for (Future<int[][]> future : futures) {
+                assertArrayEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Board boardOf(int[][] puzzle) throws Board.BoardNotCreatable {
+        Board board = new Board(3, 3);
+        board.setInitialBoard(puzzle);
+        return board;
+    }
+
+    @Test
+    @DisplayName("The parallel search solves a 16x16 board on its own matrix snapshots")
+    void testParallelSearch() throws Exception {
+        ExactCoverSolver filler = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        int[][] puzzle = filler.solveExistingBoard(new Board(4, 4));
+        Random random = new Random(3);
+        for (int[] row : puzzle) {
+            for (int j = 0; j < row.length; j++) {
+                if (random.nextInt(3) != 0) {
+                    row[j] = 0;
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                ExactCoverSolver solver = new ExactCoverSolver();
+                solver.setForkJoinPool(pool);
+                Board board = new Board(4, 4);
+                board.setInitialBoard(puzzle);
+                int[][] solution = solver.solveExistingBoard(board);
+
+                assertTrue(BoardChecks.isSolvedGrid(solution, 4));
+                assertTrue(BoardChecks.keepsGivens(puzzle, solution));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("The parallel count adds up the branches, stops at the cap and can be cancelled")
+    void testParallelCount() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(5));
+            solver.setForkJoinPool(pool);
+            SolutionCount small = solver.countSolutions(new int[4][4], 2, 2, Long.MAX_VALUE);
+            assertEquals(288, small.count()); // every 4x4 grid
+            assertTrue(small.isExact());
+
+            Random random = new Random(5);
+            for (int[] shape : new int[][] {{3, 3}, {3, 2}}) {
+                int[][] grid = solver.solveExistingBoard(new Board(shape[0], shape[1]));
+                for (int i = 0; i < 8; i++) {
+                    int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+                    for (int blanks = 0; blanks < grid.length * grid.length * (4 + i) / 12; blanks++) {
+                        puzzle[random.nextInt(grid.length)][random.nextInt(grid.length)] = 0;
+                    }
+                    int expected = new BitboardSolver(shape[0], shape[1]).countSolutions(puzzle, 100_000);
+                    SolutionCount count = solver.countSolutions(puzzle, shape[0], shape[1], 100_000);
+                    assertEquals(expected, count.count());
+                    assertEquals(expected < 100_000, count.isExact());
+                }
+            }
+
+            SolutionCount capped = solver.countSolutions(new int[9][9], 3, 3, 50_000);
+            assertEquals(50_000, capped.count());
+            assertTrue(capped.isCapped());
+            assertFalse(capped.isExact());
+            assertTrue(capped.nodes() > 0); // 4x4 boards come from the solution table, this one is searched
+
+            Future<SolutionCount> endless = executor.submit(() -> solver.countSolutions(new int[9][9], 3, 3, Long.MAX_VALUE));
+            Thread.sleep(200);
+            solver.cancelCount();
+            SolutionCount cancelled = endless.get(10, TimeUnit.SECONDS);
+            assertTrue(cancelled.cancelled());
+            assertFalse(cancelled.isExact());
+            assertTrue(cancelled.count() > 0);
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+        }
+    }
+}
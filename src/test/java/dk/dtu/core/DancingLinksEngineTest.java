@@ -0,0 +1,265 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ArrayDancingLinks;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.ReducedCover;
+import dk.dtu.game.core.solver.algorithmx.RestartSchedule;
+import dk.dtu.game.core.solver.algorithmx.SearchEffort;
+import dk.dtu.game.core.solver.algorithmx.SearchStatistics;
+import dk.dtu.game.core.solver.algorithmx.SudokuCoverMatrix;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DancingLinksEngineTest {
+
+    static final int[][] PUZZLE = {
+        {5, 3, 0, 0, 7, 0, 0, 0, 0},
+        {6, 0, 0, 1, 9, 5, 0, 0, 0},
+        {0, 9, 8, 0, 0, 0, 0, 6, 0},
+        {8, 0, 0, 0, 6, 0, 0, 0, 3},
+        {4, 0, 0, 8, 0, 3, 0, 0, 1},
+        {7, 0, 0, 0, 2, 0, 0, 0, 6},
+        {0, 6, 0, 0, 0, 0, 2, 8, 0},
+        {0, 0, 0, 4, 1, 9, 0, 0, 5},
+        {0, 0, 0, 0, 8, 0, 0, 7, 9}
+    };
+
+    static final int[][] HARD_PUZZLE = {
+        {8, 0, 0, 0, 0, 0, 0, 0, 0},
+        {0, 0, 3, 6, 0, 0, 0, 0, 0},
+        {0, 7, 0, 0, 9, 0, 2, 0, 0},
+        {0, 5, 0, 0, 0, 7, 0, 0, 0},
+        {0, 0, 0, 0, 4, 5, 7, 0, 0},
+        {0, 0, 0, 1, 0, 0, 0, 3, 0},
+        {0, 0, 1, 0, 0, 0, 0, 6, 8},
+        {0, 0, 8, 5, 0, 0, 0, 1, 0},
+        {0, 9, 0, 0, 0, 0, 4, 0, 0}
+    };
+
+    @AfterEach
+    void resetEngine() {
+        AlgorithmXSolver.setEngine(AlgorithmXSolver.Engine.ARRAY);
+    }
+
+    private static int[][] solveWith(AlgorithmXSolver.Engine engine, int[][] puzzle, int n)
+            throws Board.BoardNotCreatable {
+        AlgorithmXSolver.setEngine(engine);
+        Board board = new Board(n, n);
+        board.setInitialBoard(puzzle);
+        return AlgorithmXSolver.solveExistingBoard(board);
+    }
+
+    private static int countWith(AlgorithmXSolver.Engine engine, int[][] puzzle) {
+        AlgorithmXSolver.setEngine(engine);
+        return AlgorithmXSolver.checkUniqueSolution(puzzle);
+    }
+
+    @Test
+    @DisplayName("Both engines find the same solution for unique puzzles")
+    void testIdenticalSolutions() throws Exception {
+        for (int[][] puzzle : new int[][][] {PUZZLE, HARD_PUZZLE}) {
+            int[][] nodeSolution = solveWith(AlgorithmXSolver.Engine.NODE, puzzle, 3);
+            int[][] arraySolution = solveWith(AlgorithmXSolver.Engine.ARRAY, puzzle, 3);
+
+            assertArrayEquals(nodeSolution, arraySolution);
+            assertTrue(BoardChecks.isSolvedGrid(arraySolution, 3));
+            assertTrue(BoardChecks.keepsGivens(puzzle, arraySolution));
+        }
+    }
+
+    @Test
+    @DisplayName("Both engines give the same solution count")
+    void testIdenticalSolutionCounts() {
+        int[][] ambiguous = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(PUZZLE[i], 0, ambiguous[i], 0, 9);
+        }
+        ambiguous[0][0] = 0;
+        ambiguous[0][1] = 0;
+        ambiguous[1][0] = 0;
+        ambiguous[4][0] = 0;
+
+        int[][][] boards = {PUZZLE, HARD_PUZZLE, ambiguous, new int[4][4], new int[9][9]};
+        for (int[][] board : boards) {
+            assertEquals(
+                    countWith(AlgorithmXSolver.Engine.NODE, board),
+                    countWith(AlgorithmXSolver.Engine.ARRAY, board));
+        }
+        assertEquals(1, countWith(AlgorithmXSolver.Engine.ARRAY, PUZZLE));
+        assertEquals(2, countWith(AlgorithmXSolver.Engine.ARRAY, new int[4][4]));
+    }
+
+    @Test
+    @DisplayName("The array engine counts every 4x4 grid")
+    void testCountAllSmallGrids() {
+        List<int[]> cover = AlgorithmXSolver.createExactCoverFromBoard(new int[4][4], new ArrayList<>());
+        ArrayDancingLinks dl = new ArrayDancingLinks(cover);
+
+        assertEquals(288, dl.countSolutions(Integer.MAX_VALUE));
+        assertEquals(288, dl.countSolutions(Integer.MAX_VALUE)); // the matrix is restored after a search
+    }
+
+    @Test
+    @DisplayName("Covering and uncovering a column restores the array matrix")
+    void testCoverUncover() {
+        List<int[]> cover = AlgorithmXSolver.createExactCoverFromBoard(new int[4][4], new ArrayList<>());
+        ArrayDancingLinks dl = new ArrayDancingLinks(cover);
+
+        assertEquals(64, dl.getNumColumns());
+        assertEquals(4, dl.getColumnSize(0));
+
+        dl.cover(0);
+        assertTrue(dl.isColumnCovered(0));
+        assertEquals(3, dl.getColumnSize(16)); // the row constraint lost the row placed in cell (0,0)
+
+        dl.uncover(0);
+        assertFalse(dl.isColumnCovered(0));
+        for (int c = 0; c < dl.getNumColumns(); c++) {
+            assertEquals(4, dl.getColumnSize(c));
+        }
+    }
+
+    @Test
+    @DisplayName("The size buckets always point the search at a smallest column")
+    void testSizeBuckets() {
+        SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(9);
+        assertTrue(coverMatrix.load(HARD_PUZZLE));
+        ArrayDancingLinks dl = coverMatrix.getMatrix();
+
+        for (boolean randomTieBreak : new boolean[] {true, false}) {
+            dl.setRandomTieBreak(randomTieBreak);
+            int smallest = Integer.MAX_VALUE;
+            for (int c = 0; c < dl.getNumColumns(); c++) {
+                if (!dl.isColumnCovered(c)) {
+                    smallest = Math.min(smallest, dl.getColumnSize(c));
+                }
+            }
+            assertEquals(smallest, dl.branchRows().length);
+            assertEquals(1, dl.countSolutions(2)); // the buckets are restored after a search
+        }
+
+        ArrayDancingLinks empty = new ArrayDancingLinks(AlgorithmXSolver.createExactCoverFromBoard(new int[4][4], new ArrayList<>()));
+        empty.setRandomTieBreak(false);
+        assertEquals(288, empty.countSolutions(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("The reduced core counts the same solutions as the full matrix")
+    void testReducedCover() {
+        BitboardSolver singles = new BitboardSolver(3, 3);
+        ReducedCover nearlyDone = ReducedCover.of(singles, PUZZLE);
+        assertTrue(nearlyDone.isSolved()); // singles alone finish this one
+        assertTrue(BoardChecks.isSolvedGrid(nearlyDone.toBoard(new int[0]), 3));
+
+        SudokuCoverMatrix full = new SudokuCoverMatrix(9);
+        Random random = new Random(8);
+        for (int i = 0; i < 30; i++) {
+            int[][] board = SolverAlgorithm.deepCopyBoard(HARD_PUZZLE);
+            for (int blanks = 0; blanks < i % 5; blanks++) {
+                board[random.nextInt(9)][random.nextInt(9)] = 0;
+            }
+            if (i % 7 == 6) {
+                board[4][8] = 9; // a wrong given, but no clash with the other givens
+            }
+            ReducedCover core = ReducedCover.of(singles, board);
+            int expected = full.load(board) ? full.countSolutions(Integer.MAX_VALUE) : 0;
+            int actual;
+            if (core.isSolved()) {
+                actual = 1;
+            } else {
+                actual = core.hasSolution() ? new ArrayDancingLinks(core.getRows()).countSolutions(Integer.MAX_VALUE) : 0;
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("Searches with a node budget restart until they finish and give the same answers")
+    void testRestarts() throws Board.BoardNotCreatable {
+        RestartSchedule luby = RestartSchedule.luby(1);
+        long[] budgets = IntStream.range(0, 15).mapToLong(luby::budget).toArray();
+        assertArrayEquals(new long[] {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8}, budgets);
+        assertEquals(40, RestartSchedule.geometric(10, 2).budget(2));
+
+        SearchStatistics statistics = new SearchStatistics();
+        ArrayDancingLinks dl = new ArrayDancingLinks(AlgorithmXSolver.createExactCoverFromBoard(new int[4][4], new ArrayList<>()));
+        dl.setRestarts(RestartSchedule.luby(4), statistics);
+        assertEquals(288, dl.countSolutions(Integer.MAX_VALUE)); // only an attempt that sees the whole tree counts
+        assertTrue(statistics.getRestarts() > 0);
+        assertEquals(statistics.getRestarts() + 1, statistics.getSearches());
+
+        ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        solver.setRestartSchedule(RestartSchedule.luby(1));
+        Board board = new Board(3, 3);
+        board.setInitialBoard(HARD_PUZZLE);
+        int[][] solution = solver.solveExistingBoard(board);
+        assertTrue(BoardChecks.isSolvedGrid(solution, 3));
+        assertTrue(BoardChecks.keepsGivens(HARD_PUZZLE, solution));
+        assertTrue(solver.getStatistics().getRestarts() > 0);
+        assertEquals(1, solver.checkUniqueSolution(HARD_PUZZLE));
+    }
+
+    @Test
+    @DisplayName("Every search counts its effort, and a puzzle is always rated the same")
+    void testEffort() {
+        SearchStatistics statistics = new SearchStatistics();
+        ArrayDancingLinks dl = new ArrayDancingLinks(AlgorithmXSolver.createExactCoverFromBoard(new int[4][4], new ArrayList<>()));
+        dl.setRestarts(null, statistics);
+        assertEquals(288, dl.countSolutions(Integer.MAX_VALUE));
+        SearchEffort effort = statistics.getEffort();
+        assertEquals(16, effort.maxDepth()); // one row per cell
+        assertTrue(effort.covers() > effort.nodes());
+        assertEquals(0, effort.backtracks()); // taking the smallest column first, no branch of an empty 4x4 grid is a dead end
+
+        ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        assertEquals(1, solver.checkUniqueSolution(PUZZLE));
+        assertEquals(SearchEffort.NONE, solver.getEffort()); // the singles finish it
+        assertEquals(0, solver.rate(PUZZLE, 3, 3).score());
+
+        SearchEffort hard = solver.rate(HARD_PUZZLE, 3, 3);
+        assertTrue(hard.backtracks() > 0);
+        assertTrue(hard.score() > 0);
+        assertEquals(hard, solver.rate(HARD_PUZZLE, 3, 3));
+        assertEquals(hard, solver.getEffort());
+        assertTrue(solver.getStatistics().getBacktracks() >= 2 * hard.backtracks()); // every call adds to the totals
+    }
+
+    @Test
+    @DisplayName("The reusable cover matrix gives the same answers as a freshly built matrix")
+    void testReusableCoverMatrix() {
+        SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(9);
+        int[][] puzzle = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(HARD_PUZZLE[i], 0, puzzle[i], 0, 9);
+        }
+
+        for (int round = 0; round < 3; round++) { // loading again must not see the previous board
+            assertTrue(coverMatrix.load(puzzle));
+            assertEquals(1, coverMatrix.countSolutions(2));
+            assertTrue(coverMatrix.load(new int[9][9]));
+            assertEquals(2, coverMatrix.countSolutions(2));
+        }
+
+        puzzle[0][1] = 8; // clashes with the 8 in the top left corner
+        assertFalse(coverMatrix.load(puzzle));
+
+        assertTrue(coverMatrix.load(PUZZLE));
+        ArrayDancingLinks matrix = coverMatrix.getMatrix();
+        assertTrue(matrix.solve());
+        int[][] solution = coverMatrix.toBoard(matrix.getSolution());
+        assertTrue(BoardChecks.isSolvedGrid(solution, 3));
+        assertTrue(BoardChecks.keepsGivens(PUZZLE, solution));
+    }
+}
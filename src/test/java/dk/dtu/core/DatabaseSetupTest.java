@@ -15,7 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class DatabaseSetupTest {
-    private static final String DB_URL = "jdbc:sqlite:test_sudoku.db";
+    private static final String DB_URL = TestDatabase.URL;
 
     @BeforeEach
     public void setUp() {
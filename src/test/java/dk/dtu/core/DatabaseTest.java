@@ -17,7 +17,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class DatabaseTest {
 
-    private static final String DB_URL = "jdbc:sqlite:test_sudoku.db";
+    private static final String DB_URL = TestDatabase.URL;
 
     @BeforeEach
     public void setUp() {
@@ -46,7 +46,7 @@ class DatabaseTest {
         // Arrange
         DatabaseSetup.setup(DB_URL);
         // Act
-        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard("jdbc:sqlite:test_sudoku.db");
+        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard(DB_URL);
         // Assert
         assertTrue(leaderboard.isEmpty(), "Leaderboard should be empty");
     }
@@ -65,7 +65,7 @@ class DatabaseTest {
         } catch (SQLException e) {
             fail("An error occurred while inserting leaderboard entries: " + e.getMessage());
         }
-        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard("jdbc:sqlite:test_sudoku.db");
+        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard(DB_URL);
         // Assert
         assertEquals(3, leaderboard.size(), "Leaderboard should contain 3 entries");
     }
@@ -76,11 +76,11 @@ class DatabaseTest {
         DatabaseSetup.setup(DB_URL);
 
         UpdateLeaderboard.addScore(DB_URL, "TEST", "easy", 100, 3, 3);
-        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard("jdbc:sqlite:test_sudoku.db");
+        List<Leaderboard.LeaderboardEntry> leaderboard = Leaderboard.loadLeaderboard(DB_URL);
 
         assertEquals(1, leaderboard.size(), "Leaderboard should contain 1 entry");
-        assertEquals("TEST", leaderboard.getFirst().getUsername(), "Username should be TEST");
-        assertEquals("easy", leaderboard.getFirst().getDifficulty(), "Difficulty should be easy");
+        assertEquals("TEST", leaderboard.get(0).getUsername(), "Username should be TEST");
+        assertEquals("easy", leaderboard.get(0).getDifficulty(), "Difficulty should be easy");
     }
 
     @Test
@@ -131,7 +131,7 @@ class DatabaseTest {
         List<SavedGame.SavedGameData> savedGames = SavedGame.loadSavedGames(DB_URL);
 
         assertEquals(1, savedGames.size(), "There should be 1 saved game");
-        assertEquals("test_game", savedGames.getFirst().getName(), "The saved game name should be 'test_game'");
-        assertEquals(100, savedGames.getFirst().getTime(), "The time should be 100");
+        assertEquals("test_game", savedGames.get(0).getName(), "The saved game name should be 'test_game'");
+        assertEquals(100, savedGames.get(0).getTime(), "The time should be 100");
     }
 }
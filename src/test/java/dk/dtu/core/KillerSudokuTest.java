@@ -59,7 +59,7 @@ class KillerSudokuTest {
     void testGenerateKillerSudokuCages() {
         game.generateKillerSudokuCages();
         assertTrue(sudokuBoardCanvasBoard.getCages().size() > 1);
-        assertTrue(sudokuBoardCanvasBoard.getCages().getFirst().getSum() > 0);
+        assertTrue(sudokuBoardCanvasBoard.getCages().get(0).getSum() > 0);
     }
 
 }
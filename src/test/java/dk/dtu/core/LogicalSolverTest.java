@@ -0,0 +1,132 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.ScoreBand;
+import dk.dtu.game.core.solver.logical.Grade;
+import dk.dtu.game.core.solver.logical.Grading;
+import dk.dtu.game.core.solver.logical.LogicalSolver;
+import dk.dtu.game.core.solver.logical.StepTrace;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LogicalSolverTest {
+
+    @Test
+    @DisplayName("Singles solve the easy puzzle, and the trace places every open cell")
+    void testSingles() {
+        int[][] puzzle = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.PUZZLE);
+        Grading grading = new LogicalSolver(3, 3).grade(puzzle);
+        assertTrue(grading.solved());
+        assertEquals(Grade.EASY, grading.grade());
+        assertTrue(BoardChecks.isSolvedGrid(grading.board(), 3));
+        assertTrue(BoardChecks.keepsGivens(puzzle, grading.board()));
+        assertArrayEquals(DancingLinksEngineTest.PUZZLE, puzzle); // the board given is left alone
+
+        StepTrace trace = grading.trace();
+        assertEquals(51, trace.size()); // 51 open cells, all placed by singles
+        for (int step = 0; step < trace.size(); step++) {
+            assertTrue(trace.isPlacement(step));
+            assertEquals(grading.board()[trace.cell(step) / 9][trace.cell(step) % 9], trace.digit(step));
+        }
+        assertTrue(trace.toString().matches("([NH]S r\\dc\\d=\\d ?)+"));
+    }
+
+    @Test
+    @DisplayName("Puzzles the techniques cannot finish, and boards without a solution, are extreme")
+    void testExtreme() {
+        Grading hardest = new LogicalSolver(3, 3).grade(DancingLinksEngineTest.HARD_PUZZLE);
+        assertFalse(hardest.solved());
+        assertEquals(Grade.EXTREME, hardest.grade());
+
+        int[][] clash = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.PUZZLE);
+        clash[0][2] = 5;
+        Grading broken = new LogicalSolver(3, 3).grade(clash);
+        assertFalse(broken.solved());
+        assertEquals(Grade.EXTREME, broken.grade());
+        assertEquals(0, broken.trace().size());
+    }
+
+    @Test
+    @DisplayName("Every step agrees with the solution, on square and narrow boards")
+    void testStepsAreSound() throws Board.BoardNotCreatable {
+        Set<Grade> seen = EnumSet.noneOf(Grade.class);
+        for (int[] shape : new int[][] {{3, 3}, {3, 2}}) {
+            Config.setDifficulty("extreme");
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(16));
+            generator.setGradeAttempts(0);
+            LogicalSolver solver = new LogicalSolver(shape[0], shape[1]);
+            for (int i = 0; i < 100; i++) {
+                Board board = new Board(shape[0], shape[1]);
+                generator.createXSudoku(board);
+                int[][] solution = board.getSolvedBoard();
+                Grading grading = solver.grade(board.getInitialBoard());
+                seen.add(grading.grade());
+
+                StepTrace trace = grading.trace();
+                for (int step = 0; step < trace.size(); step++) {
+                    int digit = solution[trace.cell(step) / solution.length][trace.cell(step) % solution.length];
+                    assertEquals(trace.isPlacement(step), digit == trace.digit(step), trace.technique(step) + " at step " + step);
+                }
+                if (grading.solved()) {
+                    assertArrayEquals(solution, grading.board());
+                    assertEquals(grading.hardest().getGrade(), grading.grade());
+                } else {
+                    assertTrue(BoardChecks.keepsGivens(grading.board(), solution));
+                }
+            }
+        }
+        assertEquals(EnumSet.allOf(Grade.class), seen);
+    }
+
+    @Test
+    @DisplayName("The generator rejects puzzles outside the grade of the difficulty")
+    void testGeneratorGrades() throws Board.BoardNotCreatable {
+        Config.setDifficulty("extreme");
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(16));
+        generator.setGradeAttempts(8);
+        int extreme = 0;
+        for (int i = 0; i < 20; i++) {
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            Grading grading = generator.getGrading();
+            assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), grading.board())); // the grading is of the puzzle that was kept
+            assertEquals(1, generator.checkUniqueSolution(board.getInitialBoard(), 3, 3));
+            extreme += grading.grade() == Grade.EXTREME ? 1 : 0;
+        }
+        assertTrue(extreme >= 15, extreme + " of 20 were extreme"); // about 2 in 5 are without the retries
+
+        generator.setGradeAttempts(0);
+        generator.createXSudoku(new Board(3, 3));
+        assertNull(generator.getGrading());
+    }
+
+    @Test
+    @DisplayName("The generator stores the score of the puzzle and aims for the band of the difficulty")
+    void testGeneratorScores() throws Board.BoardNotCreatable {
+        Config.setDifficulty("extreme");
+        ScoreBand band = ScoreBand.of("extreme");
+        int[] inBand = new int[2];
+        for (int attempts : new int[] {0, 8}) {
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(7));
+            generator.setGradeAttempts(attempts);
+            for (int i = 0; i < 20; i++) {
+                Board board = new Board(3, 3);
+                generator.createXSudoku(board);
+                assertEquals(generator.rate(board.getInitialBoard(), 3, 3).score(), board.getDifficultyScore());
+                inBand[attempts == 0 ? 0 : 1] += band.contains(board.getDifficultyScore()) ? 1 : 0;
+            }
+        }
+        assertTrue(inBand[1] > inBand[0], inBand[1] + " of 20 in the band, " + inBand[0] + " without the retries");
+        assertTrue(inBand[1] >= 14, inBand[1] + " of 20 in the band");
+    }
+}
@@ -0,0 +1,96 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.MinimalityCheck;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MinimalityCheckTest {
+
+    @Test
+    @DisplayName("Minimal puzzles lose no clue without a second solution, and come out quickly")
+    void testMinimalPuzzles() throws Board.BoardNotCreatable {
+        Config.setDifficulty("easy"); // the clue count of the difficulty does not apply
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(25));
+            generator.setForkJoinPool(pool);
+            generator.setGradeAttempts(0);
+            generator.setMinimalPuzzles(true);
+            MinimalityCheck check = new MinimalityCheck(pool, 3, 3);
+            long start = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                Board board = new Board(3, 3);
+                generator.createXSudoku(board);
+                int[][] puzzle = board.getInitialBoard();
+                assertEquals(1, generator.checkUniqueSolution(puzzle, 3, 3));
+                assertTrue(check.isMinimal(puzzle));
+                assertEquals(clues(puzzle), check.getChecks()); // nothing to stop at, so every clue was checked
+                for (int cell = 0; cell < 81; cell++) { // each clue taken away on its own lets a second solution in
+                    if (puzzle[cell / 9][cell % 9] != 0) {
+                        int[][] fewer = SolverAlgorithm.deepCopyBoard(puzzle);
+                        fewer[cell / 9][cell % 9] = 0;
+                        assertEquals(2, generator.checkUniqueSolution(fewer, 3, 3));
+                    }
+                }
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(millis < 10_000, millis + " ms for 20 puzzles and their checks");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A clue too many is found, and the check stops early once one is")
+    void testFindsRemovable() throws Board.BoardNotCreatable {
+        Config.setDifficulty("easy");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(25));
+            generator.setGradeAttempts(0);
+            generator.setMinimalPuzzles(true);
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            int[][] puzzle = board.getInitialBoard();
+            int[][] solution = board.getSolvedBoard();
+            int open = 0;
+            while (puzzle[open / 9][open % 9] != 0) {
+                open++;
+            }
+            puzzle[open / 9][open % 9] = solution[open / 9][open % 9]; // this clue can go again
+
+            MinimalityCheck check = new MinimalityCheck(pool, 3, 3);
+            int cell = check.findRemovable(puzzle);
+            assertTrue(cell >= 0);
+            int[][] fewer = SolverAlgorithm.deepCopyBoard(puzzle);
+            fewer[cell / 9][cell % 9] = 0;
+            assertEquals(1, generator.checkUniqueSolution(fewer, 3, 3));
+
+            assertFalse(check.isMinimal(solution)); // every clue of a full grid can go
+            assertTrue(check.getChecks() < 81, check.getChecks() + " clues checked");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int clues(int[][] board) {
+        int count = 0;
+        for (int[] row : board) {
+            for (int value : row) {
+                count += value != 0 ? 1 : 0;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,204 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.engine.utility.DatabaseSetup;
+import dk.dtu.engine.utility.PuzzleBank;
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.PuzzlePool;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PuzzleBankTest {
+    private static final String DB_URL = TestDatabase.URL;
+
+    @BeforeEach
+    public void setUp() {
+        DatabaseSetup.setup(DB_URL);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+                Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS puzzle_bank");
+        }
+    }
+
+    @Test
+    @DisplayName("Banked puzzles come back as they went in, and the same puzzle is banked once")
+    void testInsertAndDraw() throws Board.BoardNotCreatable {
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(19));
+        generator.setDifficulty("hard");
+        List<PuzzleBank.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Board board = new Board(3, 2);
+            generator.createXSudoku(board);
+            entries.add(new PuzzleBank.Entry(3, 2, "hard", 2, board.getDifficultyScore(),
+                    SolverAlgorithm.deepCopyBoard(board.getInitialBoard()), board.getSolvedBoard()));
+        }
+        assertEquals(5, PuzzleBank.insert(DB_URL, entries));
+        assertEquals(0, PuzzleBank.insert(DB_URL, entries));
+        assertEquals(0, PuzzleBank.insert(DB_URL, List.of(renamed(entries.get(0))))); // the digits are named differently, and it is transposed
+        assertEquals(5, PuzzleBank.count(DB_URL, 3, 2, "hard", 2));
+
+        Random random = new Random(5);
+        Set<Integer> drawnIndices = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            PuzzleBank.Entry drawn = PuzzleBank.draw(DB_URL, 3, 2, "hard", 2, random);
+            assertNotNull(drawn);
+            int index = IntStream.range(0, entries.size()).filter(e ->
+                    Arrays.deepEquals(entries.get(e).puzzle(), drawn.puzzle())
+                            && Arrays.deepEquals(entries.get(e).solution(), drawn.solution())
+                            && entries.get(e).score() == drawn.score()).findFirst().orElse(-1);
+            assertTrue(index >= 0);
+            drawnIndices.add(index);
+        }
+        assertEquals(5, drawnIndices.size()); // the first and the last one can be drawn too
+        assertNull(PuzzleBank.draw(DB_URL, 3, 2, "hard", 1, random));
+        assertNull(PuzzleBank.draw(DB_URL, 3, 3, "hard", 2, random));
+    }
+
+    @Test
+    @DisplayName("Every banked puzzle of a kind is drawn as often, however the kinds were banked in between")
+    void testDrawUniform() throws Board.BoardNotCreatable {
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(19));
+        generator.setDifficulty("hard");
+        List<int[][]> drawable = new ArrayList<>();
+        for (int others : new int[] {0, 9, 1, 6}) { // uneven runs of another kind between them
+            PuzzleBank.Entry entry = entry(generator, "hard");
+            if (PuzzleBank.insert(DB_URL, List.of(entry)) == 1) {
+                drawable.add(entry.puzzle());
+            }
+            for (int i = 0; i < others; i++) {
+                PuzzleBank.insert(DB_URL, List.of(entry(generator, "medium")));
+            }
+        }
+        assertEquals(drawable.size(), PuzzleBank.count(DB_URL, 3, 2, "hard", 2));
+
+        Random random = new Random(19);
+        int draws = 100 * drawable.size();
+        int[] drawn = new int[drawable.size()];
+        for (int i = 0; i < draws; i++) {
+            int[][] puzzle = PuzzleBank.draw(DB_URL, 3, 2, "hard", 2, random).puzzle();
+            int index = IntStream.range(0, drawable.size())
+                    .filter(e -> Arrays.deepEquals(drawable.get(e), puzzle)).findFirst().orElse(-1);
+            assertTrue(index >= 0);
+            drawn[index]++;
+        }
+        for (int count : drawn) {
+            assertTrue(count > 60 && count < 140, Arrays.toString(drawn) + " draws of each");
+        }
+    }
+
+    @Test
+    @DisplayName("The pool banks what it makes, and a new pool starts from the bank")
+    void testPoolUsesBank() throws Exception {
+        PuzzlePool.Key key = new PuzzlePool.Key(3, 3, "easy", false);
+        PuzzlePool stocker = new PuzzlePool(3);
+        stocker.setBank(DB_URL);
+        stocker.warm(key); // the refill banks the three it queues
+        assertTrue(stocker.awaitIdle(30, TimeUnit.SECONDS));
+        stocker.shutdown();
+        assertEquals(3, PuzzleBank.count(DB_URL, 3, 3, "easy", 0));
+
+        PuzzlePool pool = new PuzzlePool(1);
+        pool.setBank(DB_URL);
+        try {
+            Board board = new Board(3, 3);
+            assertTrue(pool.take(board, "easy", false)); // nothing queued yet
+            assertEquals(1, pool.getBankHits());
+            assertEquals(1.0, pool.getHitRate());
+            assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), board.getSolvedBoard()));
+            assertEquals(1, AlgorithmXSolver.checkUniqueSolution(board.getInitialBoard(), 3, 3));
+            assertTrue(pool.awaitIdle(30, TimeUnit.SECONDS));
+            assertEquals(4, PuzzleBank.count(DB_URL, 3, 3, "easy", 0)); // the refill was banked too
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("The pool does not hand out a banked puzzle twice")
+    void testPoolSkipsSeen() throws Board.BoardNotCreatable {
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(21));
+        generator.setDifficulty("easy");
+        Board banked = new Board(3, 3);
+        generator.createXSudoku(banked);
+        PuzzleBank.insert(DB_URL, List.of(new PuzzleBank.Entry(3, 3, "easy", 0, banked.getDifficultyScore(),
+                banked.getInitialBoard(), banked.getSolvedBoard())));
+
+        PuzzlePool pool = new PuzzlePool(1);
+        pool.setBank(DB_URL);
+        pool.shutdown(); // nothing is made, every puzzle has to come from the bank
+        Board first = new Board(3, 3);
+        assertTrue(pool.take(first, "easy", false));
+        assertArrayEquals(banked.getInitialBoard(), first.getInitialBoard());
+        assertFalse(pool.take(new Board(3, 3), "easy", false)); // the only one in the bank was handed out already
+        assertTrue(pool.getCopies() > 0);
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    @DisplayName("The pool remembers a bounded number of puzzles, and hands out the oldest again once forgotten")
+    void testPoolForgets() throws Board.BoardNotCreatable {
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(18));
+        generator.setDifficulty("easy");
+        List<PuzzleBank.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            entries.add(new PuzzleBank.Entry(3, 3, "easy", 0, board.getDifficultyScore(), board.getInitialBoard(), board.getSolvedBoard()));
+        }
+        assertEquals(2, PuzzleBank.insert(DB_URL, entries));
+
+        int[] handedOut = new int[2];
+        for (int remembered : new int[] {PuzzlePool.DEFAULT_REMEMBERED, 1}) {
+            PuzzlePool pool = new PuzzlePool(1, remembered);
+            pool.setBank(DB_URL);
+            pool.shutdown(); // every puzzle has to come from the bank
+            for (int i = 0; i < 20; i++) {
+                handedOut[remembered == 1 ? 1 : 0] += pool.take(new Board(3, 3), "easy", false) ? 1 : 0;
+            }
+        }
+        assertEquals(2, handedOut[0]); // each once, then only copies are left
+        assertTrue(handedOut[1] > 10, handedOut[1] + " of 20 handed out"); // only the last one is held back
+    }
+
+    private static PuzzleBank.Entry entry(ExactCoverSolver generator, String difficulty) throws Board.BoardNotCreatable {
+        Board board = new Board(3, 2);
+        generator.createXSudoku(board);
+        return new PuzzleBank.Entry(3, 2, difficulty, 2, board.getDifficultyScore(),
+                SolverAlgorithm.deepCopyBoard(board.getInitialBoard()), board.getSolvedBoard());
+    }
+
+    private static PuzzleBank.Entry renamed(PuzzleBank.Entry entry) { // every digit d becomes 10 - d, rows become columns
+        int[][] puzzle = new int[6][6];
+        int[][] solution = new int[6][6];
+        for (int r = 0; r < 6; r++) {
+            for (int c = 0; c < 6; c++) {
+                puzzle[c][r] = entry.puzzle()[r][c] == 0 ? 0 : 10 - entry.puzzle()[r][c];
+                solution[c][r] = 10 - entry.solution()[r][c];
+            }
+        }
+        return new PuzzleBank.Entry(3, 2, "hard", 2, entry.score(), puzzle, solution);
+    }
+}
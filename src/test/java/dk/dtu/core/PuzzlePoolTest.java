@@ -0,0 +1,82 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.PuzzlePool;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PuzzlePoolTest {
+    private PuzzlePool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new PuzzlePool(2);
+        Config.setDifficulty("medium");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("An empty pool misses without touching the board, and fills itself up for the next game")
+    void testTakeAndRefill() throws Exception {
+        PuzzlePool.Key key = new PuzzlePool.Key(3, 3, "Medium", false);
+        assertEquals("medium", key.difficulty());
+
+        Board board = new Board(3, 3);
+        assertFalse(pool.take(board, "medium", false));
+        assertTrue(Arrays.stream(board.getInitialBoard()).flatMapToInt(Arrays::stream).allMatch(cell -> cell == 0));
+        assertTrue(pool.awaitIdle(30, TimeUnit.SECONDS));
+        assertEquals(2, pool.size(key));
+
+        assertTrue(pool.take(board, "Medium", false));
+        assertTrue(BoardChecks.isSolvedGrid(board.getSolvedBoard(), 3));
+        assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), board.getSolvedBoard()));
+        assertArrayEquals(board.getInitialBoard(), board.getGameBoard());
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(board.getInitialBoard(), 3, 3));
+        assertTrue(board.getDifficultyScore() >= 0);
+
+        assertTrue(pool.awaitIdle(30, TimeUnit.SECONDS));
+        assertEquals(2, pool.size(key)); // the puzzle taken was made again
+        assertEquals(0.5, pool.getHitRate());
+        assertEquals(3, pool.getGenerated());
+        assertTrue(pool.getAverageRefillNanos() > 0);
+        assertTrue(pool.getMaxRefillNanos() >= pool.getAverageRefillNanos());
+    }
+
+    @Test
+    @DisplayName("Every configuration has its own queue, made for its own difficulty")
+    void testKeys() throws Exception {
+        pool.warm(new PuzzlePool.Key(3, 3, "easy", false));
+        pool.warm(new PuzzlePool.Key(3, 3, "extreme", false));
+        pool.warm(new PuzzlePool.Key(3, 2, "easy", true));
+        assertTrue(pool.awaitIdle(60, TimeUnit.SECONDS));
+        assertEquals(0, pool.size(new PuzzlePool.Key(3, 3, "easy", true))); // killer mode is not warmed
+
+        Board easy = new Board(3, 3);
+        Board extreme = new Board(3, 3);
+        Board narrow = new Board(3, 2);
+        assertTrue(pool.take(easy, "easy", false));
+        assertTrue(pool.take(extreme, "extreme", false));
+        assertTrue(pool.take(narrow, "easy", true));
+        assertEquals(81 - 27, givens(easy)); // what Config says does not matter, medium would take 40
+        assertTrue(givens(extreme) < 81 - 40);
+        assertTrue(BoardChecks.keepsGivens(narrow.getInitialBoard(), narrow.getSolvedBoard()));
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(narrow.getInitialBoard(), 3, 2));
+    }
+
+    private static long givens(Board board) {
+        return Arrays.stream(board.getInitialBoard()).flatMapToInt(Arrays::stream).filter(cell -> cell != 0).count();
+    }
+}
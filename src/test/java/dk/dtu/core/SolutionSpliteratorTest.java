@@ -0,0 +1,114 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ArrayDancingLinks;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SolutionSpliterator;
+import dk.dtu.game.core.solver.algorithmx.SudokuCoverMatrix;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SolutionSpliteratorTest {
+
+    private final ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(6));
+
+    @Test
+    @DisplayName("The stream hands out every solution once, in sequence and in parallel")
+    void testEverySolution() {
+        Set<String> grids = solver.solutions(new int[4][4], 2, 2).map(Arrays::deepToString).collect(Collectors.toSet());
+        assertEquals(288, grids.size());
+        assertEquals(288, solver.solutions(new int[4][4], 2, 2).parallel().map(Arrays::deepToString).distinct().count());
+        assertTrue(solver.solutions(new int[4][4], 2, 2).allMatch(grid -> BoardChecks.isSolvedGrid(grid, 2)));
+
+        assertEquals(24, solver.solutions(new int[2][2], 2, 1).count()); // one box, the rows may leave digits out
+        assertEquals(1, solver.solutions(DancingLinksEngineTest.PUZZLE, 3, 3).count()); // the singles finish it
+        int[][] clash = SolverAlgorithm.deepCopyBoard(DancingLinksEngineTest.PUZZLE);
+        clash[0][2] = 5;
+        assertEquals(0, solver.solutions(clash, 3, 3).count());
+    }
+
+    @Test
+    @DisplayName("The stream counts the same solutions as the bitboard solver")
+    void testCounts() throws Board.BoardNotCreatable {
+        Random random = new Random(6);
+        for (int[] shape : new int[][] {{3, 3}, {3, 2}}) {
+            int[][] grid = solver.solveExistingBoard(new Board(shape[0], shape[1]));
+            for (int i = 0; i < 6; i++) {
+                int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+                for (int blanks = 0; blanks < grid.length * grid.length * (4 + i) / 12; blanks++) {
+                    puzzle[random.nextInt(grid.length)][random.nextInt(grid.length)] = 0;
+                }
+                int expected = new BitboardSolver(shape[0], shape[1]).countSolutions(puzzle, 20_000);
+                if (expected < 20_000) {
+                    assertEquals(expected, solver.solutions(puzzle, shape[0], shape[1]).count());
+                    assertEquals(expected, solver.solutions(puzzle, shape[0], shape[1]).parallel().count());
+                    assertTrue(solver.solutions(puzzle, shape[0], shape[1]).allMatch(s -> BoardChecks.keepsGivens(puzzle, s)));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Solutions are searched for only when they are asked for")
+    void testLazy() {
+        List<int[][]> first = solver.solutions(new int[16][16], 4, 4).limit(3).toList(); // an empty 16x16 board has far too many to list
+        assertEquals(3, first.size());
+        for (int[][] grid : first) {
+            assertTrue(BoardChecks.isSolvedGrid(grid, 4));
+        }
+    }
+
+    @Test
+    @DisplayName("A split hands off untried branches and the halves add up")
+    void testSplit() {
+        SudokuCoverMatrix coverMatrix = new SudokuCoverMatrix(4);
+        assertTrue(coverMatrix.load(new int[4][4]));
+        ArrayDancingLinks matrix = new ArrayDancingLinks(coverMatrix.getMatrix());
+        SolutionSpliterator spliterator = new SolutionSpliterator(matrix, coverMatrix::toBoard);
+
+        int[] counts = new int[1];
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spliterator.tryAdvance(grid -> counts[0]++)); // start the search before splitting it
+        }
+        Spliterator<int[][]> other = spliterator.trySplit();
+        assertNotNull(other);
+        Spliterator<int[][]> third = other.trySplit();
+        assertNotNull(third);
+        spliterator.forEachRemaining(grid -> counts[0]++);
+        other.forEachRemaining(grid -> counts[0]++);
+        third.forEachRemaining(grid -> counts[0]++);
+        assertEquals(288, counts[0]);
+        assertEquals(0, matrix.getDepth()); // every row chosen by the search has been taken back
+    }
+
+    @Test
+    @DisplayName("Solutions can be streamed to a file")
+    void testWriteSolutions(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("solutions.txt");
+        assertEquals(100, solver.writeSolutions(new int[9][9], 3, 3, 100, file));
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100, lines.size());
+        assertEquals(100, lines.stream().distinct().count());
+        int[][] grid = Arrays.stream(lines.get(0).split(";"))
+                .map(row -> Arrays.stream(row.split(",")).mapToInt(Integer::parseInt).toArray())
+                .toArray(int[][]::new);
+        assertTrue(BoardChecks.isSolvedGrid(grid, 3));
+
+        assertEquals(288, solver.writeSolutions(new int[4][4], 2, 2, Long.MAX_VALUE, file));
+    }
+}
@@ -0,0 +1,103 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import dk.dtu.game.core.solver.bitboard.SolutionTable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SolutionTableTest {
+
+    @Test
+    @DisplayName("Only the shapes with 2x2 boxes have a table, and it holds every grid")
+    void testTableSizes() {
+        assertEquals(24, SolutionTable.of(2, 1).size());
+        assertEquals(288, SolutionTable.of(2, 2).size());
+        assertNull(SolutionTable.of(3, 1));
+        assertNull(SolutionTable.of(3, 3));
+        assertTrue(SolutionTable.of(2, 2).solutions(new int[4][4]).allMatch(grid -> BoardChecks.isSolvedGrid(grid, 2)));
+        assertEquals(288, SolutionTable.of(2, 2).solutions(new int[4][4]).map(Arrays::deepToString).distinct().count());
+    }
+
+    @Test
+    @DisplayName("The table answers like a search")
+    void testMatchesSearch() {
+        SolutionTable table = SolutionTable.of(2, 2);
+        int[][] grid = table.solve(new int[4][4], new Random(2));
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            int[][] puzzle = SolverAlgorithm.deepCopyBoard(grid);
+            for (int blanks = 0; blanks < i % 16; blanks++) {
+                puzzle[random.nextInt(4)][random.nextInt(4)] = 0;
+            }
+            if (i % 10 == 9) {
+                puzzle[random.nextInt(4)][random.nextInt(4)] = 1 + random.nextInt(4); // may clash
+            }
+            int expected = new BitboardSolver(2, 2).countSolutions(puzzle, Integer.MAX_VALUE);
+            assertEquals(expected, table.countSolutions(puzzle, Integer.MAX_VALUE));
+            assertEquals(Math.min(expected, 2), table.countSolutions(puzzle, 2));
+
+            int[][] solution = table.solve(puzzle, random);
+            assertEquals(expected == 0, solution == null);
+            if (solution != null) {
+                assertTrue(BoardChecks.isSolvedGrid(solution, 2));
+                assertTrue(BoardChecks.keepsGivens(puzzle, solution));
+            }
+        }
+        assertEquals(0, table.countSolutions(new int[][] {{5, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}}, 2));
+    }
+
+    @Test
+    @DisplayName("A table is saved once and read back, and a damaged file is built again")
+    void testDiskCache(@TempDir Path dir) throws Exception {
+        SolutionTable built = SolutionTable.load(dir, 2, 2);
+        Path file = dir.resolve("2x2.gz");
+        assertTrue(Files.exists(file));
+
+        SolutionTable read = SolutionTable.load(dir, 2, 2);
+        assertEquals(built.size(), read.size());
+        assertEquals(1, read.countSolutions(built.solve(new int[4][4], new Random(1)), 2)); // a full grid matches only itself
+
+        Files.write(file, new byte[] {1, 2, 3});
+        assertEquals(288, SolutionTable.load(dir, 2, 2).size());
+    }
+
+    @Test
+    @DisplayName("The solver uses the table for small boards and gives the same answers without it")
+    void testSolverBackend() throws Board.BoardNotCreatable {
+        Config.setDifficulty("hard");
+        ExactCoverSolver withTable = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(4));
+        ExactCoverSolver withoutTable = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(4));
+        withoutTable.setSolutionTables(false);
+        for (int[] shape : new int[][] {{2, 1}, {2, 2}}) {
+            for (int i = 0; i < 20; i++) {
+                Board board = new Board(shape[0], shape[1]);
+                withTable.createXSudoku(board);
+                int[][] puzzle = board.getInitialBoard();
+                assertTrue(BoardChecks.isSolvedGrid(board.getSolvedBoard(), 2));
+                assertTrue(BoardChecks.keepsGivens(puzzle, board.getSolvedBoard()));
+                assertEquals(1, withTable.checkUniqueSolution(puzzle, shape[0], shape[1]));
+                assertEquals(1, withoutTable.checkUniqueSolution(puzzle, shape[0], shape[1]));
+            }
+            int[][] empty = new int[2 * shape[1]][2 * shape[1]];
+            assertEquals(
+                    withoutTable.countSolutions(empty, shape[0], shape[1], 1000).count(),
+                    withTable.countSolutions(empty, shape[0], shape[1], 1000).count());
+            assertEquals(
+                    withoutTable.solutions(empty, shape[0], shape[1]).count(),
+                    withTable.solutions(empty, shape[0], shape[1]).count());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.engine.utility.DatabaseSetup;
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolveCache;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SolveCacheTest {
+    private static final String DB_URL = TestDatabase.URL;
+
+    private SolveCache cache;
+    private SolveCache previous;
+
+    @BeforeEach
+    public void setUp() {
+        DatabaseSetup.setup(DB_URL);
+        cache = new SolveCache(32);
+        previous = AlgorithmXSolver.getSolveCache();
+        AlgorithmXSolver.setSolveCache(cache);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        AlgorithmXSolver.setSolveCache(previous);
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+                Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS solve_cache");
+        }
+    }
+
+    @Test
+    @DisplayName("A relabelled and transposed copy of a solved board is answered from memory")
+    void testCopyHits() throws Board.BoardNotCreatable {
+        int[][] puzzle = puzzle(22);
+        Board board = new Board(4, 4);
+        board.setInitialBoard(SolverAlgorithm.deepCopyBoard(puzzle));
+        int[][] solution = AlgorithmXSolver.solveExistingBoard(board);
+        assertEquals(1, cache.getMisses());
+
+        int[][] copy = new int[16][16];
+        for (int r = 0; r < 16; r++) {
+            for (int c = 0; c < 16; c++) {
+                copy[c][r] = puzzle[r][c] == 0 ? 0 : 17 - puzzle[r][c];
+            }
+        }
+        Board copied = new Board(4, 4);
+        copied.setInitialBoard(copy);
+        int[][] copySolution = AlgorithmXSolver.solveExistingBoard(copied);
+        assertEquals(1, cache.getHits());
+        assertTrue(BoardChecks.isSolvedGrid(copySolution, 4));
+        assertTrue(BoardChecks.keepsGivens(copy, copySolution));
+        assertArrayEquals(copySolution, copied.getSolvedBoard());
+        assertEquals(17 - solution[0][1], copySolution[1][0]);
+
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(copy, 4, 4)); // solved, but not counted yet
+        assertEquals(1, cache.getHits() + cache.getMisses() - 2);
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(puzzle));
+        assertEquals(3, cache.getHits());
+        assertEquals(0.75, cache.getHitRate());
+    }
+
+    @Test
+    @DisplayName("Boards that are cheaper to solve than to key are left to the solver")
+    void testCheapBoardsSkipped() {
+        assertNull(cache.key(DancingLinksEngineTest.HARD_PUZZLE, 3, 3)); // 9x9 solves faster than its form is found
+        int[][] puzzle = puzzle(22);
+        assertNotNull(cache.key(puzzle, 4, 4));
+        int[][] solution = AlgorithmXSolver.solveExistingBoard(boardOf(puzzle));
+        assertNull(cache.key(solution, 4, 4)); // the singles fill it in
+        int[][] nearlyFull = SolverAlgorithm.deepCopyBoard(solution);
+        for (int i = 0; i < 16; i++) {
+            nearlyFull[i][(i * 5) % 16] = 0;
+        }
+        assertNull(cache.key(nearlyFull, 4, 4));
+
+        int[][] empty = new int[25][25]; // every order of the rows ties, so the form is not exact
+        for (int c = 0; c < 25; c++) {
+            empty[0][c] = c + 1;
+        }
+        assertNull(cache.key(empty, 5, 5));
+        assertEquals(0, cache.getHits() + cache.getMisses() - 1); // only the puzzle was looked up
+    }
+
+    @Test
+    @DisplayName("Results outlive the memory tier in the store, and the least recently used go first")
+    void testStoreAndEviction() {
+        cache.setStore(DB_URL);
+        int[][] puzzle = puzzle(23);
+        int[][] solution = AlgorithmXSolver.solveExistingBoard(boardOf(puzzle));
+        assertEquals(1, AlgorithmXSolver.checkUniqueSolution(puzzle, 4, 4));
+        cache.flush(); // the store is written on its own thread
+
+        SolveCache fresh = new SolveCache(32); // a new session
+        fresh.setStore(DB_URL);
+        SolveCache.Key stored = fresh.key(puzzle, 4, 4);
+        SolveCache.Result result = fresh.get(stored);
+        assertEquals(1, fresh.getStoreHits());
+        assertEquals(1, result.solutions());
+        assertArrayEquals(solution, result.solution());
+        assertNotNull(fresh.get(stored));
+        assertEquals(1, fresh.getHits()); // in memory now
+        assertTrue(fresh.getMaxLoadNanos() > 0);
+
+        int[][] clash = boxClash(puzzle); // a digit twice in a box, the singles see there is no solution
+        assertEquals(0, AlgorithmXSolver.checkUniqueSolution(clash, 4, 4));
+        assertNull(fresh.key(clash, 4, 4));
+        int[][] twice = SolverAlgorithm.deepCopyBoard(puzzle);
+        twice[0][0] = 1;
+        twice[0][1] = 1; // twice in a row, no key, solved without the cache
+        assertNull(fresh.key(twice, 4, 4));
+
+        SolveCache small = new SolveCache(16); // one result per stripe
+        int[][] fewer = SolverAlgorithm.deepCopyBoard(puzzle);
+        SolveCache.Key last = null;
+        int keyed = 0;
+        for (int cell = 0; cell < 256; cell++) { // boards with fewer and fewer givens, none a copy of another
+            if (fewer[cell / 16][cell % 16] != 0) {
+                fewer[cell / 16][cell % 16] = 0;
+                SolveCache.Key key = small.key(fewer, 4, 4);
+                if (key != null) { // few givens tie too many row orders for an exact form
+                    small.put(key, SolveCache.UNKNOWN, null);
+                    last = key;
+                    keyed++;
+                }
+            }
+        }
+        assertTrue(small.size() <= 16);
+        assertEquals(keyed - small.size(), small.getEvictions());
+        assertNotNull(small.get(last));
+    }
+
+    @Test
+    @DisplayName("A board solved on the event dispatch thread is keyed and stored on the writer thread")
+    void testKeyedOffDispatchThread() throws Exception {
+        cache.setStore(DB_URL);
+        int[][] puzzle = puzzle(24);
+        int[][][] solution = new int[1][][];
+        SwingUtilities.invokeAndWait(() -> solution[0] = AlgorithmXSolver.solveExistingBoard(boardOf(puzzle)));
+        assertEquals(0, cache.getHits() + cache.getMisses()); // no lookup on the dispatch thread
+        cache.flush();
+
+        SolveCache fresh = new SolveCache(32);
+        fresh.setStore(DB_URL);
+        SolveCache.Result result = fresh.get(fresh.key(puzzle, 4, 4));
+        assertEquals(1, fresh.getStoreHits());
+        assertArrayEquals(solution[0], result.solution());
+        assertNotNull(cache.get(cache.key(puzzle, 4, 4)));
+        assertEquals(1, cache.getHits());
+    }
+
+    private static int[][] puzzle(long seed) { // a 16x16 puzzle the singles do not finish
+        Config.setDifficulty("extreme");
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(seed));
+        generator.setGradeAttempts(0);
+        Board board = boardOf(new int[16][16]);
+        generator.createXSudoku(board);
+        return board.getInitialBoard();
+    }
+
+    private static Board boardOf(int[][] givens) {
+        try {
+            Board board = new Board(4, 4);
+            board.setInitialBoard(SolverAlgorithm.deepCopyBoard(givens));
+            return board;
+        } catch (Board.BoardNotCreatable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int[][] boxClash(int[][] puzzle) { // a digit of a box put in an open cell of it, clear of its row and column
+        for (int cell = 0; cell < 256; cell++) {
+            int row = cell / 16;
+            int col = cell % 16;
+            if (puzzle[row][col] != 0) {
+                continue;
+            }
+            for (int other = 0; other < 16; other++) {
+                int digit = puzzle[row / 4 * 4 + other / 4][col / 4 * 4 + other % 4];
+                if (digit != 0 && !inLine(puzzle, row, col, digit)) {
+                    int[][] clash = SolverAlgorithm.deepCopyBoard(puzzle);
+                    clash[row][col] = digit;
+                    return clash;
+                }
+            }
+        }
+        throw new IllegalStateException("No open cell to clash in");
+    }
+
+    private static boolean inLine(int[][] puzzle, int row, int col, int digit) {
+        for (int i = 0; i < 16; i++) {
+            if (puzzle[row][i] == digit || puzzle[i][col] == digit) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolvedGridFactory;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SolvedGridFactoryTest {
+
+    @Test
+    @DisplayName("Every shape gets valid grids, from the pattern and from a seed")
+    void testEveryShape() {
+        Random random = new Random(20);
+        for (int n = 2; n <= 5; n++) {
+            for (int k = 1; k <= n; k++) {
+                SolvedGridFactory factory = new SolvedGridFactory(n, k);
+                int[][] first = factory.grid(random);
+                for (int i = 0; i < 50; i++) {
+                    assertTrue(BoardChecks.isSolvedGrid(factory.grid(random), n), n + "x" + k);
+                }
+                factory.addSeed(first);
+                for (int i = 0; i < 50; i++) {
+                    assertTrue(BoardChecks.isSolvedGrid(factory.grid(random), n), n + "x" + k + " seeded");
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A seed turns into every grid it can reach with about the same chance")
+    void testUniform() {
+        SolvedGridFactory factory = new SolvedGridFactory(2, 2);
+        Random random = new Random(7);
+        Map<String, Integer> counts = new HashMap<>();
+        int samples = 100_000;
+        for (int i = 0; i < samples; i++) {
+            counts.merge(Arrays.deepToString(factory.grid(random)), 1, Integer::sum);
+        }
+        int min = counts.values().stream().min(Integer::compare).orElseThrow();
+        int max = counts.values().stream().max(Integer::compare).orElseThrow();
+        assertTrue(counts.size() == 96 || counts.size() == 192, counts.size() + " grids"); // the two kinds of 4x4 grid
+        assertTrue(max < 1.5 * min, "between " + min + " and " + max + " of each grid");
+    }
+
+    @Test
+    @DisplayName("A seed has to be a solved grid of the shape")
+    void testSeedChecked() {
+        SolvedGridFactory factory = new SolvedGridFactory(3, 3);
+        int[][] grid = factory.grid(new Random(1));
+        grid[0][0] = grid[0][1];
+        assertThrows(IllegalArgumentException.class, () -> factory.addSeed(grid));
+        assertThrows(IllegalArgumentException.class, () -> factory.addSeed(new int[6][6]));
+        assertThrows(IllegalArgumentException.class, () -> new SolvedGridFactory(2, 3));
+    }
+
+    @Test
+    @DisplayName("The generator makes unique puzzles from transformed grids")
+    void testTransformFill() throws Board.BoardNotCreatable {
+        Config.setDifficulty("hard");
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        generator.setFill(AlgorithmXSolver.Fill.TRANSFORM);
+        for (int[] shape : new int[][] {{3, 3}, {3, 2}, {4, 4}}) {
+            for (int i = 0; i < 3; i++) {
+                Board board = new Board(shape[0], shape[1]);
+                generator.createXSudoku(board);
+                assertTrue(BoardChecks.isSolvedGrid(board.getSolvedBoard(), shape[0]));
+                assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), board.getSolvedBoard()));
+                assertEquals(1, generator.checkUniqueSolution(board.getInitialBoard(), shape[0], shape[1]));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Solvers share the seeded factory, so the static generator searches for a seed only once")
+    void testSeedShared() throws Board.BoardNotCreatable {
+        Config.setDifficulty("easy");
+        AlgorithmXSolver.Fill fill = AlgorithmXSolver.getFill();
+        AlgorithmXSolver.setFill(AlgorithmXSolver.Fill.TRANSFORM);
+        try {
+            for (int i = 0; i < 3; i++) { // a new solver every call
+                Board board = new Board(3, 3);
+                AlgorithmXSolver.createXSudoku(board);
+                assertTrue(BoardChecks.isSolvedGrid(board.getSolvedBoard(), 3));
+                assertEquals(1, ExactCoverSolver.gridFactory(3, 3).seedCount());
+            }
+        } finally {
+            AlgorithmXSolver.setFill(fill);
+        }
+    }
+}
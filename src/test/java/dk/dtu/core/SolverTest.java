@@ -79,7 +79,7 @@ public class SolverTest {
         List<int[]> exactCoverBoard = AlgorithmXSolver.createExactCoverFromBoard(board, placements);
 
         assertEquals(729, exactCoverBoard.size());
-        assertEquals(4, exactCoverBoard.getFirst().length);
+        assertEquals(4, exactCoverBoard.get(0).length);
 
         boolean isRightLength = true;
         for (int[] ints : exactCoverBoard) {
@@ -93,7 +93,7 @@ public class SolverTest {
             // constraints
 
 
-        for (int i = 0; i < exactCoverBoard.getFirst().length; i++) {
+        for (int i = 0; i < exactCoverBoard.get(0).length; i++) {
             int numsInCol = 0;
             for (int[] nums : exactCoverBoard) {
                 if (nums[0] == i) {
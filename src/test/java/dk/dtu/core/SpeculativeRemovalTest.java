@@ -0,0 +1,119 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolvedGridFactory;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SpeculativeRemoval;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SpeculativeRemovalTest {
+
+    @Test
+    @DisplayName("Batched removal takes the same clues as a one by one pass in the same order")
+    void testSameAsOneByOne() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExactCoverSolver checker = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(24));
+            Random random = new Random(24);
+            for (int[] shape : new int[][] {{3, 3}, {4, 4}}) {
+                int n = shape[0];
+                int k = shape[1];
+                int size = n * k;
+                int maxRemoved = n == 3 ? 64 : 130;
+                for (int i = 0; i < 3; i++) {
+                    int[][] grid = new SolvedGridFactory(n, k).grid(random);
+                    assertSameAsOneByOne(pool, checker, grid, order(size * size, random), maxRemoved, n, k);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A cap smaller than a batch is reached as one by one, with clues late in the batch still tried")
+    void testSmallCap() {
+        ForkJoinPool pool = new ForkJoinPool(4); // batches of 8 clues
+        try {
+            ExactCoverSolver checker = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(24));
+            Random random = new Random(24);
+            for (int i = 0; i < 10; i++) {
+                int[][] puzzle = new SolvedGridFactory(3, 3).grid(random);
+                new SpeculativeRemoval(pool, 3, 3).remove(puzzle, order(81, random), 45); // most clues left now fail
+                for (int cap = 1; cap <= 7; cap += 2) {
+                    assertSameAsOneByOne(pool, checker, puzzle, order(81, random), cap, 3, 3);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Generation of large boards on a pool of several workers gives unique puzzles")
+    void testGeneratesUnique() throws Board.BoardNotCreatable {
+        Config.setDifficulty("medium");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(24));
+            generator.setForkJoinPool(pool);
+            generator.setGradeAttempts(0);
+            for (int i = 0; i < 2; i++) {
+                Board board = new Board(4, 4);
+                generator.createXSudoku(board);
+                assertEquals(1, generator.checkUniqueSolution(board.getInitialBoard(), 4, 4));
+                assertTrue(BoardChecks.keepsGivens(board.getInitialBoard(), board.getSolvedBoard()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameAsOneByOne( // the removal against a one by one pass in the same order
+            ForkJoinPool pool, ExactCoverSolver checker, int[][] start, int[] order, int maxRemoved, int n, int k) {
+        int size = n * k;
+        int[][] expected = SolverAlgorithm.deepCopyBoard(start);
+        int removed = 0;
+        for (int j = 0; j < order.length && removed < maxRemoved; j++) {
+            int row = order[j] / size;
+            int col = order[j] % size;
+            if (expected[row][col] == 0) {
+                continue;
+            }
+            expected[row][col] = 0;
+            if (checker.checkUniqueSolution(expected, n, k) == 1) {
+                removed++;
+            } else {
+                expected[row][col] = start[row][col];
+            }
+        }
+
+        int[][] puzzle = SolverAlgorithm.deepCopyBoard(start);
+        assertEquals(removed, new SpeculativeRemoval(pool, n, k).remove(puzzle, order, maxRemoved));
+        assertArrayEquals(expected, puzzle);
+        assertEquals(1, checker.checkUniqueSolution(puzzle, n, k));
+    }
+
+    private static int[] order(int cells, Random random) { // a random order of the cells
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            order[i] = i;
+        }
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,25 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/** The SQLite database of the tests, a temporary file so runs leave nothing in the project. */
+final class TestDatabase {
+    static final String URL = "jdbc:sqlite:" + createFile().getAbsolutePath();
+
+    private TestDatabase() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static File createFile() {
+        try {
+            File file = File.createTempFile("test_sudoku", ".db");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/* (C)2024 */
+package dk.dtu.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SudokuCoverMatrix;
+import dk.dtu.game.core.solver.algorithmx.UniquenessOracle;
+import dk.dtu.game.core.solver.heuristicsolver.HeuristicSolver;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UniquenessOracleTest {
+
+    @Test
+    @DisplayName("The oracle accepts a removal exactly when the puzzle stays unique")
+    void testOracleMatchesFullCount() throws Exception {
+        for (int n = 2; n <= 3; n++) {
+            ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(n));
+            int[][] puzzle = solver.solveExistingBoard(new Board(n, n));
+            int[] order = solver.fisherYatesShuffle(n * n * n * n);
+            assertOracleMatches(puzzle, order, order);
+        }
+    }
+
+    @Test
+    @DisplayName("The oracle still answers correctly when cells are tried out of order")
+    void testOracleOutOfOrder() throws Exception {
+        ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(5));
+        int[][] puzzle = solver.solveExistingBoard(new Board(3, 3));
+        int[] reversed = new int[81];
+        for (int i = 0; i < 81; i++) {
+            reversed[i] = 80 - i;
+        }
+        assertOracleMatches(puzzle, solver.fisherYatesShuffle(81), reversed);
+    }
+
+    @Test
+    @DisplayName("An oracle with a node budget only keeps extra clues")
+    void testOracleBudget() throws Exception {
+        ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(7));
+        int[][] grid = solver.solveExistingBoard(new Board(3, 3));
+        int[] order = solver.fisherYatesShuffle(81);
+        UniquenessOracle exact = new UniquenessOracle(new SudokuCoverMatrix(9), grid, order);
+        UniquenessOracle capped = new UniquenessOracle(new SudokuCoverMatrix(9), grid, order);
+        capped.setNodeBudget(10);
+
+        int exactRemoved = 0;
+        int cappedRemoved = 0;
+        for (int cell : order) {
+            exactRemoved += exact.tryRemove(cell / 9, cell % 9) ? 1 : 0;
+            cappedRemoved += capped.tryRemove(cell / 9, cell % 9) ? 1 : 0;
+        }
+        assertTrue(cappedRemoved > 0);
+        assertTrue(cappedRemoved < exactRemoved); // some proofs ran out of nodes
+        assertEquals(1, solver.checkUniqueSolution(capped.getBoard()));
+        assertTrue(BoardChecks.keepsGivens(capped.getBoard(), grid));
+    }
+
+    @Test
+    @DisplayName("Clue removal cuts no proof short unless a budget is set")
+    void testNoBudgetByDefault() throws Exception {
+        Config.setDifficulty("extreme");
+        int[][] grid = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(17)).solveExistingBoard(new Board(3, 3));
+        int[] clues = new int[3];
+        for (int i = 0; i < 10; i++) {
+            int[][][] puzzles = new int[3][][];
+            for (int setting = 0; setting < 3; setting++) { // the default, no cap, and a small cap
+                ExactCoverSolver solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(i));
+                if (setting > 0) {
+                    solver.setRemovalBudget(setting == 1 ? Long.MAX_VALUE : 10);
+                }
+                puzzles[setting] = AlgorithmXSolver.deepSetSolutionBoard(grid);
+                solver.removeXNumbers(puzzles[setting], 3, 3);
+                clues[setting] += 81 - (int) Arrays.stream(puzzles[setting]).flatMapToInt(Arrays::stream).filter(v -> v == 0).count();
+            }
+            assertArrayEquals(puzzles[1], puzzles[0]);
+        }
+        assertTrue(clues[2] > clues[0], clues[2] + " clues with a cap, " + clues[0] + " without"); // the cap keeps clues
+    }
+
+    private static void assertOracleMatches(int[][] puzzle, int[] oracleOrder, int[] tryOrder) {
+        int size = puzzle.length;
+        UniquenessOracle oracle = new UniquenessOracle(new SudokuCoverMatrix(size), puzzle, oracleOrder);
+        for (int cell : tryOrder) {
+            int row = cell / size;
+            int col = cell % size;
+            int value = puzzle[row][col];
+            puzzle[row][col] = 0;
+            boolean unique = new ExactCoverSolver().checkUniqueSolution(puzzle) == 1;
+            if (!unique) {
+                puzzle[row][col] = value;
+            }
+            assertEquals(unique, oracle.tryRemove(row, col));
+            assertArrayEquals(puzzle, oracle.getBoard());
+        }
+    }
+
+    @Test
+    @DisplayName("Both generators still produce unique puzzles with the oracle")
+    void testGeneratorsStayUnique() throws Exception {
+        Config.setDifficulty("extreme");
+        for (int i = 0; i < 5; i++) {
+            Board xBoard = new Board(3, 3);
+            new ExactCoverSolver().createXSudoku(xBoard);
+            assertEquals(1, new ExactCoverSolver().checkUniqueSolution(xBoard.getInitialBoard()));
+            assertTrue(BoardChecks.keepsGivens(xBoard.getInitialBoard(), xBoard.getSolvedBoard()));
+
+            Board heuristicBoard = new Board(3, 3);
+            HeuristicSolver.createPlayableSudoku(heuristicBoard);
+            assertEquals(1, new ExactCoverSolver().checkUniqueSolution(heuristicBoard.getInitialBoard()));
+            assertTrue(BoardChecks.keepsGivens(heuristicBoard.getInitialBoard(), heuristicBoard.getSolvedBoard()));
+        }
+    }
+}
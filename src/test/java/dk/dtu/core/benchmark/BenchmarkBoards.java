@@ -0,0 +1,42 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+
+/** Reproducible boards shared by the benchmarks. */
+final class BenchmarkBoards {
+
+    private BenchmarkBoards() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static int[][] solvedGrid(int n, long seed) throws Board.BoardNotCreatable {
+        return solvedGrid(n, n, seed);
+    }
+
+    static int[][] solvedGrid(int n, int k, long seed) throws Board.BoardNotCreatable {
+        ExactCoverSolver solver =
+                new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(seed));
+        return solver.solveExistingBoard(new Board(n, k));
+    }
+
+    static int[][] puzzle(int n, double holes, long seed) throws Board.BoardNotCreatable {
+        return puzzle(n, n, holes, seed);
+    }
+
+    static int[][] puzzle(int n, int k, double holes, long seed) throws Board.BoardNotCreatable {
+        int[][] grid = solvedGrid(n, k, seed);
+        Random random = new Random(seed);
+        for (int[] row : grid) {
+            for (int j = 0; j < row.length; j++) {
+                if (random.nextDouble() < holes) {
+                    row[j] = 0; // blank a fixed share of the cells, uniqueness is not needed here
+                }
+            }
+        }
+        return grid;
+    }
+}
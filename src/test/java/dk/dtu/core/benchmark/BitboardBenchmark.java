@@ -0,0 +1,68 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.bitboard.BitboardSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Solves per minute of generated 9x9 puzzles with the bitboard solver. The uniqueness checks
+ * compare it with the array Dancing Links engine on the same puzzles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BitboardBenchmark {
+
+    private static final int PUZZLES = 64;
+
+    @Param({"medium", "extreme"})
+    public String difficulty;
+
+    private int[][][] puzzles;
+    private BitboardSolver bitboardSolver;
+    private ExactCoverSolver exactCoverSolver;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        Config.setDifficulty(difficulty);
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(23));
+        puzzles = new int[PUZZLES][][];
+        for (int i = 0; i < PUZZLES; i++) {
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            puzzles[i] = board.getInitialBoard();
+        }
+        bitboardSolver = new BitboardSolver(3, 3);
+        exactCoverSolver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(23));
+    }
+
+    private int[][] nextPuzzle() {
+        next = (next + 1) % PUZZLES;
+        return puzzles[next];
+    }
+
+    @Benchmark
+    public int[][] bitboardSolve() {
+        return bitboardSolver.solve(nextPuzzle());
+    }
+
+    @Benchmark
+    public int bitboardUnique() {
+        return bitboardSolver.countSolutions(nextPuzzle(), 2);
+    }
+
+    @Benchmark
+    public int dancingLinksUnique() {
+        return exactCoverSolver.checkUniqueSolution(nextPuzzle());
+    }
+}
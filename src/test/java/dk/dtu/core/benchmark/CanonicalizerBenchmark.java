@@ -0,0 +1,49 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.Canonicalizer;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Canonical forms of 16 generated puzzles, the cost the pool pays for every puzzle it makes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CanonicalizerBenchmark {
+
+    @Param({"3", "4"})
+    public int n;
+
+    @Param({"easy", "extreme"})
+    public String difficulty;
+
+    private Canonicalizer canonicalizer;
+    private final int[][][] puzzles = new int[16][][];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        Config.setDifficulty(difficulty);
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(21));
+        generator.setGradeAttempts(0);
+        for (int i = 0; i < puzzles.length; i++) {
+            Board board = new Board(n, n);
+            generator.createXSudoku(board);
+            puzzles[i] = board.getInitialBoard();
+        }
+        canonicalizer = new Canonicalizer(n, n);
+    }
+
+    @Benchmark
+    public Canonicalizer.Hash canonicalize() {
+        return canonicalizer.canonicalize(puzzles[next++ & (puzzles.length - 1)]).hash();
+    }
+}
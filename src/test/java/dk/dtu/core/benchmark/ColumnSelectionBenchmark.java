@@ -0,0 +1,42 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Sequential solution counting on both Dancing Links engines, where most of the time goes into
+ * choosing the next column. Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnSelectionBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int n;
+
+    @Param({"NODE", "ARRAY"})
+    public AlgorithmXSolver.Engine engine;
+
+    private ExactCoverSolver solver;
+    private int[][] puzzle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        solver = new ExactCoverSolver(engine, new Random(5));
+        puzzle = BenchmarkBoards.puzzle(n, 0.5, 42);
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return solver.checkUniqueSolution(puzzle);
+    }
+}
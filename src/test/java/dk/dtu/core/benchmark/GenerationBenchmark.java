@@ -0,0 +1,66 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Puzzle generation with createXSudoku, the clue removal on its own and the single uniqueness
+ * check. Run with -prof gc to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"3"})
+    public int n;
+
+    @Param({"hard", "extreme"})
+    public String difficulty;
+
+    @Param({"false", "true"})
+    public boolean minimal; // minimal puzzles, the difficulty then only picks the grade aimed for
+
+    private ExactCoverSolver solver;
+    private int[][] puzzle;
+    private int[][] solvedGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        Config.setDifficulty(difficulty);
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(11));
+        solver.setMinimalPuzzles(minimal);
+        Board board = new Board(n, n);
+        solver.createXSudoku(board);
+        puzzle = board.getInitialBoard();
+        solvedGrid = board.getSolvedBoard();
+    }
+
+    @Benchmark
+    public int[][] generate() throws Board.BoardNotCreatable {
+        Board board = new Board(n, n);
+        solver.createXSudoku(board);
+        return board.getInitialBoard();
+    }
+
+    @Benchmark
+    public int[][] removeNumbers() { // removal only, the solved grid is the same every time
+        int[][] grid = AlgorithmXSolver.deepSetSolutionBoard(solvedGrid);
+        solver.removeXNumbers(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public int checkUniqueSolution() {
+        return solver.checkUniqueSolution(puzzle);
+    }
+}
@@ -0,0 +1,54 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.heuristicsolver.HeuristicSolver;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * HeuristicSolver.fillBoard with conflict-directed backjumping against the string-keyed conflict
+ * map it replaced, on boards with wider boxes than the board has rows of boxes. The shape is n
+ * and k of Board: 3x2 is a 6x6 board of 3x3 boxes. Run it with -prof gc for the bytes allocated
+ * per call, which for backjumping are only the 3-dimensional board and the masks built from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeuristicSearchBenchmark {
+
+    @Param({"3x2", "4x3"})
+    public String shape;
+
+    @Param({"backjumping", "legacy"})
+    public String search;
+
+    @Param({"0.5"})
+    public double holes;
+
+    private int n;
+    private int k;
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        n = Integer.parseInt(shape.split("x")[0]);
+        k = Integer.parseInt(shape.split("x")[1]);
+        board = new Board(n, k);
+        board.setInitialBoard(BenchmarkBoards.puzzle(n, k, holes, 42));
+    }
+
+    @Benchmark
+    public boolean fillBoard() {
+        int[][][] possiblePlacements = HeuristicSolver.createSetFromBoard(board, n, k);
+        if (search.equals("legacy")) {
+            return LegacyHeuristicSearch.fillBoard(possiblePlacements, n, k, new HashSet<>(), new HashMap<>());
+        }
+        return HeuristicSolver.fillBoard(possiblePlacements, n, k);
+    }
+}
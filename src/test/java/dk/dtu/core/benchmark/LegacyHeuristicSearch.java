@@ -0,0 +1,229 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.solver.heuristicsolver.HeuristicSolver;
+import java.util.*;
+
+/**
+ * HeuristicSolver.fillBoard as it was before conflict-directed backjumping: a copy of the board
+ * per branch and a string-keyed conflict map that gives up on a cell the second time a value fails
+ * there. Kept only as the baseline of HeuristicSearchBenchmark.
+ */
+final class LegacyHeuristicSearch {
+    private static final Random RANDOM = new Random(5);
+
+    private LegacyHeuristicSearch() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static boolean fillBoard(int[][][] arr, int subgrid, int gridSize, Set<int[]> conflictSet, Map<String, Integer> conflictMap) {
+        int boardLength = subgrid * gridSize;
+
+
+            boolean isChanged = true; // boolean value to ensure function only exits when no more placements can be made
+
+            // Initial pass to make obvious placements
+            while (isChanged) { // while placements can be made
+                isChanged = false;
+                for (int i = 0; i < boardLength; i++) {
+                    for (int j = 0; j < boardLength; j++) { // run through each cell in the board
+                        if (HeuristicSolver.placementCount(arr[i][j]) == 1 && arr[i][j][0] == 0) { // if the cell has only one possible placement, or is empty
+                            int value = HeuristicSolver.placeableValue(arr[i][j]);  // get the placement value
+                            arr[i][j][0] = value; // place the value in the cell
+                            HeuristicSolver.removePossiblePlacements(arr, i, j, value, subgrid, gridSize); // remove this value as a possible placement from the row, column and subgrid
+                            isChanged = true; // a change has been made
+                        }
+                    }
+                }
+            }
+
+        if (isFullyFilled(arr)) { // if the board is fully filled end the recursion
+            return true;
+        }
+        // Find the cell with the minimum remaining values (MRV) and highest degree
+        int[] mrvCell = findMRVAndHighestDegreeCell(arr, subgrid, gridSize, conflictMap); // find the cell with the minimum remaining values and highest degree
+
+        if (mrvCell == null) { // if no cell is found, return false
+            return false;
+        }
+
+        int row = mrvCell[0];
+        int col = mrvCell[1];
+        List<Integer> possibleValues = getLCV(arr, row, col, subgrid, gridSize);
+        Collections.shuffle(possibleValues, RANDOM); // Shuffle possible values to introduce randomness
+
+        for (int value : possibleValues) {
+            int[][][] arrCopy = copyBoard(arr); // Make a copy of the board
+            arrCopy[row][col][0] = value; // Place the value in the copy
+            HeuristicSolver.removePossiblePlacements(arrCopy, row, col, value, subgrid, gridSize);
+
+            boolean consistent = isConsistent(arrCopy, subgrid, gridSize); // Perform forward checking
+
+            if (consistent && fillBoard(arrCopy, subgrid, gridSize, conflictSet, conflictMap)) {
+                // If the recursive call returns true, copy the solution back to the original array
+                for (int r = 0; r < arr.length; r++) {
+                    for (int c = 0; c < arr[r].length; c++) {
+                        arr[r][c] = arrCopy[r][c].clone();
+                    }
+                }
+                return true;
+            }
+            conflictSet.add(new int[]{row, col}); // Add the cell to the conflict set
+            String conflictKey = row + "-" + col + "-" + value;
+            conflictMap.put(conflictKey, conflictMap.getOrDefault(conflictKey, 0) + 1); // Add the conflict to the conflict map
+
+            // Backjumping
+            if (conflictMap.get(conflictKey) > 1) { // If the conflict has occurred more than once
+                return false;
+            }
+        }
+        return false; // If no placement leads to a solution, return false for backtracking
+    }
+
+    private static boolean isConsistent(int[][][] arr, int subgrid, int gridSize) {
+        int boardLength = subgrid * gridSize;
+
+        for (int i = 0; i < boardLength; i++) {
+            for (int j = 0; j < boardLength; j++) {
+                if (arr[i][j][0] == 0 && HeuristicSolver.placementCount(arr[i][j]) == 0) { // If a cell is empty and has no possible placements
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int[][][] copyBoard(int[][][] arr) {
+        int[][][] copy = new int[arr.length][arr[0].length][arr[0][0].length];
+        for (int i = 0; i < arr.length; i++) {
+            for (int j = 0; j < arr[i].length; j++) {
+                for (int k = 0; k < arr[i][j].length; k++) {
+                    copy[i][j][k] = arr[i][j][k];
+                }
+            }
+        } // Create a deep copy of the board
+        return copy;
+    }
+
+    private static List<Integer> getPossibleValues(int[] cell) {
+        List<Integer> possibleValues = new ArrayList<>();
+        for (int i = 1; i < cell.length; i++) {
+            if (cell[i] == 1) {
+                possibleValues.add(i);
+            }
+        } // Get the possible values for a cell
+        return possibleValues;
+    }
+
+    private static boolean isFullyFilled(int[][][] arr) {
+        for (int[][] integer : arr) {
+            for (int[] anInt : integer) {
+                if (anInt[0] == 0) {
+                    return false;
+                }
+            }
+        } // Check if the board is fully filled
+        return true;
+    }
+
+    private static int[] findMRVAndHighestDegreeCell(int[][][] arr, int subgrid, int gridSize, Map<String, Integer> conflictMap) {
+        int boardLength = subgrid * gridSize;
+        int minCount = Integer.MAX_VALUE;
+        int maxDegree = -1;
+        int[] cell = null;
+
+        // 2 heuristics in one, Minimum Remaining Values (MRV) and Highest Degree
+
+        for (int i = 0; i < boardLength; i++) {
+            for (int j = 0; j < boardLength; j++) {
+                if (arr[i][j][0] == 0) {
+                    int count = HeuristicSolver.placementCount(arr[i][j]); // Get the number of possible placements for a cell
+                    int degree = calculateDegree(arr, i, j, subgrid, gridSize); // Get the degree of the cell
+                    if (count < minCount || (count == minCount && degree > maxDegree)) {
+                        minCount = count;
+                        maxDegree = degree;
+                        cell = new int[]{i, j}; // Find the cell with the minimum remaining values and highest degree
+                    }
+                }
+            }
+        }
+        if (cell != null) { // If a cell is found, add it to the conflict map
+            String conflictKey = cell[0] + "-" + cell[1];
+            if (conflictMap.containsKey(conflictKey)) {
+                conflictMap.put(conflictKey, conflictMap.get(conflictKey) + 1);
+            } else {
+                conflictMap.put(conflictKey, 1);
+            }
+        }
+        return cell;
+    }
+
+    private static int calculateDegree(int[][][] arr, int row, int col, int subgrid, int gridSize) {
+        int boardLength = subgrid * gridSize;
+        int degree = 0;
+
+        // Count the number of unassigned neighbors in the row and column
+        for (int i = 0; i < boardLength; i++) {
+            if (arr[row][i][0] == 0 && i != col) {
+                degree++;
+            }
+            if (arr[i][col][0] == 0 && i != row) {
+                degree++;
+            }
+        }
+
+        // Count the number of unassigned neighbors in the subgrid
+        int startRow = (row / subgrid) * subgrid;
+        int startCol = (col / subgrid) * subgrid;
+        for (int i = startRow; i < startRow + subgrid; i++) {
+            for (int j = startCol; j < startCol + subgrid; j++) {
+                if (arr[i][j][0] == 0 && (i != row || j != col)) {
+                    degree++;
+                }
+            }
+        }
+
+        return degree;
+    }
+
+    private static List<Integer> getLCV(int[][][] arr, int row, int col, int subgrid, int gridSize) {
+        List<Integer> possibleValues = getPossibleValues(arr[row][col]);
+        Collections.shuffle(possibleValues, RANDOM); // Shuffle to introduce randomness
+        possibleValues.sort((a, b) -> {
+            return countConstraints(arr, row, col, a, subgrid, gridSize) - countConstraints(arr, row, col, b, subgrid, gridSize);
+        });
+        return possibleValues;
+    }
+
+    private static int countConstraints(int[][][] arr, int row, int col, int value, int subgrid, int gridSize) {
+        int boardLength = subgrid * gridSize;
+        int constraints = 0;
+
+        // Count constraints in the row
+        for (int j = 0; j < boardLength; j++) {
+            if (arr[row][j][0] == 0 && arr[row][j][value] == 1) {
+                constraints++;
+            }
+        }
+
+        // Count constraints in the column
+        for (int i = 0; i < boardLength; i++) {
+            if (arr[i][col][0] == 0 && arr[i][col][value] == 1) {
+                constraints++;
+            }
+        }
+
+        // Count constraints in the subgrid
+        int startRow = (row / subgrid) * subgrid;
+        int startCol = (col / subgrid) * subgrid;
+        for (int i = startRow; i < startRow + subgrid; i++) {
+            for (int j = startCol; j < startCol + subgrid; j++) {
+                if (arr[i][j][0] == 0 && arr[i][j][value] == 1) {
+                    constraints++;
+                }
+            }
+        }
+
+        return constraints;
+    }
+}
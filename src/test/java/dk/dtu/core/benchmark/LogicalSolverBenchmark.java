@@ -0,0 +1,46 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.logical.Grading;
+import dk.dtu.game.core.solver.logical.LogicalSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Puzzles graded per second by LogicalSolver on one thread, over 64 generated 9x9 puzzles. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogicalSolverBenchmark {
+
+    @Param({"medium", "hard", "extreme"})
+    public String difficulty;
+
+    private final LogicalSolver solver = new LogicalSolver(3, 3);
+    private final int[][][] puzzles = new int[64][][];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        Config.setDifficulty(difficulty);
+        ExactCoverSolver generator = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(16));
+        generator.setGradeAttempts(0); // the puzzles as they come, not picked for their grade
+        for (int i = 0; i < puzzles.length; i++) {
+            Board board = new Board(3, 3);
+            generator.createXSudoku(board);
+            puzzles[i] = board.getInitialBoard();
+        }
+    }
+
+    @Benchmark
+    public Grading grade() {
+        return solver.grade(puzzles[next++ & (puzzles.length - 1)]);
+    }
+}
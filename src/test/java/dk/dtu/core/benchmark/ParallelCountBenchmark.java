@@ -0,0 +1,64 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.SolutionCount;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Capped solution counts of under-constrained 9x9 boards for a growing number of ForkJoinPool
+ * workers. Besides the time per count, the nodes counter gives the search throughput in nodes per
+ * second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelCountBenchmark {
+
+    @Param({"0.6", "1.0"})
+    public double holes; // 1.0 is the empty board
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"1000000"})
+    public long cap;
+
+    private ForkJoinPool pool;
+    private ExactCoverSolver solver;
+    private int[][] puzzle;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes; // search nodes, reported per second
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        pool = new ForkJoinPool(threads);
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(7));
+        solver.setForkJoinPool(pool);
+        puzzle = BenchmarkBoards.puzzle(3, holes, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long count(Nodes counter) {
+        SolutionCount count = solver.countSolutions(puzzle, 3, 3, cap);
+        counter.nodes += count.nodes();
+        return count.count();
+    }
+}
@@ -0,0 +1,53 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Solve time of large boards with the parallel Algorithm X search for a growing number of
+ * ForkJoinPool workers. Run it with org.openjdk.jmh.Main, see the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSolveBenchmark {
+
+    @Param({"4", "5"})
+    public int n; // 16x16 and 25x25 boards
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private int[][] puzzle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        pool = new ForkJoinPool(threads);
+        puzzle = BenchmarkBoards.puzzle(n, 0.65, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[][] solve() throws Board.BoardNotCreatable {
+        ExactCoverSolver solver =
+                new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(7));
+        solver.setForkJoinPool(pool);
+        Board board = new Board(n, n);
+        board.setInitialBoard(puzzle);
+        return solver.solveExistingBoard(board);
+    }
+}
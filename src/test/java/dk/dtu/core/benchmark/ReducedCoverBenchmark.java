@@ -0,0 +1,49 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Solving and uniqueness checks of boards with a growing share of empty cells. The boards with
+ * few holes are what a player's board looks like near the end of a game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReducedCoverBenchmark {
+
+    @Param({"3", "4"})
+    public int n;
+
+    @Param({"0.1", "0.5"})
+    public double holes;
+
+    private ExactCoverSolver solver;
+    private int[][] puzzle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        puzzle = BenchmarkBoards.puzzle(n, holes, 42);
+    }
+
+    @Benchmark
+    public int[][] solve() throws Board.BoardNotCreatable {
+        Board board = new Board(n, n);
+        board.setInitialBoard(puzzle);
+        return solver.solveExistingBoard(board);
+    }
+
+    @Benchmark
+    public int checkUniqueSolution() {
+        return solver.checkUniqueSolution(puzzle);
+    }
+}
@@ -0,0 +1,55 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import dk.dtu.game.core.solver.algorithmx.RestartSchedule;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Latency distribution of filling an empty board and of generating a whole puzzle, with and
+ * without node budgets: restarts for the search that fills the board, and the cap on the proofs
+ * of the clue removal. Every call gets new random tie-breaks, so the percentiles in the sample
+ * time output show the tail that players wait for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class RestartLatencyBenchmark {
+
+    @Param({"4", "5"})
+    public int n;
+
+    @Param({"off", "on"})
+    public String budgets;
+
+    private ExactCoverSolver solver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Config.setDifficulty("medium");
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(13));
+        boolean on = budgets.equals("on");
+        solver.setRestartSchedule(on ? RestartSchedule.luby(1000) : null);
+        solver.setRemovalBudget(on ? ExactCoverSolver.REMOVAL_BUDGET : Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[][] solveEmptyBoard() throws Board.BoardNotCreatable {
+        return solver.solveExistingBoard(new Board(n, n));
+    }
+
+    @Benchmark
+    public int[][] generate() throws Board.BoardNotCreatable {
+        Board board = new Board(n, n);
+        solver.createXSudoku(board);
+        return board.getInitialBoard();
+    }
+}
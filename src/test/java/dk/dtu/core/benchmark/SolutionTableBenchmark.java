@@ -0,0 +1,53 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Solving, checking and generating 4x4 boards from the solution table and with a search. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolutionTableBenchmark {
+
+    @Param({"table", "search"})
+    public String backend;
+
+    private ExactCoverSolver solver;
+    private int[][] puzzle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        Config.setDifficulty("hard");
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(3));
+        solver.setSolutionTables(backend.equals("table"));
+        puzzle = BenchmarkBoards.puzzle(2, 0.6, 42);
+    }
+
+    @Benchmark
+    public int[][] solve() throws Board.BoardNotCreatable {
+        Board board = new Board(2, 2);
+        board.setInitialBoard(puzzle);
+        return solver.solveExistingBoard(board);
+    }
+
+    @Benchmark
+    public int checkUniqueSolution() {
+        return solver.checkUniqueSolution(puzzle, 2, 2);
+    }
+
+    @Benchmark
+    public int[][] generate() throws Board.BoardNotCreatable {
+        Board board = new Board(2, 2);
+        solver.createXSudoku(board);
+        return board.getInitialBoard();
+    }
+}
@@ -0,0 +1,44 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Board;
+import dk.dtu.game.core.solver.SolvedGridFactory;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** A solved grid from a search of the empty board against one transformed from a searched seed. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolvedGridBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int n;
+
+    private final Random random = new Random(20);
+    private ExactCoverSolver solver;
+    private SolvedGridFactory factory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Board.BoardNotCreatable {
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(20));
+        factory = new SolvedGridFactory(n, n);
+        factory.addSeed(solver.solveExistingBoard(new Board(n, n)));
+    }
+
+    @Benchmark
+    public int[][] search() throws Board.BoardNotCreatable {
+        return solver.solveExistingBoard(new Board(n, n));
+    }
+
+    @Benchmark
+    public int[][] transform() {
+        return factory.grid(random);
+    }
+}
@@ -0,0 +1,57 @@
+/* (C)2024 */
+package dk.dtu.core.benchmark;
+
+import dk.dtu.game.core.Config;
+import dk.dtu.game.core.solver.SolvedGridFactory;
+import dk.dtu.game.core.solver.SolverAlgorithm;
+import dk.dtu.game.core.solver.algorithmx.AlgorithmXSolver;
+import dk.dtu.game.core.solver.algorithmx.ExactCoverSolver;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Clue removal from a solved grid, one check at a time against SpeculativeRemoval on pools of
+ * a growing number of workers. A pool of one worker takes the one at a time path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpeculativeRemovalBenchmark {
+
+    @Param({"4", "5"})
+    public int n;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private final Random random = new Random(24);
+    private ForkJoinPool pool;
+    private ExactCoverSolver solver;
+    private SolvedGridFactory factory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Config.setDifficulty("medium");
+        pool = new ForkJoinPool(workers);
+        solver = new ExactCoverSolver(AlgorithmXSolver.Engine.ARRAY, new Random(24));
+        solver.setForkJoinPool(pool);
+        factory = new SolvedGridFactory(n, n);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[][] remove() {
+        int[][] grid = SolverAlgorithm.deepCopyBoard(factory.grid(random));
+        solver.removeXNumbers(grid, n, n);
+        return grid;
+    }
+}